@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark of the wait used by {@link CompletableFutures#waitUntilDone(CompletableFuture)}: latency between an event
+ * (future completed, progress cancelled) and the resume of the waiting thread, with the wait which parks the thread
+ * ({@link CompletableFutures#park}) and with the previous wait which polled every 25 ms.
+ *
+ * <p>
+ * The benchmark doesn't require the IntelliJ application: the progress cancellation is simulated with a flag checked
+ * by the cancellation check, and the cancel hook wakes up the waiting thread like
+ * {@link CompletableFutures#onProgressCanceled(Runnable)}.
+ * </p>
+ *
+ * <p>
+ * Usage : ./gradlew benchmark -PbenchmarkClass=org.microshed.lsp4ij.internal.WaitUntilDoneBenchmark
+ * </p>
+ */
+public class WaitUntilDoneBenchmark {
+
+    private static final int RUNS = 200;
+
+    private static final long POLL_INTERVAL_MILLIS = 25;
+
+    private interface Wait {
+        void waitUntilDone(CompletableFuture<?> future, Runnable checkCanceled) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Wait park = (future, checkCanceled) -> CompletableFutures.park(future, null, checkCanceled, CompletableFutures.getCheckCanceledInterval(true));
+        Wait poll = (future, checkCanceled) -> {
+            while (!future.isDone()) {
+                checkCanceled.run();
+                try {
+                    future.get(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // continue
+                }
+            }
+        };
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            // Warmup
+            measure(park, executor, false);
+            measure(poll, executor, false);
+
+            System.out.printf("future completed   park: %6.2f ms  poll 25 ms: %6.2f ms%n",
+                    measure(park, executor, false), measure(poll, executor, false));
+            System.out.printf("progress cancelled park: %6.2f ms  poll 25 ms: %6.2f ms%n",
+                    measure(park, executor, true), measure(poll, executor, true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the mean latency (in milliseconds) between the event and the resume of the waiting thread.
+     */
+    private static double measure(Wait wait, ScheduledExecutorService executor, boolean cancel) throws Exception {
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            Thread waiter = Thread.currentThread();
+            AtomicLong eventTime = new AtomicLong();
+            AtomicBoolean canceled = new AtomicBoolean();
+            long delay = ThreadLocalRandom.current().nextLong(1, 11);
+            executor.schedule(() -> {
+                eventTime.set(System.nanoTime());
+                if (cancel) {
+                    canceled.set(true);
+                    // Cancel hook of the progress indicator
+                    LockSupport.unpark(waiter);
+                } else {
+                    future.complete(null);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            try {
+                wait.waitUntilDone(future, () -> {
+                    if (canceled.get()) {
+                        throw new ProcessCanceledException();
+                    }
+                });
+            } catch (ProcessCanceledException e) {
+                // expected when the progress is cancelled
+            }
+            // The wait returns only when the event has occurred
+            total += System.nanoTime() - eventTime.get();
+        }
+        return total / (double) RUNS / 1_000_000;
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.eclipse.lsp4j.*;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.MessageProducer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.StreamMessageProducer;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Benchmark of the allocations (and time) of the LSP message reading / writing: {@link BufferedMessageProducer} and
+ * {@link BufferedMessageConsumer} compared to the LSP4J {@link StreamMessageProducer} and {@link StreamMessageConsumer}.
+ *
+ * <ul>
+ *     <li>read: 'textDocument/publishDiagnostics' notifications with 10, 200 and 2000 diagnostics.</li>
+ *     <li>write: 'textDocument/didOpen' notifications with a text of 1 KB, 100 KB and 1 MB (the big texts are
+ *     streamed, see {@link StreamedTextTypeAdapter}).</li>
+ * </ul>
+ *
+ * <p>
+ * The allocated bytes are measured with the allocation counter of the current thread
+ * ({@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}), the messages are read from
+ * a byte array and written in a null output stream.
+ * </p>
+ *
+ * <p>
+ * Usage : ./gradlew benchmark -PbenchmarkClass=org.microshed.lsp4ij.server.BufferedMessageBenchmark
+ * </p>
+ */
+public class BufferedMessageBenchmark {
+
+    private static final int MESSAGES = 200;
+
+    private static final int ROUNDS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private record Result(long allocatedBytes, long nanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        StreamedTextTypeAdapter streamedTextAdapter = new StreamedTextTypeAdapter();
+        MessageJsonHandler clientHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedJsonRpcMethods(LanguageClient.class));
+        MessageJsonHandler bufferedClientHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedJsonRpcMethods(LanguageClient.class),
+                gsonBuilder -> gsonBuilder.registerTypeAdapter(String.class, streamedTextAdapter));
+        MessageJsonHandler serverHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedJsonRpcMethods(LanguageServer.class));
+        MessageJsonHandler bufferedServerHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedJsonRpcMethods(LanguageServer.class),
+                gsonBuilder -> gsonBuilder.registerTypeAdapter(String.class, streamedTextAdapter));
+
+        System.out.println("Read 'textDocument/publishDiagnostics' (" + MESSAGES + " messages)");
+        for (int diagnostics : new int[]{10, 200, 2000}) {
+            byte[] data = frame(createPublishDiagnostics(diagnostics), clientHandler);
+            Result lsp4j = measure(() -> read(new StreamMessageProducer(new ByteArrayInputStream(data), clientHandler, null)));
+            Result buffered = measure(() -> read(new BufferedMessageProducer(new ByteArrayInputStream(data), bufferedClientHandler, null)));
+            print(diagnostics + " diagnostics (" + data.length / MESSAGES / 1024 + " KB)", lsp4j, buffered);
+        }
+
+        System.out.println("Write 'textDocument/didOpen' (" + MESSAGES + " messages)");
+        for (int textSize : new int[]{1024, 100 * 1024, 1024 * 1024}) {
+            Message message = createDidOpen(textSize);
+            Result lsp4j = measure(() -> write(message, output -> new StreamMessageConsumer(output, serverHandler)));
+            Result buffered = measure(() -> write(message, output -> new BufferedMessageConsumer(output, bufferedServerHandler, streamedTextAdapter)));
+            print("text of " + textSize / 1024 + " KB", lsp4j, buffered);
+        }
+    }
+
+    private static void read(MessageProducer producer) {
+        producer.listen(message -> {
+        });
+    }
+
+    private static void write(Message message, Function<OutputStream, MessageConsumer> consumerFactory) {
+        MessageConsumer consumer = consumerFactory.apply(OutputStream.nullOutputStream());
+        for (int i = 0; i < MESSAGES; i++) {
+            consumer.consume(message);
+        }
+    }
+
+    private static Result measure(Runnable task) {
+        long threadId = Thread.currentThread().getId();
+        // The last round is measured, the other rounds are the warmup
+        long allocatedBytes = 0;
+        long nanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startAllocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+            task.run();
+            nanos = System.nanoTime() - startTime;
+            allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+        }
+        return new Result(allocatedBytes, nanos);
+    }
+
+    private static void print(String name, Result lsp4j, Result buffered) {
+        System.out.printf("  %s: allocated per message LSP4J=%d KB buffered=%d KB, time LSP4J=%d ms buffered=%d ms%n", name,
+                lsp4j.allocatedBytes() / MESSAGES / 1024, buffered.allocatedBytes() / MESSAGES / 1024,
+                lsp4j.nanos() / 1000000, buffered.nanos() / 1000000);
+    }
+
+    private static byte[] frame(Message message, MessageJsonHandler jsonHandler) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageConsumer consumer = new StreamMessageConsumer(output, jsonHandler);
+        for (int i = 0; i < MESSAGES; i++) {
+            consumer.consume(message);
+        }
+        return output.toByteArray();
+    }
+
+    private static Message createPublishDiagnostics(int count) {
+        List<Diagnostic> diagnostics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Diagnostic diagnostic = new Diagnostic(new Range(new Position(i, 4), new Position(i, 20)),
+                    "Element type \"bean\" must be declared.", DiagnosticSeverity.Error, "xml");
+            diagnostics.add(diagnostic);
+        }
+        NotificationMessage message = new NotificationMessage();
+        message.setMethod("textDocument/publishDiagnostics");
+        message.setParams(new PublishDiagnosticsParams("file:///project/src/main/resources/beans.xml", diagnostics));
+        return message;
+    }
+
+    private static Message createDidOpen(int textSize) {
+        StringBuilder text = new StringBuilder(textSize);
+        while (text.length() < textSize) {
+            text.append("    <bean id=\"bean\" class=\"org.acme.Bean\" />\n");
+        }
+        text.setLength(textSize);
+        NotificationMessage message = new NotificationMessage();
+        message.setMethod("textDocument/didOpen");
+        message.setParams(new DidOpenTextDocumentParams(new TextDocumentItem("file:///project/src/main/resources/beans.xml", "xml", 1, text.toString())));
+        return message;
+    }
+}
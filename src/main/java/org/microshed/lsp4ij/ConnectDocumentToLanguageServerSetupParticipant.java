@@ -44,6 +44,8 @@ public class ConnectDocumentToLanguageServerSetupParticipant implements ProjectM
     @Override
     public void projectOpened(@NotNull Project project) {
         project.getMessageBus().connect().subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, this);
+        // Start in background the language servers which must be pre-warmed
+        LanguageServiceAccessor.getInstance(project).prewarmLanguageServers();
     }
 
     @Override
@@ -21,30 +21,71 @@ import com.intellij.openapi.fileTypes.FileTypes;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDocumentManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Synchronize IntelliJ document (open, content changed, close, save)
  * with LSP notifications (didOpen, didChanged, didClose, didSave).
+ *
+ * <p>
+ * Document changes are not sent on each keystroke: they are collected (adjacent incremental changes are merged)
+ * and sent in one 'textDocument/didChange' when the debounce delay of the language server definition expires,
+ * or as soon as {@link #flushPendingChanges()} is called before an LSP request which needs the current document content.
+ * </p>
  */
 public class DocumentContentSynchronizer implements DocumentListener {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DocumentContentSynchronizer.class);
+
     private final @NotNull LanguageServerWrapper languageServerWrapper;
     private final @NotNull Document document;
     private final @NotNull String fileUri;
     private final TextDocumentSyncKind syncKind;
 
+    private final int debounceDelay;
+
     private int version = 0;
-    private final List<TextDocumentContentChangeEvent> changeEvents;
+    // Pending incremental changes (used when sync kind is Incremental)
+    private final List<PendingChange> pendingChanges;
+    // true if the full text must be sent (used when sync kind is Full)
+    private boolean fullTextChanged;
+    private @Nullable ScheduledFuture<?> scheduledFlush;
+    // Lock used to send the 'textDocument/didChange' in the order of their version
+    private final Object flushLock = new Object();
+    private volatile @NotNull CompletableFuture<Void> lastDidChangeFuture;
+    // Modification stamp of the document content known by the language server
+    private long sentModificationStamp;
+    private @Nullable String contentHash;
+    private long contentHashModificationStamp = -1;
     final @NotNull
     CompletableFuture<Void> didOpenFuture;
+    // Lock used to register / unregister the document listener when the document is opened / closed
+    private final Object openLock = new Object();
+    private boolean opened;
+    private boolean closed;
 
     public DocumentContentSynchronizer(@NotNull LanguageServerWrapper languageServerWrapper,
                                        @NotNull URI fileUri,
@@ -53,23 +94,15 @@ public class DocumentContentSynchronizer implements DocumentListener {
         this.languageServerWrapper = languageServerWrapper;
         this.fileUri = fileUri.toASCIIString();
         this.syncKind = syncKind != null ? syncKind : TextDocumentSyncKind.Full;
+        this.debounceDelay = languageServerWrapper.getServerDefinition().getDidChangeDebounceDelay();
 
         this.document = document;
-        // add a document buffer
-        TextDocumentItem textDocument = new TextDocumentItem();
-        textDocument.setUri(this.fileUri);
-        textDocument.setText(document.getText());
-
-        @NotNull String languageId = getLanguageId(document, languageServerWrapper);
-        textDocument.setLanguageId(languageId);
-        textDocument.setVersion(++version);
-        didOpenFuture = languageServerWrapper
-                .getInitializedServer()
-                .thenAcceptAsync(ls -> ls.getTextDocumentService()
-                        .didOpen(new DidOpenTextDocumentParams(textDocument)));
+        // Completed when the 'textDocument/didOpen' has been sent (see documentOpened)
+        didOpenFuture = new CompletableFuture<>();
+        lastDidChangeFuture = didOpenFuture;
 
         // Initialize LSP change events
-        changeEvents = new ArrayList<>();
+        pendingChanges = new ArrayList<>();
     }
 
     /**
@@ -127,38 +160,121 @@ public class DocumentContentSynchronizer implements DocumentListener {
             return;
         }
         if (syncKind == TextDocumentSyncKind.Full) {
-            synchronized (changeEvents) {
-                changeEvents.clear();
-                changeEvents.add(createChangeEvent(event));
+            synchronized (pendingChanges) {
+                // The full text is computed when the 'textDocument/didChange' is sent
+                fullTextChanged = true;
+            }
+        } else {
+            synchronized (pendingChanges) {
+                if (pendingChanges.isEmpty()) {
+                    // The change has been sent while it was applied, the language server knows the current content
+                    sentModificationStamp = event.getDocument().getModificationStamp();
+                }
             }
         }
 
         if (ApplicationManager.getApplication().isUnitTestMode()) {
-            sendDidChangeEvents();
+            flushPendingChanges();
         } else {
             Project project = languageServerWrapper.getProject();
             if (project != null) {
                 PsiDocumentManager.getInstance(project)
-                        .performForCommittedDocument(event.getDocument(), this::sendDidChangeEvents);
+                        .performForCommittedDocument(event.getDocument(), this::scheduleFlush);
             }
         }
     }
 
-    private void sendDidChangeEvents() {
-        List<TextDocumentContentChangeEvent> events;
-        synchronized (changeEvents) {
-            if (changeEvents.isEmpty()) {
+    /**
+     * Schedule the send of the pending changes after the debounce delay. If a flush is already scheduled, it is re-scheduled.
+     */
+    private void scheduleFlush() {
+        if (debounceDelay <= 0) {
+            flushPendingChanges();
+            return;
+        }
+        synchronized (pendingChanges) {
+            cancelScheduledFlush();
+            scheduledFlush = AppExecutorUtil.getAppScheduledExecutorService()
+                    .schedule(this::flushPendingChanges, debounceDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Send the pending document changes in one 'textDocument/didChange' notification.
+     *
+     * <p>
+     * This method must be called before consuming an LSP request which requires that the language server
+     * knows the current content of the document (ex : textDocument/completion).
+     * </p>
+     *
+     * @return a future which is completed when the 'textDocument/didChange' has been sent to the language server.
+     */
+    public @NotNull CompletableFuture<Void> flushPendingChanges() {
+        synchronized (flushLock) {
+            List<TextDocumentContentChangeEvent> events;
+            synchronized (pendingChanges) {
+                cancelScheduledFlush();
+                events = collectPendingChanges();
+            }
+            if (events.isEmpty()) {
                 // Don't send didChange notification with empty contentChanges.
-                return;
+                // Returns the last didChange future to wait for a 'textDocument/didChange' which could be in progress.
+                return lastDidChangeFuture;
             }
-            events = new ArrayList<>(changeEvents);
-            changeEvents.clear();
+
+            DidChangeTextDocumentParams changeParamsToSend = new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(), events);
+            changeParamsToSend.getTextDocument().setUri(fileUri);
+            changeParamsToSend.getTextDocument().setVersion(++version);
+            // Each 'textDocument/didChange' is chained to the previous one (the first one to the 'textDocument/didOpen'),
+            // so they are sent in the order of their version, even if several flushes occur while 'textDocument/didOpen' is pending.
+            // When the previous notification is sent, the new notification is enqueued immediately in the dispatcher.
+            // A failed notification doesn't prevent sending the next ones (it is logged once, when it fails).
+            CompletableFuture<Void> didChangeFuture = lastDidChangeFuture
+                    .exceptionally(error -> null)
+                    .thenCompose(unused -> languageServerWrapper.sendNotification(ls -> ls.getTextDocumentService().didChange(changeParamsToSend)));
+            didChangeFuture.whenComplete((unused, error) -> logError("textDocument/didChange", error));
+            lastDidChangeFuture = didChangeFuture;
+            // The responses cached for other documents could depend on the old content of this document
+            languageServerWrapper.getResponseCache().evictAllExcept(fileUri);
+            return didChangeFuture;
         }
+    }
 
-        DidChangeTextDocumentParams changeParamsToSend = new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(), events);
-        changeParamsToSend.getTextDocument().setUri(fileUri);
-        changeParamsToSend.getTextDocument().setVersion(++version);
-        languageServerWrapper.sendNotification(ls -> ls.getTextDocumentService().didChange(changeParamsToSend));
+    /**
+     * Returns the LSP change events to send and clear the pending changes.
+     *
+     * @return the LSP change events to send.
+     */
+    private @NotNull List<TextDocumentContentChangeEvent> collectPendingChanges() {
+        if (syncKind == TextDocumentSyncKind.Full) {
+            if (!fullTextChanged) {
+                return List.of();
+            }
+            fullTextChanged = false;
+            sentModificationStamp = document.getModificationStamp();
+            TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent();
+            changeEvent.setText(document.getImmutableCharSequence().toString());
+            return List.of(changeEvent);
+        }
+        if (pendingChanges.isEmpty()) {
+            return List.of();
+        }
+        List<TextDocumentContentChangeEvent> events = new ArrayList<>(pendingChanges.size());
+        for (PendingChange pendingChange : pendingChanges) {
+            events.add(pendingChange.toChangeEvent());
+        }
+        pendingChanges.clear();
+        // If a change is being applied, the modification stamp is the stamp before the change
+        // and the content hash is not available until the next flush.
+        sentModificationStamp = document.getModificationStamp();
+        return events;
     }
 
     @Override
@@ -166,48 +282,101 @@ public class DocumentContentSynchronizer implements DocumentListener {
         if (syncKind == TextDocumentSyncKind.Incremental) {
             // this really needs to happen before event gets actually
             // applied, to properly compute positions
-            synchronized (changeEvents) {
-                changeEvents.add(createChangeEvent(event));
+            synchronized (pendingChanges) {
+                addIncrementalChange(event);
             }
         }
     }
 
-    private TextDocumentContentChangeEvent createChangeEvent(DocumentEvent event) {
-        Document document = event.getDocument();
-        TextDocumentSyncKind syncKind = getTextDocumentSyncKind();
-        switch (syncKind) {
-            case None:
-                return null;
-            case Full: {
-                TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent();
-                changeEvent.setText(event.getDocument().getText());
-                return changeEvent;
+    private void addIncrementalChange(@NotNull DocumentEvent event) {
+        int offset = event.getOffset();
+        int length = event.getOldLength();
+        CharSequence newText = event.getNewFragment();
+        if (!pendingChanges.isEmpty()) {
+            // Try to merge the change with the last change (ex : typing or deleting characters which have been just typed)
+            PendingChange lastChange = pendingChanges.get(pendingChanges.size() - 1);
+            if (lastChange.merge(offset, length, newText)) {
+                return;
             }
-            case Incremental: {
-                TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent();
-                CharSequence newText = event.getNewFragment();
-                int offset = event.getOffset();
-                int length = event.getOldLength();
-                try {
-                    // try to convert the Eclipse start/end offset to LS range.
-                    Range range = new Range(LSPIJUtils.toPosition(offset, document),
-                            LSPIJUtils.toPosition(offset + length, document));
-                    changeEvent.setRange(range);
-                    changeEvent.setText(newText.toString());
-                    changeEvent.setRangeLength(length);
-                } catch (Exception e) {
-                    // error while conversion (should never occur)
-                    // set the full document text as changes.
-                    changeEvent.setText(document.getText());
-                }
-                return changeEvent;
+        }
+        PendingChange change = createIncrementalChange(event.getDocument(), offset, length, newText, languageServerWrapper.getPositionEncoding());
+        if (change.range == null) {
+            // The change contains the full document text, the previous changes are useless.
+            pendingChanges.clear();
+        }
+        pendingChanges.add(change);
+    }
+
+    private static PendingChange createIncrementalChange(Document document, int offset, int length, CharSequence newText, String positionEncoding) {
+        try {
+            // try to convert the Eclipse start/end offset to LS range.
+            Range range = new Range(LSPIJUtils.toPosition(offset, document, positionEncoding),
+                    LSPIJUtils.toPosition(offset + length, document, positionEncoding));
+            return new PendingChange(range, length, offset, newText);
+        } catch (Exception e) {
+            // error while conversion (should never occur)
+            // set the full document text as changes.
+            return new PendingChange(null, 0, 0, document.getText());
+        }
+    }
+
+    /**
+     * A pending incremental change which is not sent yet to the language server.
+     *
+     * <p>
+     * The range of the change is computed with the document content before the change, the text is
+     * updated when a following change modifies only the text inserted by this change.
+     * </p>
+     */
+    private static class PendingChange {
+
+        private final @Nullable Range range;
+        private final int rangeLength;
+        // The offset where the text is inserted in the document
+        private final int offset;
+        private final StringBuilder text;
+
+        private PendingChange(@Nullable Range range, int rangeLength, int offset, CharSequence text) {
+            this.range = range;
+            this.rangeLength = rangeLength;
+            this.offset = offset;
+            this.text = new StringBuilder(text);
+        }
+
+        /**
+         * Merge the given change with this change if the given change replaces only the text inserted by this change.
+         *
+         * @param offset  the offset of the change.
+         * @param length  the length of the replaced text.
+         * @param newText the new text.
+         * @return true if the change has been merged and false otherwise.
+         */
+        boolean merge(int offset, int length, CharSequence newText) {
+            if (range == null) {
+                return false;
+            }
+            int insertedEnd = this.offset + text.length();
+            if (offset < this.offset || offset + length > insertedEnd) {
+                return false;
+            }
+            int start = offset - this.offset;
+            text.replace(start, start + length, newText.toString());
+            return true;
+        }
+
+        TextDocumentContentChangeEvent toChangeEvent() {
+            TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent();
+            changeEvent.setText(text.toString());
+            if (range != null) {
+                changeEvent.setRange(range);
+                changeEvent.setRangeLength(rangeLength);
             }
+            return changeEvent;
         }
-        return null;
     }
 
     public void documentSaved() {
-        ServerCapabilities serverCapabilities = languageServerWrapper.getServerCapabilities();
+        ServerCapabilities serverCapabilities = languageServerWrapper.getServerCapabilitiesSnapshot();
         if (serverCapabilities != null) {
             Either<TextDocumentSyncKind, TextDocumentSyncOptions> textDocumentSync = serverCapabilities.getTextDocumentSync();
             if (textDocumentSync.isRight() && textDocumentSync.getRight().getSave() == null) {
@@ -215,26 +384,105 @@ public class DocumentContentSynchronizer implements DocumentListener {
             }
         }
         TextDocumentIdentifier identifier = new TextDocumentIdentifier(fileUri);
-        DidSaveTextDocumentParams params = new DidSaveTextDocumentParams(identifier, document.getText());
-        languageServerWrapper.getInitializedServer().thenAcceptAsync(ls -> ls.getTextDocumentService().didSave(params));
+        DidSaveTextDocumentParams params = new DidSaveTextDocumentParams(identifier, document.getImmutableCharSequence().toString());
+        // Send the pending changes before the 'textDocument/didSave'
+        flushPendingChanges()
+                .thenRun(() -> languageServerWrapper.sendNotification(ls -> ls.getTextDocumentService().didSave(params)));
     }
 
-    public void documentClosed() {
-        // When LS is shut down all documents are being disconnected. No need to send "didClose" message to the LS that is being shut down or not yet started
-        if (languageServerWrapper.isActive()) {
-            TextDocumentIdentifier identifier = new TextDocumentIdentifier(fileUri);
-            DidCloseTextDocumentParams params = new DidCloseTextDocumentParams(identifier);
-            languageServerWrapper.sendNotification(ls -> ls.getTextDocumentService().didClose(params));
+    /**
+     * Register this synchronizer as document listener and send the 'textDocument/didOpen' notification with the
+     * current content of the document, unless the document has already been closed.
+     *
+     * <p>
+     * This method must be called once, when the document has been connected to the language server.
+     * </p>
+     */
+    void documentOpened() {
+        TextDocumentItem textDocument = new TextDocumentItem();
+        textDocument.setUri(fileUri);
+        textDocument.setLanguageId(getLanguageId(document, languageServerWrapper));
+        CharSequence[] text = new CharSequence[1];
+        // The listener is registered and the text is read in a read action, so a document change
+        // cannot be lost or sent twice
+        ApplicationManager.getApplication().runReadAction(() -> {
+            synchronized (openLock) {
+                if (closed) {
+                    return;
+                }
+                opened = true;
+                document.addDocumentListener(this);
+                sentModificationStamp = document.getModificationStamp();
+                text[0] = document.getImmutableCharSequence();
+                textDocument.setVersion(++version);
+            }
+        });
+        if (text[0] == null) {
+            // The document has been closed before being opened
+            didOpenFuture.complete(null);
+            return;
         }
+        languageServerWrapper
+                .getInitializedServer()
+                .thenAcceptAsync(ls -> {
+                    // The text is copied when the 'textDocument/didOpen' is sent
+                    textDocument.setText(text[0].toString());
+                    ls.getTextDocumentService().didOpen(new DidOpenTextDocumentParams(textDocument));
+                }, LSP4IJExecutors.getLifecycleExecutor())
+                .whenComplete((unused, error) -> {
+                    if (error != null) {
+                        logError("textDocument/didOpen", error);
+                        didOpenFuture.completeExceptionally(error);
+                    } else {
+                        didOpenFuture.complete(null);
+                    }
+                });
     }
 
     /**
-     * Returns the text document sync kind capabilities of the server and {@link TextDocumentSyncKind#Full} otherwise.
+     * Unregister this synchronizer as document listener and send the 'textDocument/didClose' notification
+     * (after the 'textDocument/didOpen' and the 'textDocument/didChange' which have been already flushed).
      *
-     * @return the text document sync kind capabilities of the server and {@link TextDocumentSyncKind#Full} otherwise.
+     * @return a future which is completed when the 'textDocument/didClose' has been sent to the language server.
      */
-    private TextDocumentSyncKind getTextDocumentSyncKind() {
-        return syncKind;
+    public @NotNull CompletableFuture<Void> documentClosed() {
+        synchronized (openLock) {
+            closed = true;
+            if (!opened) {
+                // The 'textDocument/didOpen' has not been sent
+                return CompletableFuture.completedFuture(null);
+            }
+            document.removeDocumentListener(this);
+        }
+        synchronized (flushLock) {
+            synchronized (pendingChanges) {
+                // The document is closed, the pending changes are useless.
+                cancelScheduledFlush();
+                pendingChanges.clear();
+                fullTextChanged = false;
+            }
+            // When LS is shut down all documents are being disconnected. No need to send "didClose" message to the LS that is being shut down or not yet started
+            if (!languageServerWrapper.isActive()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            TextDocumentIdentifier identifier = new TextDocumentIdentifier(fileUri);
+            DidCloseTextDocumentParams params = new DidCloseTextDocumentParams(identifier);
+            // The 'textDocument/didClose' is chained to the last 'textDocument/didChange' (or to the 'textDocument/didOpen'),
+            // like the 'textDocument/didChange' are chained together, to be sent after them.
+            CompletableFuture<Void> didCloseFuture = lastDidChangeFuture
+                    .exceptionally(error -> null)
+                    .thenCompose(unused -> languageServerWrapper.sendNotification(ls -> ls.getTextDocumentService().didClose(params)));
+            didCloseFuture.whenComplete((unused, error) -> logError("textDocument/didClose", error));
+            lastDidChangeFuture = didCloseFuture;
+            return didCloseFuture.exceptionally(error -> null);
+        }
+    }
+
+    private void logError(@NotNull String method, @Nullable Throwable error) {
+        if (error != null) {
+            LOGGER.warn("Error while sending '" + method + "' for '" + fileUri + "' to the language server '"
+                    + languageServerWrapper.getServerDefinition().getId() + "'", error);
+        }
     }
 
     /**
@@ -255,4 +503,70 @@ public class DocumentContentSynchronizer implements DocumentListener {
         return version;
     }
 
+    /**
+     * Returns the hash (SHA-256 of the UTF-8 text) of the document content known by the language server and null
+     * if the document has some changes which are not sent yet to the language server.
+     *
+     * @return the hash of the document content known by the language server and null if the document
+     * has some changes which are not sent yet to the language server.
+     */
+    @Nullable
+    String getContentHash() {
+        if (syncKind == TextDocumentSyncKind.None) {
+            return null;
+        }
+        long modificationStamp = document.getModificationStamp();
+        synchronized (pendingChanges) {
+            if (modificationStamp != sentModificationStamp || fullTextChanged || !pendingChanges.isEmpty()) {
+                return null;
+            }
+            if (modificationStamp == contentHashModificationStamp) {
+                return contentHash;
+            }
+        }
+        String hash = sha256(document.getImmutableCharSequence());
+        synchronized (pendingChanges) {
+            if (document.getModificationStamp() != modificationStamp) {
+                // The document has been modified while computing the hash
+                return null;
+            }
+            contentHash = hash;
+            contentHashModificationStamp = modificationStamp;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the SHA-256 digest (encoded in Base64) of the given text encoded in UTF-8, without copying the text.
+     *
+     * @param text the text.
+     * @return the SHA-256 digest of the given text.
+     */
+    private static @NotNull String sha256(@NotNull CharSequence text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.wrap(text);
+        ByteBuffer bytes = ByteBuffer.allocate(8 * 1024);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, true);
+            bytes.flip();
+            digest.update(bytes);
+            bytes.clear();
+        } while (result.isOverflow());
+        do {
+            result = encoder.flush(bytes);
+            bytes.flip();
+            digest.update(bytes);
+            bytes.clear();
+        } while (result.isOverflow());
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
 }
@@ -132,8 +132,8 @@ public class LSPIJUtils {
         return LanguageUtil.getLanguageForPsi(project, file);
     }
 
-    private static <T extends TextDocumentPositionParams> T toTextDocumentPositionParamsCommon(T param, int offset, Document document) {
-        Position start = toPosition(offset, document);
+    private static <T extends TextDocumentPositionParams> T toTextDocumentPositionParamsCommon(T param, int offset, Document document, @Nullable String positionEncoding) {
+        Position start = toPosition(offset, document, positionEncoding);
         param.setPosition(start);
         TextDocumentIdentifier id = new TextDocumentIdentifier();
         URI uri = toUri(document);
@@ -145,7 +145,11 @@ public class LSPIJUtils {
     }
 
     public static HoverParams toHoverParams(int offset, Document document) {
-        return toTextDocumentPositionParamsCommon(new HoverParams(), offset, document);
+        return toHoverParams(offset, document, null);
+    }
+
+    public static HoverParams toHoverParams(int offset, Document document, @Nullable String positionEncoding) {
+        return toTextDocumentPositionParamsCommon(new HoverParams(), offset, document, positionEncoding);
     }
 
 
@@ -276,6 +280,20 @@ public class LSPIJUtils {
      * @return a valid offset from the given position in the given document.
      */
     public static int toOffset(@NotNull Position position, @NotNull Document document) {
+        return toOffset(position, document, null);
+    }
+
+    /**
+     * Returns a valid offset from the given position expressed with the given position encoding in the given document
+     * even if position is invalid.
+     *
+     * @param position         the LSP position.
+     * @param document         the IJ document.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return a valid offset from the given position in the given document.
+     * @see #toOffset(Position, Document)
+     */
+    public static int toOffset(@NotNull Position position, @NotNull Document document, @Nullable String positionEncoding) {
         // Adjust position line/character according to this comment https://github.com/microsoft/vscode-languageserver-node/blob/ed3cd0f78c1495913bda7318ace2be7f968008af/textDocument/src/main.ts#L26
         int line = position.getLine();
         if (line < 0) {
@@ -283,23 +301,170 @@ public class LSPIJUtils {
             line = 0;
         } else {
             // If a line number is greater than the number of lines in a document, it defaults back to the number of lines in the document.
-            line = Math.min(line, document.getLineCount() > 0 ? document.getLineCount() -1 : 0);
+            int lineCount = document.getLineCount();
+            line = Math.min(line, lineCount > 0 ? lineCount - 1 : 0);
         }
         int lineStartOffset = document.getLineStartOffset(line);
         int lineEndOffset = document.getLineEndOffset(line);
-        int offset = lineStartOffset + position.getCharacter();
+        int character = Math.max(position.getCharacter(), 0);
+        if (!isUTF16(positionEncoding)) {
+            return toOffsetInLine(document.getImmutableCharSequence(), lineStartOffset, lineEndOffset, character, positionEncoding);
+        }
+        int offset = lineStartOffset + character;
         // If the character value is greater than the line length it defaults back to the line length
         return Math.min(offset, lineEndOffset);
     }
 
+    /**
+     * Returns the offset of the given column, expressed in UTF-8 code units or Unicode code points, in the line.
+     * If the column is greater than the line length it defaults back to the line length.
+     */
+    private static int toOffsetInLine(@NotNull CharSequence text, int lineStartOffset, int lineEndOffset, int column, @Nullable String positionEncoding) {
+        boolean utf8 = PositionEncodingKind.UTF8.equals(positionEncoding);
+        int units = 0;
+        int offset = lineStartOffset;
+        while (offset < lineEndOffset && units < column) {
+            char c = text.charAt(offset);
+            boolean surrogatePair = Character.isHighSurrogate(c) && offset + 1 < lineEndOffset && Character.isLowSurrogate(text.charAt(offset + 1));
+            if (utf8) {
+                units += surrogatePair ? 4 : getUTF8Length(c);
+            } else {
+                units++;
+            }
+            if (units > column) {
+                // The column targets the middle of a character, stay before it.
+                break;
+            }
+            offset += surrogatePair ? 2 : 1;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the column, expressed in UTF-8 code units or Unicode code points, of the given offset in the line.
+     */
+    private static int toColumnInLine(@NotNull CharSequence text, int lineStartOffset, int offset, @Nullable String positionEncoding) {
+        boolean utf8 = PositionEncodingKind.UTF8.equals(positionEncoding);
+        int column = 0;
+        int i = lineStartOffset;
+        while (i < offset) {
+            char c = text.charAt(i);
+            boolean surrogatePair = Character.isHighSurrogate(c) && i + 1 < offset && Character.isLowSurrogate(text.charAt(i + 1));
+            if (utf8) {
+                column += surrogatePair ? 4 : getUTF8Length(c);
+            } else {
+                column++;
+            }
+            i += surrogatePair ? 2 : 1;
+        }
+        return column;
+    }
+
+    private static int getUTF8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        // BMP character (a lone surrogate is encoded as a replacement character which takes 3 bytes too)
+        return 3;
+    }
+
+    private static boolean isUTF16(@Nullable String positionEncoding) {
+        return positionEncoding == null || PositionEncodingKind.UTF16.equals(positionEncoding);
+    }
+
+    /**
+     * Returns the LSP position from the given offset in the given document.
+     *
+     * <p>
+     * The line is resolved with the line index maintained by the IJ document (binary search on line start offsets)
+     * and as IJ document and LSP columns are both UTF-16 based, the column is the distance from the line start offset,
+     * so no text is extracted from the document.
+     * </p>
+     *
+     * @param offset   the offset.
+     * @param document the IJ document.
+     * @return the LSP position from the given offset in the given document.
+     */
     public static Position toPosition(int offset, Document document) {
+        return toPosition(offset, document, null);
+    }
+
+    /**
+     * Returns the LSP position, expressed with the given position encoding, from the given offset in the given document.
+     *
+     * <p>
+     * For UTF-8 and UTF-32 encodings, the column is computed by scanning the characters of the line
+     * which precede the offset.
+     * </p>
+     *
+     * @param offset           the offset.
+     * @param document         the IJ document.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return the LSP position from the given offset in the given document.
+     */
+    public static Position toPosition(int offset, Document document, @Nullable String positionEncoding) {
         int line = document.getLineNumber(offset);
         int lineStart = document.getLineStartOffset(line);
-        String lineTextBeforeOffset = document.getText(new TextRange(lineStart, offset));
-        int column = lineTextBeforeOffset.length();
+        int column = isUTF16(positionEncoding) ?
+                offset - lineStart :
+                toColumnInLine(document.getImmutableCharSequence(), lineStart, offset, positionEncoding);
         return new Position(line, column);
     }
 
+    /**
+     * Returns the given UTF-16 LSP position converted to the given position encoding.
+     *
+     * <p>
+     * This method is useful when the same request parameters, computed with the UTF-16 IJ offsets,
+     * must be sent to several language servers which can use a different position encoding.
+     * </p>
+     *
+     * @param position         the LSP position expressed in UTF-16.
+     * @param document         the IJ document.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return the LSP position expressed with the given position encoding.
+     */
+    public static Position toPosition(@NotNull Position position, @NotNull Document document, @Nullable String positionEncoding) {
+        if (isUTF16(positionEncoding)) {
+            return position;
+        }
+        return toPosition(toOffset(position, document), document, positionEncoding);
+    }
+
+    /**
+     * Returns the given LSP range expressed with the given position encoding converted to UTF-16.
+     *
+     * @param range            the LSP range expressed with the given position encoding.
+     * @param document         the IJ document.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return the LSP range expressed in UTF-16.
+     */
+    public static Range toUTF16Range(@NotNull Range range, @NotNull Document document, @Nullable String positionEncoding) {
+        if (isUTF16(positionEncoding)) {
+            return range;
+        }
+        return new Range(toUTF16Position(range.getStart(), document, positionEncoding),
+                toUTF16Position(range.getEnd(), document, positionEncoding));
+    }
+
+    /**
+     * Returns the given LSP position expressed with the given position encoding converted to UTF-16.
+     *
+     * @param position         the LSP position expressed with the given position encoding.
+     * @param document         the IJ document.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return the LSP position expressed in UTF-16.
+     */
+    public static Position toUTF16Position(@NotNull Position position, @NotNull Document document, @Nullable String positionEncoding) {
+        if (isUTF16(positionEncoding)) {
+            return position;
+        }
+        return toPosition(toOffset(position, document, positionEncoding), document);
+    }
+
     @NotNull
     public static WorkspaceFolder toWorkspaceFolder(@NotNull Project project) {
         WorkspaceFolder folder = new WorkspaceFolder();
@@ -327,13 +492,21 @@ public class LSPIJUtils {
     }
 
     public static Range toRange(TextRange range, Document document) {
-        return new Range(LSPIJUtils.toPosition(range.getStartOffset(), document), LSPIJUtils.toPosition(range.getEndOffset(), document));
+        return toRange(range, document, null);
+    }
+
+    public static Range toRange(TextRange range, Document document, @Nullable String positionEncoding) {
+        return new Range(LSPIJUtils.toPosition(range.getStartOffset(), document, positionEncoding), LSPIJUtils.toPosition(range.getEndOffset(), document, positionEncoding));
     }
 
     public static @Nullable TextRange toTextRange(Range range, Document document) {
         return toTextRange(range, document, false);
     }
 
+    public static @Nullable TextRange toTextRange(Range range, Document document, @Nullable String positionEncoding) {
+        return toTextRange(range, document, false, positionEncoding);
+    }
+
     /**
      * Returns the IJ {@link TextRange} from the given LSP range and null otherwise.
      *
@@ -342,9 +515,22 @@ public class LSPIJUtils {
      * @return the IJ {@link TextRange} from the given LSP range and null otherwise.
      */
     public static @Nullable TextRange toTextRange(Range range, Document document, boolean adjust) {
+        return toTextRange(range, document, adjust, null);
+    }
+
+    /**
+     * Returns the IJ {@link TextRange} from the given LSP range expressed with the given position encoding and null otherwise.
+     *
+     * @param range            the LSP range to convert.
+     * @param document         the document.
+     * @param adjust           true if an empty range must be adjusted to the token at the range offset.
+     * @param positionEncoding the position encoding (see {@link PositionEncodingKind}) used by the language server, UTF-16 if null.
+     * @return the IJ {@link TextRange} from the given LSP range and null otherwise.
+     */
+    public static @Nullable TextRange toTextRange(Range range, Document document, boolean adjust, @Nullable String positionEncoding) {
         try {
-            int start = LSPIJUtils.toOffset(range.getStart(), document);
-            int end = LSPIJUtils.toOffset(range.getEnd(), document);
+            int start = LSPIJUtils.toOffset(range.getStart(), document, positionEncoding);
+            int end = LSPIJUtils.toOffset(range.getEnd(), document, positionEncoding);
             int docLength = document.getTextLength();
             if (start > end || end > docLength) {
                 // Language server reports invalid diagnostic, ignore it.
@@ -428,6 +614,10 @@ public class LSPIJUtils {
     }
 
     public static void applyWorkspaceEdit(WorkspaceEdit edit, String label) {
+        applyWorkspaceEdit(edit, label, null);
+    }
+
+    public static void applyWorkspaceEdit(WorkspaceEdit edit, String label, @Nullable String positionEncoding) {
         if (edit.getDocumentChanges() != null) {
             for (Either<TextDocumentEdit, ResourceOperation> change : edit.getDocumentChanges()) {
                 if (change.isLeft()) {
@@ -435,7 +625,7 @@ public class LSPIJUtils {
                     if (file != null) {
                         Document document = getDocument(file);
                         if (document != null) {
-                            applyWorkspaceEdit(document, change.getLeft().getEdits());
+                            applyWorkspaceEdit(document, change.getLeft().getEdits(), positionEncoding);
                         }
                     }
                 } else if (change.isRight()) {
@@ -447,8 +637,8 @@ public class LSPIJUtils {
                             if (!createOperation.getOptions().getIgnoreIfExists()) {
                                 Document document = getDocument(targetFile);
                                 if (document != null) {
-                                    TextEdit textEdit = new TextEdit(new Range(toPosition(0, document), toPosition(document.getTextLength(), document)), "");
-                                    applyWorkspaceEdit(document, Collections.singletonList(textEdit));
+                                    TextEdit textEdit = new TextEdit(new Range(toPosition(0, document, positionEncoding), toPosition(document.getTextLength(), document, positionEncoding)), "");
+                                    applyWorkspaceEdit(document, Collections.singletonList(textEdit), positionEncoding);
                                 }
                             }
                         } else {
@@ -485,7 +675,7 @@ public class LSPIJUtils {
                 if (file != null) {
                     Document document = getDocument(file);
                     if (document != null) {
-                        applyWorkspaceEdit(document, change.getValue());
+                        applyWorkspaceEdit(document, change.getValue(), positionEncoding);
                     }
                 }
 
@@ -520,12 +710,12 @@ public class LSPIJUtils {
         return VfsUtil.findFileByIoFile(newFile, true);
     }
 
-    private static void applyWorkspaceEdit(Document document, List<TextEdit> edits) {
+    private static void applyWorkspaceEdit(Document document, List<TextEdit> edits, @Nullable String positionEncoding) {
         for (TextEdit edit : edits) {
             if (edit.getRange() != null) {
                 String text = edit.getNewText();
-                int start = toOffset(edit.getRange().getStart(), document);
-                int end = toOffset(edit.getRange().getEnd(), document);
+                int start = toOffset(edit.getRange().getStart(), document, positionEncoding);
+                int end = toOffset(edit.getRange().getEnd(), document, positionEncoding);
                 if (StringUtils.isEmpty(text)) {
                     document.deleteString(start, end);
                 } else {
@@ -623,7 +813,11 @@ public class LSPIJUtils {
     }
 
     public static CompletionParams toCompletionParams(URI fileUri, int offset, Document document) {
-        Position start = toPosition(offset, document);
+        return toCompletionParams(fileUri, offset, document, null);
+    }
+
+    public static CompletionParams toCompletionParams(URI fileUri, int offset, Document document, @Nullable String positionEncoding) {
+        Position start = toPosition(offset, document, positionEncoding);
         CompletionParams param = new CompletionParams();
         param.setPosition(start);
         param.setTextDocument(toTextDocumentIdentifier(fileUri));
@@ -639,7 +833,11 @@ public class LSPIJUtils {
     }
 
     public static void applyEdit(Editor editor, TextEdit textEdit, Document document) {
-        RangeMarker marker = document.createRangeMarker(LSPIJUtils.toOffset(textEdit.getRange().getStart(), document), LSPIJUtils.toOffset(textEdit.getRange().getEnd(), document));
+        applyEdit(editor, textEdit, document, null);
+    }
+
+    public static void applyEdit(Editor editor, TextEdit textEdit, Document document, @Nullable String positionEncoding) {
+        RangeMarker marker = document.createRangeMarker(LSPIJUtils.toOffset(textEdit.getRange().getStart(), document, positionEncoding), LSPIJUtils.toOffset(textEdit.getRange().getEnd(), document, positionEncoding));
         marker.setGreedyToRight(true);
         int startOffset = marker.getStartOffset();
         int endOffset = marker.getEndOffset();
@@ -661,10 +859,14 @@ public class LSPIJUtils {
     }
 
     public static void applyEdits(Editor editor, Document document, List<TextEdit> edits) {
+        applyEdits(editor, document, edits, null);
+    }
+
+    public static void applyEdits(Editor editor, Document document, List<TextEdit> edits, @Nullable String positionEncoding) {
         if (ApplicationManager.getApplication().isWriteAccessAllowed()) {
-            edits.forEach(edit -> applyEdit(editor, edit, document));
+            edits.forEach(edit -> applyEdit(editor, edit, document, positionEncoding));
         } else {
-            WriteAction.run(() -> edits.forEach(edit -> applyEdit(editor, edit, document)));
+            WriteAction.run(() -> edits.forEach(edit -> applyEdit(editor, edit, document, positionEncoding)));
         }
     }
 
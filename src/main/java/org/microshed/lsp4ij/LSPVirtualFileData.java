@@ -16,6 +16,7 @@ package org.microshed.lsp4ij;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.microshed.lsp4ij.features.diagnostics.LSPDiagnosticsForServer;
 import org.eclipse.lsp4j.Diagnostic;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -52,6 +53,16 @@ public class LSPVirtualFileData {
         return synchronizer;
     }
 
+    /**
+     * Returns true if the given document version is older than the last version sent to the language server and false otherwise.
+     *
+     * @param version the document version (ex : PublishDiagnosticsParams#getVersion()).
+     * @return true if the given document version is older than the last version sent to the language server and false otherwise.
+     */
+    public boolean isSupersededVersion(@Nullable Integer version) {
+        return version != null && synchronizer != null && version < synchronizer.getVersion();
+    }
+
     public LSPDiagnosticsForServer getDiagnosticsForServer() {
         return diagnosticsForServer;
     }
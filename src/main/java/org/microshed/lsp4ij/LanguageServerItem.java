@@ -28,7 +28,7 @@ public class LanguageServerItem {
     public LanguageServerItem(LanguageServer server, LanguageServerWrapper serverWrapper) {
         this.server = server;
         this.serverWrapper = serverWrapper;
-        this.serverCapabilities = serverWrapper.getServerCapabilities();
+        this.serverCapabilities = serverWrapper.getServerCapabilitiesSnapshot();
     }
 
     /**
@@ -58,6 +58,15 @@ public class LanguageServerItem {
         return serverCapabilities;
     }
 
+    /**
+     * Returns the position encoding negotiated with the language server.
+     *
+     * @return the position encoding negotiated with the language server.
+     */
+    public String getPositionEncoding() {
+        return serverWrapper.getPositionEncoding();
+    }
+
     /**
      * Returns true if the language server can support resolve completion and false otherwise.
      *
@@ -398,7 +407,8 @@ public class LanguageServerItem {
      * @return the LSP {@link TextDocumentService} of the language server.
      */
     public TextDocumentService getTextDocumentService() {
-        return getServer().getTextDocumentService();
+        // The requests are scheduled according to their priority (ex : completion is sent before codeLens).
+        return serverWrapper.getTextDocumentService(getServer());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij;
+
+import org.jetbrains.annotations.NotNull;
+import org.microshed.lsp4ij.server.definition.LanguageServerDefinition;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart policy of a language server which has crashed (on start or while running).
+ *
+ * <ul>
+ *     <li>after a crash, the language server cannot be restarted before a delay which grows exponentially
+ *     with the number of recent crashes (initial delay * 2^(crashes - 1), bounded by the max delay). A random
+ *     jitter (between the half and the whole delay) avoids restarting several crashed servers at the same time.</li>
+ *     <li>when the number of crashes in the sliding time window reaches the crash loop threshold, the language server
+ *     is considered in a crash loop and must be disabled.</li>
+ * </ul>
+ *
+ * <p>
+ * The parameters of the policy are defined per language server definition.
+ * </p>
+ */
+public class LanguageServerRestartPolicy {
+
+    private final long initialDelay;
+    private final long maxDelay;
+    private final int crashLoopThreshold;
+    private final long crashLoopWindow;
+
+    // Times (in milliseconds) of the crashes which occurred in the sliding time window
+    private final Deque<Long> crashTimes = new ArrayDeque<>();
+    // Time (in milliseconds) before which the language server must not be restarted
+    private long restartTime;
+
+    public LanguageServerRestartPolicy(@NotNull LanguageServerDefinition serverDefinition) {
+        this(serverDefinition.getRestartInitialDelay(), serverDefinition.getRestartMaxDelay(),
+                serverDefinition.getCrashLoopThreshold(), TimeUnit.SECONDS.toMillis(serverDefinition.getCrashLoopWindow()));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialDelay       the delay (in milliseconds) before restarting the language server after a first crash.
+     * @param maxDelay           the maximum delay (in milliseconds) before restarting the language server.
+     * @param crashLoopThreshold the number of crashes in the time window which disables the language server.
+     * @param crashLoopWindow    the sliding time window (in milliseconds) used to count the crashes.
+     */
+    public LanguageServerRestartPolicy(long initialDelay, long maxDelay, int crashLoopThreshold, long crashLoopWindow) {
+        this.initialDelay = Math.max(0, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.crashLoopThreshold = Math.max(1, crashLoopThreshold);
+        this.crashLoopWindow = Math.max(0, crashLoopWindow);
+    }
+
+    /**
+     * Record a crash of the language server and compute the delay before the next restart.
+     *
+     * @return true if the language server is in a crash loop and must be disabled and false otherwise.
+     */
+    public synchronized boolean onCrash() {
+        long now = now();
+        removeExpiredCrashes(now);
+        crashTimes.addLast(now);
+        int crashes = crashTimes.size();
+        if (crashes >= crashLoopThreshold) {
+            restartTime = 0;
+            return true;
+        }
+        long delay = initialDelay << Math.min(crashes - 1, 30);
+        if (delay < 0 || delay > maxDelay) {
+            delay = maxDelay;
+        }
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        restartTime = now + delay;
+        return false;
+    }
+
+    /**
+     * Forget the crashes (ex : when the user restarts the language server manually).
+     */
+    public synchronized void reset() {
+        crashTimes.clear();
+        restartTime = 0;
+    }
+
+    /**
+     * Returns true if the language server has crashed and cannot be restarted yet and false otherwise.
+     *
+     * @return true if the language server has crashed and cannot be restarted yet and false otherwise.
+     */
+    public boolean isCoolingDown() {
+        return getRemainingCoolDown() > 0;
+    }
+
+    /**
+     * Returns the remaining delay (in milliseconds) before the language server can be restarted.
+     *
+     * @return the remaining delay (in milliseconds) before the language server can be restarted.
+     */
+    public synchronized long getRemainingCoolDown() {
+        return Math.max(0, restartTime - now());
+    }
+
+    /**
+     * Returns the number of crashes in the sliding time window.
+     *
+     * @return the number of crashes in the sliding time window.
+     */
+    public synchronized int getCrashCount() {
+        removeExpiredCrashes(now());
+        return crashTimes.size();
+    }
+
+    /**
+     * Returns the number of crashes in the sliding time window which disables the language server.
+     *
+     * @return the number of crashes in the sliding time window which disables the language server.
+     */
+    public int getCrashLoopThreshold() {
+        return crashLoopThreshold;
+    }
+
+    /**
+     * Returns the sliding time window (in milliseconds) used to count the crashes.
+     *
+     * @return the sliding time window (in milliseconds) used to count the crashes.
+     */
+    public long getCrashLoopWindow() {
+        return crashLoopWindow;
+    }
+
+    private void removeExpiredCrashes(long now) {
+        while (!crashTimes.isEmpty() && now - crashTimes.peekFirst() > crashLoopWindow) {
+            crashTimes.removeFirst();
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -11,11 +11,14 @@
 package org.microshed.lsp4ij;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.intellij.lang.Language;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.FileEditorManagerListener;
@@ -24,9 +27,16 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.*;
 import com.intellij.openapi.vfs.impl.BulkVirtualFileListenerAdapter;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.messages.MessageBusConnection;
 import org.microshed.lsp4ij.client.LanguageClientImpl;
+import org.microshed.lsp4ij.features.files.watcher.FileSystemWatcherManager;
+import org.microshed.lsp4ij.internal.LSPRequestScheduler;
+import org.microshed.lsp4ij.internal.LSPRequestWatchdog;
+import org.microshed.lsp4ij.internal.LSPResponseCache;
+import org.microshed.lsp4ij.internal.OrderedMessageExecutor;
 import org.microshed.lsp4ij.internal.SupportedFeatures;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.lifecycle.LanguageServerLifecycleManager;
 import org.microshed.lsp4ij.lifecycle.NullLanguageServerLifecycleManager;
 import org.microshed.lsp4ij.server.*;
@@ -34,9 +44,11 @@ import org.microshed.lsp4ij.server.definition.LanguageServerDefinition;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.jsonrpc.messages.Message;
 import org.eclipse.lsp4j.services.LanguageServer;
+import org.eclipse.lsp4j.services.TextDocumentService;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -44,7 +56,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,7 +75,15 @@ public class LanguageServerWrapper implements Disposable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LanguageServerWrapper.class);
 
-    private static final int MAX_NUMBER_OF_RESTART_ATTEMPTS = 20; // TODO move this max value in settings
+    private static final int MAX_INBOUND_MESSAGES = 1000;
+
+    private static final int DID_CHANGE_WATCHED_FILES_DEBOUNCE_DELAY = 100;
+
+    // Maximum delay of the pending file events, to send them even when file events occur continuously
+    private static final int DID_CHANGE_WATCHED_FILES_MAX_DELAY = 1000;
+
+    // Unknown '$/' request: the language server must answer with a MethodNotFound error
+    private static final String LIVENESS_PROBE_METHOD = "$/lsp4ij/ping";
 
     class Listener implements FileEditorManagerListener, VirtualFileListener {
 
@@ -91,8 +114,8 @@ public class LanguageServerWrapper implements Disposable {
                 URI oldFileUri = didClose(event.getFile().getParent(), (String) event.getOldValue());
                 URI newFileUri = LSPIJUtils.toUri(event.getFile());
                 // 2. Send a workspace/didChangeWatchedFiles
-                didChangeWatchedFiles(fe(oldFileUri, FileChangeType.Deleted),
-                        fe(newFileUri, FileChangeType.Created));
+                didChangeWatchedFile(oldFileUri, FileChangeType.Deleted);
+                didChangeWatchedFile(newFileUri, FileChangeType.Created);
             }
         }
 
@@ -106,7 +129,7 @@ public class LanguageServerWrapper implements Disposable {
                     documentListener.getSynchronizer().documentSaved();
                 }
                 // 2. Send a workspace/didChangeWatchedFiles
-                didChangeWatchedFiles(fe(uri, FileChangeType.Changed));
+                didChangeWatchedFile(uri, FileChangeType.Changed);
             }
         }
 
@@ -115,7 +138,7 @@ public class LanguageServerWrapper implements Disposable {
             URI uri = LSPIJUtils.toUri(event.getFile());
             if (uri != null) {
                 // 2. Send a workspace/didChangeWatchedFiles
-                didChangeWatchedFiles(fe(uri, FileChangeType.Created));
+                didChangeWatchedFile(uri, FileChangeType.Created);
             }
         }
 
@@ -124,7 +147,7 @@ public class LanguageServerWrapper implements Disposable {
             URI uri = LSPIJUtils.toUri(event.getFile());
             if (uri != null) {
                 // 2. Send a workspace/didChangeWatchedFiles
-                didChangeWatchedFiles(fe(uri, FileChangeType.Deleted));
+                didChangeWatchedFile(uri, FileChangeType.Deleted);
             }
         }
 
@@ -136,12 +159,8 @@ public class LanguageServerWrapper implements Disposable {
             URI oldFileUri = didClose(event.getOldParent(), event.getFileName());
             URI newFileUri = LSPIJUtils.toUri(event.getFile());
             // 2. Send a workspace/didChangeWatchedFiles
-            didChangeWatchedFiles(fe(oldFileUri, FileChangeType.Deleted),
-                    fe(newFileUri, FileChangeType.Created));
-        }
-
-        private FileEvent fe(URI uri, FileChangeType type) {
-            return new FileEvent(uri.toASCIIString(), type);
+            didChangeWatchedFile(oldFileUri, FileChangeType.Deleted);
+            didChangeWatchedFile(newFileUri, FileChangeType.Created);
         }
 
         private @NotNull URI didClose(VirtualFile virtualParentFile, String fileName) {
@@ -153,9 +172,52 @@ public class LanguageServerWrapper implements Disposable {
             return uri;
         }
 
-        private void didChangeWatchedFiles(FileEvent... changes) {
+        /**
+         * Add the given file change to the pending file events if it matches a file system watcher
+         * registered by the language server and schedule the send of the 'workspace/didChangeWatchedFiles'.
+         * All changes of a bulk VFS transaction (ex : git checkout) are sent in one notification.
+         */
+        private void didChangeWatchedFile(@Nullable URI uri, @NotNull FileChangeType changeType) {
+            if (uri == null || !isActive() || !fileSystemWatcherManager.isMatchFilePattern(uri, changeType)) {
+                return;
+            }
+            String fileUri = uri.toASCIIString();
+            synchronized (pendingFileEvents) {
+                // Only the last event of a file is kept (ex : Created -> Deleted -> Created is sent as Created),
+                // except Created -> Changed which is sent as Created.
+                FileEvent previousEvent = pendingFileEvents.remove(fileUri);
+                if (previousEvent != null && previousEvent.getType() == FileChangeType.Created && changeType == FileChangeType.Changed) {
+                    changeType = FileChangeType.Created;
+                }
+                pendingFileEvents.put(fileUri, new FileEvent(fileUri, changeType));
+
+                long now = System.currentTimeMillis();
+                if (scheduledFileEventsFlush == null) {
+                    pendingFileEventsSince = now;
+                } else {
+                    scheduledFileEventsFlush.cancel(false);
+                }
+                // Each event delays the send, but not longer than the max delay after the first pending event
+                long delay = Math.max(0, Math.min(DID_CHANGE_WATCHED_FILES_DEBOUNCE_DELAY, pendingFileEventsSince + DID_CHANGE_WATCHED_FILES_MAX_DELAY - now));
+                scheduledFileEventsFlush = AppExecutorUtil.getAppScheduledExecutorService()
+                        .schedule(this::flushPendingFileEvents, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flushPendingFileEvents() {
+            List<FileEvent> changes;
+            synchronized (pendingFileEvents) {
+                scheduledFileEventsFlush = null;
+                if (pendingFileEvents.isEmpty()) {
+                    return;
+                }
+                changes = new ArrayList<>(pendingFileEvents.values());
+                pendingFileEvents.clear();
+            }
+            // The cached responses could depend on the changed files
+            responseCache.evictAll();
             LanguageServerWrapper.this.sendNotification(ls -> {
-                DidChangeWatchedFilesParams params = new DidChangeWatchedFilesParams(Arrays.asList(changes));
+                DidChangeWatchedFilesParams params = new DidChangeWatchedFilesParams(changes);
                 ls.getWorkspaceService()
                         .didChangeWatchedFiles(params);
             });
@@ -163,14 +225,34 @@ public class LanguageServerWrapper implements Disposable {
     }
 
     private Listener fileBufferListener = new Listener();
+    private final FileSystemWatcherManager fileSystemWatcherManager = new FileSystemWatcherManager();
+    // Use a LinkedHashMap to keep the last event of a file (ex : several changes of the same file) and the events order.
+    private final Map<String /* file Uri */, FileEvent> pendingFileEvents = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFileEventsFlush;
+    private long pendingFileEventsSince;
     private MessageBusConnection messageBusConnection;
 
     @NotNull
     private final LanguageServerDefinition serverDefinition;
     @Nullable
     protected final Project initialProject;
+    /**
+     * The documents which are connected to the language server. A document is stored in this map when its
+     * synchronizer is created, before the 'textDocument/didOpen' is sent: the notifications of the document
+     * (didChange, didSave, didClose) are chained to the 'textDocument/didOpen' by its synchronizer, so they are sent after it.
+     * This map can be read without lock, the state transitions of a document are done with the atomic
+     * operations of the concurrent maps:
+     * <ul>
+     *     <li>opening: the document is stored in {@link #openingDocuments} until the language server is initialized.</li>
+     *     <li>connected: the document is stored in {@link #connectedDocuments}, the 'textDocument/didOpen' is sent
+     *     or will be sent by the synchronizer (see {@link DocumentContentSynchronizer#didOpenFuture}).</li>
+     *     <li>closing: the document is stored in {@link #closingDocuments} until the 'textDocument/didClose' has been sent.</li>
+     * </ul>
+     */
     @NotNull
     protected Map<URI, LSPVirtualFileData> connectedDocuments;
+    private final Map<URI, CompletableFuture<LanguageServer>> openingDocuments = new ConcurrentHashMap<>();
+    private final Map<URI, CompletableFuture<Void>> closingDocuments = new ConcurrentHashMap<>();
     @Nullable
     protected final URI initialPath;
     protected final InitializeParams initParams = new InitializeParams();
@@ -178,11 +260,19 @@ public class LanguageServerWrapper implements Disposable {
     protected StreamConnectionProvider lspStreamProvider;
     private Future<?> launcherFuture;
 
-    private int numberOfRestartAttempts;
+    private final LanguageServerRestartPolicy restartPolicy;
+    // Files connected when the language server crashed, reconnected when it is restarted after the cool down delay
+    private final Set<URI> filesToReconnectAfterCoolDown = new LinkedHashSet<>();
+    private final LSPRequestWatchdog watchdog;
+    private volatile RemoteEndpoint remoteEndpoint;
     private CompletableFuture<Void> initializeFuture;
     private LanguageServer languageServer;
     private LanguageClientImpl languageClient;
     private ServerCapabilities serverCapabilities;
+    private volatile ServerCapabilities serverCapabilitiesSnapshot;
+    // Lock used to create the snapshots in order, without waiting for the wrapper monitor held by start / stop
+    private final Object serverCapabilitiesSnapshotLock = new Object();
+    private volatile String positionEncoding = PositionEncodingKind.UTF16;
     private Timer timer;
     private final AtomicBoolean stopping = new AtomicBoolean(false);
 
@@ -200,6 +290,23 @@ public class LanguageServerWrapper implements Disposable {
 
     private final ExecutorService listener;
 
+    private final OrderedMessageExecutor inboundMessageExecutor;
+
+    private final OrderedMessageExecutor outboundMessageExecutor;
+
+    private final LSPRequestScheduler requestScheduler;
+
+    private final LSPResponseCache responseCache;
+
+    private record ScheduledTextDocumentService(@NotNull LanguageServer server, @NotNull TextDocumentService service) {
+    }
+
+    private volatile ScheduledTextDocumentService scheduledTextDocumentService;
+
+    private final ProcessErrorLog errorLog;
+
+    private final String errorLogThreadName;
+
     /**
      * Map containing unregistration handlers for dynamic capability registrations.
      */
@@ -224,7 +331,7 @@ public class LanguageServerWrapper implements Disposable {
         this.initialProject = project;
         this.initialPath = initialPath;
         this.serverDefinition = serverDefinition;
-        this.connectedDocuments = new HashMap<>();
+        this.connectedDocuments = new ConcurrentHashMap<>();
         String projectName = sanitize((project != null && project.getName() != null && !serverDefinition.isSingleton()) ? ("@" + project.getName()) : "");  //$NON-NLS-1$//$NON-NLS-2$
         String dispatcherThreadNameFormat = "LS-" + serverDefinition.getId() + projectName + "#dispatcher"; //$NON-NLS-1$ //$NON-NLS-2$
         this.dispatcher = Executors
@@ -236,6 +343,21 @@ public class LanguageServerWrapper implements Disposable {
         String listenerThreadNameFormat = "LS-" + serverDefinition.getId() + projectName + "#listener-%d"; //$NON-NLS-1$ //$NON-NLS-2$
         this.listener = Executors
                 .newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(listenerThreadNameFormat).build());
+
+        // Executors used to consume the JSON-RPC messages in the order where they have been read / written.
+        // The inbound queue is bounded: when it is full, the listener stops reading the process output
+        // until some messages have been consumed, which slows down a language server which floods messages.
+        this.inboundMessageExecutor = new OrderedMessageExecutor("LS-" + serverDefinition.getId() + projectName + "#inbound", MAX_INBOUND_MESSAGES); //$NON-NLS-1$ //$NON-NLS-2$
+        this.outboundMessageExecutor = new OrderedMessageExecutor("LS-" + serverDefinition.getId() + projectName + "#outbound", Integer.MAX_VALUE); //$NON-NLS-1$ //$NON-NLS-2$
+        this.responseCache = new LSPResponseCache(serverDefinition.getResponseCacheSize() * 1024L, this::getContentHash);
+        this.watchdog = new LSPRequestWatchdog(TimeUnit.SECONDS.toMillis(serverDefinition.getStallTimeout()), this::sendLivenessProbe, this::onStall);
+        this.requestScheduler = new LSPRequestScheduler(serverDefinition.getMaxConcurrentRequests(), this::getVersion, responseCache, watchdog);
+        this.restartPolicy = new LanguageServerRestartPolicy(serverDefinition);
+        // The error output of the processes is kept after a crash to be displayed in the LSP console
+        Path errorLogFile = serverDefinition.isErrorLogFile() ? Path.of(PathManager.getLogPath(), "lsp4ij", (serverDefinition.getId() + projectName).replaceAll("[^\\w.@-]", "_") + ".stderr.log") : null; //$NON-NLS-1$ //$NON-NLS-2$
+        this.errorLog = new ProcessErrorLog(serverDefinition.getErrorLogSize() * 1024L, errorLogFile);
+        this.errorLog.setListener(text -> getLanguageServerLifecycleManager().onErrorOutput(this, text));
+        this.errorLogThreadName = "LS-" + serverDefinition.getId() + projectName + "#stderr"; //$NON-NLS-1$ //$NON-NLS-2$
         udateStatus(ServerStatus.none);
         if (project != null) {
             // When project is disposed, we dispose the language server
@@ -265,6 +387,8 @@ public class LanguageServerWrapper implements Disposable {
         // If we don't do this then a full test run will generate a lot of threads because we create new
         // instances of this class for each test
         this.listener.shutdownNow();
+        this.inboundMessageExecutor.shutdownNow();
+        this.outboundMessageExecutor.shutdownNow();
     }
 
     public synchronized void stopAndDisable() {
@@ -273,7 +397,19 @@ public class LanguageServerWrapper implements Disposable {
     }
 
     public synchronized void restart() {
-        numberOfRestartAttempts = 0;
+        if (serverDefinition.isHotStandby() && initialProject != null && isActive() && !isStopping()) {
+            // Start a new language server process which replaces this language server when it is initialized
+            LanguageServiceAccessor.getInstance(initialProject).restartWithHotStandby(this);
+            return;
+        }
+        coldRestart();
+    }
+
+    /**
+     * Stop and start the language server (without hot standby).
+     */
+    public synchronized void coldRestart() {
+        restartPolicy.reset();
         setEnabled(true);
         stop();
         start();
@@ -294,27 +430,42 @@ public class LanguageServerWrapper implements Disposable {
      * @throws LanguageServerException thrown when the language server cannot be started
      */
     public synchronized void start() throws LanguageServerException {
+        start(Collections.emptyList());
+    }
+
+    private synchronized void start(@NotNull Collection<URI> filesToReconnectOnStart) throws LanguageServerException {
+        if (restartPolicy.isCoolingDown()) {
+            // The language server has crashed recently, it will be restarted after the cool down delay
+            filesToReconnectAfterCoolDown.addAll(filesToReconnectOnStart);
+            return;
+        }
         if (serverError != null) {
-            // Here the language server has been not possible
-            // we stop it and attempts a new restart if needed
+            // Here the language server has been not possible to start
+            // we stop it and attempts a new restart (the cool down delay has expired)
             stop();
-            if (numberOfRestartAttempts > MAX_NUMBER_OF_RESTART_ATTEMPTS - 1) {
-                // Disable the language server
-                setEnabled(false);
-                return;
-            } else {
-                numberOfRestartAttempts++;
-            }
         }
-        final var filesToReconnect = new ArrayList<URI>();
+        final var filesToReconnect = new ArrayList<URI>(filesToReconnectAfterCoolDown);
+        filesToReconnectAfterCoolDown.clear();
+        filesToReconnect.addAll(filesToReconnectOnStart);
         if (this.languageServer != null) {
             if (isActive()) {
                 return;
             } else {
+                // The language server process has crashed while it was running
                 for (Map.Entry<URI, LSPVirtualFileData> entry : this.connectedDocuments.entrySet()) {
                     filesToReconnect.add(entry.getKey());
                 }
+                boolean crashLoop = onCrash();
                 stop();
+                if (crashLoop) {
+                    // The language server is disabled, there is no restart
+                    filesToReconnectAfterCoolDown.clear();
+                    return;
+                }
+                if (restartPolicy.isCoolingDown()) {
+                    filesToReconnectAfterCoolDown.addAll(filesToReconnect);
+                    return;
+                }
             }
         }
 
@@ -341,11 +492,17 @@ public class LanguageServerWrapper implements Disposable {
                             this.currentProcessCommandLines = provider.getCommands();
                         }
 
+                        // Drain the error output of the process to avoid blocking the language server when the pipe is full
+                        InputStream errorStream = lspStreamProvider.getErrorStream();
+                        if (errorStream != null) {
+                            errorLog.drain(errorStream, errorLogThreadName, currentProcessId);
+                        }
+
                         // Throws the CannotStartProcessException exception if process is not alive.
                         // This use case comes for instance when the start process command fails (not a valid start command)
                         lspStreamProvider.ensureIsAlive();
                         return null;
-                    }).thenRun(() -> {
+                    }, LSP4IJExecutors.getLifecycleExecutor()).thenRun(() -> {
                         languageClient = serverDefinition.createLanguageClient(initialProject);
                         initParams.setProcessId(getParentProcessId());
 
@@ -359,8 +516,20 @@ public class LanguageServerWrapper implements Disposable {
                             try {
                                 // To avoid having some lock problem when message is written in the stream output
                                 // (when there are a lot of messages to write it)
-                                // we consume the message in async mode
-                                CompletableFuture.runAsync(() -> consumer.consume(message));
+                                // we consume the message in async mode, in the order where messages are received / sent.
+                                boolean inbound = consumer instanceof RemoteEndpoint;
+                                if (inbound) {
+                                    watchdog.onMessageReceived();
+                                }
+                                OrderedMessageExecutor executor = inbound ? inboundMessageExecutor : outboundMessageExecutor;
+                                executor.execute(() -> {
+                                    try {
+                                        consumer.consume(message);
+                                    } catch (Throwable e) {
+                                        // Log in the LSP console the error
+                                        getLanguageServerLifecycleManager().onError(this, e);
+                                    }
+                                });
                             } catch (Throwable e) {
                                 // Log in the LSP console the error
                                 getLanguageServerLifecycleManager().onError(this, e);
@@ -371,7 +540,10 @@ public class LanguageServerWrapper implements Disposable {
                                 currentConnectionProvider.handleMessage(message, this.languageServer, rootURI);
                             }
                         });
-                        Launcher<LanguageServer> launcher = serverDefinition.createLauncherBuilder() //
+                        // An in-process language server in direct mode exchanges the messages without JSON serialization
+                        Launcher.Builder<LanguageServer> launcherBuilder = lspStreamProvider instanceof InProcessStreamConnectionProvider inProcessProvider && inProcessProvider.isDirect() ?
+                                inProcessProvider.createLauncherBuilder() : serverDefinition.createLauncherBuilder();
+                        Launcher<LanguageServer> launcher = launcherBuilder //
                                 .setLocalService(languageClient)//
                                 .setRemoteInterface(serverDefinition.getServerInterface())//
                                 .setInput(lspStreamProvider.getInputStream())//
@@ -381,13 +553,16 @@ public class LanguageServerWrapper implements Disposable {
                                 .create();
                         this.languageServer = launcher.getRemoteProxy();
                         languageClient.connect(languageServer, this);
+                        this.remoteEndpoint = launcher.getRemoteEndpoint();
                         this.launcherFuture = launcher.startListening();
                     })
                     .thenCompose(unused -> initServer(rootURI))
                     .thenAccept(res -> {
                         serverError = null;
                         serverCapabilities = res.getCapabilities();
+                        positionEncoding = getPositionEncoding(serverCapabilities);
                         this.initiallySupportsWorkspaceFolders = supportsWorkspaceFolders(serverCapabilities);
+                        updateServerCapabilitiesSnapshot();
                     }).thenRun(() -> {
                         this.languageServer.initialized(new InitializedParams());
                     }).thenRun(() -> {
@@ -400,12 +575,13 @@ public class LanguageServerWrapper implements Disposable {
                                     throw new RuntimeException(e);
                                 }
                             }
-                        });
+                        }, LSP4IJExecutors.getLifecycleExecutor());
 
                         messageBusConnection = ApplicationManager.getApplication().getMessageBus().connect();
                         messageBusConnection.subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, fileBufferListener);
                         messageBusConnection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkVirtualFileListenerAdapter(fileBufferListener));
 
+                        watchdog.start();
                         udateStatus(ServerStatus.started);
                         getLanguageServerLifecycleManager().onStatusChanged(this);
                     }).exceptionally(e -> {
@@ -419,6 +595,7 @@ public class LanguageServerWrapper implements Disposable {
                         }
                         initializeFuture.completeExceptionally(serverError);
                         getLanguageServerLifecycleManager().onError(this, e);
+                        onCrash();
                         stop(false);
                         return null;
                     });
@@ -431,11 +608,13 @@ public class LanguageServerWrapper implements Disposable {
         final var textDocumentClientCapabilities = SupportedFeatures.getTextDocumentClientCapabilities();
 
         WindowClientCapabilities windowClientCapabilities = SupportedFeatures.getWindowClientCapabilities();
-        initParams.setCapabilities(new ClientCapabilities(
+        ClientCapabilities clientCapabilities = new ClientCapabilities(
                 workspaceClientCapabilities,
                 textDocumentClientCapabilities,
                 windowClientCapabilities,
-                lspStreamProvider.getExperimentalFeaturesPOJO()));
+                lspStreamProvider.getExperimentalFeaturesPOJO());
+        clientCapabilities.setGeneral(SupportedFeatures.getGeneralClientCapabilities());
+        initParams.setCapabilities(clientCapabilities);
         initParams.setClientInfo(getClientInfo());
         initParams.setTrace(this.lspStreamProvider.getTrace(rootURI));
 
@@ -466,6 +645,15 @@ public class LanguageServerWrapper implements Disposable {
         return null;
     }
 
+    private static String getPositionEncoding(ServerCapabilities serverCapabilities) {
+        String encoding = serverCapabilities != null ? serverCapabilities.getPositionEncoding() : null;
+        if (PositionEncodingKind.UTF8.equals(encoding) || PositionEncodingKind.UTF32.equals(encoding)) {
+            return encoding;
+        }
+        // The position encoding is not set or not supported by LSP4IJ, fallback to the mandatory UTF-16 encoding.
+        return PositionEncodingKind.UTF16;
+    }
+
     private static boolean supportsWorkspaceFolders(ServerCapabilities serverCapabilities) {
         return serverCapabilities != null && serverCapabilities.getWorkspace() != null
                 && serverCapabilities.getWorkspace().getWorkspaceFolders() != null
@@ -491,6 +679,102 @@ public class LanguageServerWrapper implements Disposable {
         this.serverStatus = serverStatus;
     }
 
+    private CompletableFuture<?> sendLivenessProbe() {
+        RemoteEndpoint endpoint = this.remoteEndpoint;
+        if (endpoint == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return endpoint.request(LIVENESS_PROBE_METHOD, null);
+    }
+
+    /**
+     * Execute the stall action of the language server definition when the language server doesn't answer anymore.
+     *
+     * @param event the stall event.
+     */
+    private void onStall(@NotNull LSPRequestWatchdog.StallEvent event) {
+        LSPRequestWatchdog.StallAction action = serverDefinition.getStallAction();
+        String message = "Language server '" + serverDefinition.getId() + "' is stalled: " + event.reason();
+        LOGGER.warn(message + " (action=" + action + ")");
+        // Show the stall in the LSP console
+        getLanguageServerLifecycleManager().onError(this, new LanguageServerStalledException(message));
+        switch (action) {
+            case cancel:
+                // Unblock the callers which are waiting for the responses
+                event.pendingRequests().forEach(request -> request.cancel(true));
+                break;
+            case notify:
+                Notification notification = new Notification(LanguageServerBundle.message("language.server.protocol.groupId"),
+                        serverDefinition.getDisplayName(), message, NotificationType.WARNING);
+                notification.addAction(NotificationAction.createSimpleExpiring("Restart", () ->
+                        CompletableFuture.runAsync(this::restartAndReconnect, LSP4IJExecutors.getLifecycleExecutor())));
+                Notifications.Bus.notify(notification, initialProject);
+                break;
+            case restart:
+                CompletableFuture.runAsync(this::restartAndReconnect, LSP4IJExecutors.getLifecycleExecutor());
+                break;
+        }
+    }
+
+    /**
+     * Restart the language server and reconnect the documents which are connected to the language server
+     * (ex : when the language server is stalled).
+     */
+    public synchronized void restartAndReconnect() {
+        List<URI> filesToReconnect = new ArrayList<>(this.connectedDocuments.keySet());
+        stop();
+        start(filesToReconnect);
+    }
+
+    /**
+     * Record a crash of the language server in the restart policy and disable the language server
+     * when it is in a crash loop.
+     *
+     * @return true if the language server is in a crash loop and false otherwise.
+     */
+    private boolean onCrash() {
+        if (restartPolicy.onCrash()) {
+            LOGGER.warn("Language server '" + serverDefinition.getId() + "' has crashed " + restartPolicy.getCrashCount()
+                    + " times in " + TimeUnit.MILLISECONDS.toSeconds(restartPolicy.getCrashLoopWindow()) + "s, it is disabled.");
+            setEnabled(false);
+            return true;
+        }
+        long coolDown = restartPolicy.getRemainingCoolDown();
+        if (coolDown > 0) {
+            // Refresh the status when the cool down delay expires
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+                synchronized (restartPolicy) {
+                    if (serverStatus != ServerStatus.coolingDown || restartPolicy.isCoolingDown()) {
+                        return;
+                    }
+                    udateStatus(ServerStatus.stopped);
+                }
+                getLanguageServerLifecycleManager().onStatusChanged(this);
+                CompletableFuture.runAsync(this::restartAfterCoolDown, LSP4IJExecutors.getLifecycleExecutor());
+            }, coolDown, TimeUnit.MILLISECONDS);
+        }
+        return false;
+    }
+
+    /**
+     * Restart the language server when the cool down delay has expired and reconnect the files
+     * which were connected when the language server has crashed.
+     */
+    private synchronized void restartAfterCoolDown() {
+        if (filesToReconnectAfterCoolDown.isEmpty() || isDisposed()) {
+            return;
+        }
+        if (!isEnabled()) {
+            filesToReconnectAfterCoolDown.clear();
+            return;
+        }
+        try {
+            start();
+        } catch (LanguageServerException e) {
+            LOGGER.warn("Failed to restart language server '" + serverDefinition.getId() + "' after the cool down delay", e);
+        }
+    }
+
     private void startStopTimer() {
         timer = new Timer("Stop Language Server Timer"); //$NON-NLS-1$
         udateStatus(ServerStatus.stopping);
@@ -508,6 +792,28 @@ public class LanguageServerWrapper implements Disposable {
         }, TimeUnit.SECONDS.toMillis(this.serverDefinition.getLastDocumentDisconnectedTimeout()));
     }
 
+    /**
+     * Dispose the language server when the LSP requests sent to the language server have been completed
+     * (ex : when the language server has been replaced by a hot standby language server).
+     *
+     * @param timeout the maximum time (in milliseconds) to wait for the completion of the LSP requests.
+     */
+    public void disposeWhenIdle(long timeout) {
+        requestScheduler.whenIdle()
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenRunAsync(this::dispose, LSP4IJExecutors.getLifecycleExecutor());
+    }
+
+    /**
+     * Returns the error output of the language server processes.
+     *
+     * @return the error output of the language server processes.
+     */
+    @NotNull
+    public ProcessErrorLog getErrorLog() {
+        return errorLog;
+    }
+
     /**
      * @return whether the underlying connection to language server is still active
      */
@@ -520,6 +826,7 @@ public class LanguageServerWrapper implements Disposable {
         this.disposed = true;
         stop();
         stopDispatcher();
+        errorLog.close();
     }
 
     public boolean isDisposed() {
@@ -558,8 +865,18 @@ public class LanguageServerWrapper implements Disposable {
                 this.initializeFuture = null;
             }
 
+            this.watchdog.stop();
+            this.remoteEndpoint = null;
+            this.requestScheduler.cancelAll();
+            this.responseCache.evictAll();
             this.serverCapabilities = null;
+            this.serverCapabilitiesSnapshot = null;
+            this.positionEncoding = PositionEncodingKind.UTF16;
             this.dynamicRegistrations.clear();
+            this.fileSystemWatcherManager.clear();
+            synchronized (pendingFileEvents) {
+                pendingFileEvents.clear();
+            }
 
             if (isDisposed()) {
                 // When project is closing we shutdown everything in synch mode
@@ -574,10 +891,12 @@ public class LanguageServerWrapper implements Disposable {
                 Runnable shutdownKillAndStopFutureAndProvider = () -> {
                     shutdownAll(languageServerInstance, provider, serverFuture);
                     this.stopping.set(false);
-                    udateStatus(ServerStatus.stopped);
+                    synchronized (restartPolicy) {
+                        udateStatus(restartPolicy.isCoolingDown() ? ServerStatus.coolingDown : ServerStatus.stopped);
+                    }
                     getLanguageServerLifecycleManager().onStatusChanged(this);
                 };
-                CompletableFuture.runAsync(shutdownKillAndStopFutureAndProvider);
+                CompletableFuture.runAsync(shutdownKillAndStopFutureAndProvider, LSP4IJExecutors.getLifecycleExecutor());
             }
         } finally {
             this.launcherFuture = null;
@@ -587,6 +906,7 @@ public class LanguageServerWrapper implements Disposable {
                 disconnect(this.connectedDocuments.keySet().iterator().next(), false);
             }
             this.languageServer = null;
+            this.scheduledTextDocumentService = null;
             this.languageClient = null;
 
             if (messageBusConnection != null) {
@@ -596,10 +916,11 @@ public class LanguageServerWrapper implements Disposable {
     }
 
     private void shutdownAll(LanguageServer languageServerInstance, StreamConnectionProvider provider, Future<?> serverFuture) {
-        if (languageServerInstance != null && provider != null && provider.isAlive()) {
+        if (languageServerInstance != null && provider != null && provider.isAlive() && provider.isShutdownRequired()) {
             // The LSP language server instance and the process which starts the language server is alive. Process
             // - shutdown
             // - exit
+            // (a language server which has not been launched by the provider is not shutdown, only the connection is closed)
 
             // shutdown the language server
             try {
@@ -696,39 +1017,80 @@ public class LanguageServerWrapper implements Disposable {
             return CompletableFuture.completedFuture(languageServer);
         }
         start();
-        if (this.initializeFuture == null) {
+        CompletableFuture<Void> initializeFuture = this.initializeFuture;
+        if (initializeFuture == null) {
             return CompletableFuture.completedFuture(null);
         }
         VirtualFile file = LSPIJUtils.findResourceFor(fileUri);
         if (file == null) {
             return CompletableFuture.completedFuture(null);
         }
-        return initializeFuture.thenComposeAsync(theVoid -> {
-            synchronized (connectedDocuments) {
-                if (this.connectedDocuments.containsKey(fileUri)) {
-                    return CompletableFuture.completedFuture(null);
-                }
-                Either<TextDocumentSyncKind, TextDocumentSyncOptions> syncOptions = initializeFuture == null ? null
-                        : this.serverCapabilities.getTextDocumentSync();
-                TextDocumentSyncKind syncKind = null;
-                if (syncOptions != null) {
-                    if (syncOptions.isRight()) {
-                        syncKind = syncOptions.getRight().getChange();
-                    } else if (syncOptions.isLeft()) {
-                        syncKind = syncOptions.getLeft();
-                    }
-                }
 
-                Document document = LSPIJUtils.getDocument(file);
-                DocumentContentSynchronizer synchronizer = new DocumentContentSynchronizer(this, fileUri, document, syncKind);
-                document.addDocumentListener(synchronizer);
-
-                LSPVirtualFileData data = new LSPVirtualFileData(this, file, synchronizer);
-                LanguageServerWrapper.this.connectedDocuments.put(fileUri, data);
+        CompletableFuture<LanguageServer> opening = new CompletableFuture<>();
+        CompletableFuture<LanguageServer> existingOpening = openingDocuments.putIfAbsent(fileUri, opening);
+        if (existingOpening != null) {
+            // The document is being opened by another thread, share its future.
+            return existingOpening;
+        }
+        if (this.connectedDocuments.containsKey(fileUri)) {
+            // The document has been opened by another thread since the first check.
+            openingDocuments.remove(fileUri, opening);
+            opening.complete(languageServer);
+            return opening;
+        }
+        // Wait for the 'textDocument/didClose' of a previous connection of the document, if any.
+        CompletableFuture<Void> closing = closingDocuments.getOrDefault(fileUri, CompletableFuture.completedFuture(null));
+        CompletableFuture.allOf(initializeFuture, closing)
+                .thenComposeAsync(theVoid -> openDocument(fileUri, file, opening), LSP4IJExecutors.getLifecycleExecutor())
+                .whenComplete((didOpen, error) -> {
+                    openingDocuments.remove(fileUri, opening);
+                    if (error != null) {
+                        opening.completeExceptionally(error);
+                    } else {
+                        opening.complete(didOpen != null ? languageServer : null);
+                    }
+                });
+        return opening;
+    }
 
-                return synchronizer.didOpenFuture;
+    /**
+     * Open the given document in the language server if it has not been disconnected while it was opening.
+     *
+     * @return the 'textDocument/didOpen' future or a future completed with null if the document has not been opened.
+     */
+    private CompletableFuture<Boolean> openDocument(@NotNull URI fileUri, @NotNull VirtualFile file, @NotNull CompletableFuture<LanguageServer> opening) {
+        if (openingDocuments.get(fileUri) != opening) {
+            // The document has been disconnected while it was opening
+            return CompletableFuture.completedFuture(null);
+        }
+        Either<TextDocumentSyncKind, TextDocumentSyncOptions> syncOptions = this.serverCapabilities != null ?
+                this.serverCapabilities.getTextDocumentSync() : null;
+        TextDocumentSyncKind syncKind = null;
+        if (syncOptions != null) {
+            if (syncOptions.isRight()) {
+                syncKind = syncOptions.getRight().getChange();
+            } else if (syncOptions.isLeft()) {
+                syncKind = syncOptions.getLeft();
             }
-        }).thenApply(theVoid -> languageServer);
+        }
+
+        // The synchronizer is created without side effect, the document listener is registered and the
+        // 'textDocument/didOpen' is sent only if this call has connected the document.
+        Document document = LSPIJUtils.getDocument(file);
+        DocumentContentSynchronizer synchronizer = new DocumentContentSynchronizer(this, fileUri, document, syncKind);
+        LSPVirtualFileData data = new LSPVirtualFileData(this, file, synchronizer);
+        if (this.connectedDocuments.putIfAbsent(fileUri, data) != null) {
+            // Already opened by another call
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        }
+        if (openingDocuments.get(fileUri) != opening) {
+            // The document has been disconnected while it was opening
+            this.connectedDocuments.remove(fileUri, data);
+            return CompletableFuture.completedFuture(null);
+        }
+        // If the document is disconnected concurrently, the synchronizer doesn't send the 'textDocument/didOpen'
+        synchronizer.documentOpened();
+        return synchronizer.didOpenFuture.thenApply(theVoid -> this.connectedDocuments.get(fileUri) == data ? Boolean.TRUE : null);
     }
 
     private void disconnect(URI path) {
@@ -736,12 +1098,18 @@ public class LanguageServerWrapper implements Disposable {
     }
 
     private void disconnect(URI path, boolean stopIfNoOpenedFiles) {
+        // Cancel the open of the document if it is opening
+        openingDocuments.remove(path);
+        // Only one thread can remove the document, so the 'textDocument/didClose' is sent once.
         LSPVirtualFileData data = this.connectedDocuments.remove(path);
         if (data != null) {
-            // Remove the listener from the old document stored in synchronizer
+            // Remove the listener from the old document stored in synchronizer and send the 'textDocument/didClose'
             DocumentContentSynchronizer synchronizer = data.getSynchronizer();
-            synchronizer.getDocument().removeDocumentListener(synchronizer);
-            synchronizer.documentClosed();
+            CompletableFuture<Void> closing = synchronizer.documentClosed();
+            if (!closing.isDone()) {
+                closingDocuments.put(path, closing);
+                closing.whenComplete((unused, error) -> closingDocuments.remove(path, closing));
+            }
         }
         if (stopIfNoOpenedFiles && this.connectedDocuments.isEmpty()) {
             if (this.serverDefinition.getLastDocumentDisconnectedTimeout() != 0 && !ApplicationManager.getApplication().isUnitTestMode()) {
@@ -762,6 +1130,26 @@ public class LanguageServerWrapper implements Disposable {
         return connectedDocuments.containsKey(location);
     }
 
+    /**
+     * Returns the language server if it is initialized and if the given file is already connected to it, and null otherwise.
+     *
+     * <p>
+     * This method doesn't start the language server and doesn't block.
+     * </p>
+     *
+     * @param fileUri the file Uri.
+     * @return the language server if it is initialized and if the given file is already connected to it, and null otherwise.
+     */
+    @Nullable
+    public LanguageServer getServerIfConnectedTo(@NotNull URI fileUri) {
+        CompletableFuture<Void> initializeFuture = this.initializeFuture;
+        if (initializeFuture == null || !initializeFuture.isDone() || initializeFuture.isCompletedExceptionally()
+                || !isActive() || !isConnectedTo(fileUri)) {
+            return null;
+        }
+        return languageServer;
+    }
+
     /**
      * Returns the LSP file data coming from this language server for the given file uri.
      *
@@ -835,12 +1223,32 @@ public class LanguageServerWrapper implements Disposable {
      * Sends a notification to the wrapped language server
      *
      * @param fn LS notification to send
+     * @return a future which is completed when the notification has been sent.
      */
-    public void sendNotification(@NotNull Consumer<LanguageServer> fn) {
+    public CompletableFuture<Void> sendNotification(@NotNull Consumer<LanguageServer> fn) {
         // Enqueues a notification on the dispatch thread associated with the wrapped language server. This
         // ensures the interleaving of document updates and other requests in the UI is mirrored in the
         // order in which they get dispatched to the server
-        getInitializedServer().thenAcceptAsync(fn, this.dispatcher);
+        return getInitializedServer().thenAcceptAsync(fn, this.dispatcher);
+    }
+
+    /**
+     * Sends the pending document changes of the given file (if it is connected) to the language server.
+     *
+     * @param fileUri the file Uri.
+     * @return a future which is completed when the pending 'textDocument/didChange' has been sent.
+     */
+    public @NotNull CompletableFuture<Void> flushPendingChanges(@NotNull URI fileUri) {
+        LSPVirtualFileData data = connectedDocuments.get(fileUri);
+        if (data == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return data.getSynchronizer()
+                .flushPendingChanges()
+                .exceptionally(e -> {
+                    // The error has been already reported when the notification has been sent
+                    return null;
+                });
     }
 
     /**
@@ -867,6 +1275,102 @@ public class LanguageServerWrapper implements Disposable {
         return this.serverCapabilities;
     }
 
+    /**
+     * Returns a snapshot of the server capabilities, including the capabilities which have been registered
+     * dynamically, without waiting for the language server initialization.
+     *
+     * <p>
+     * The returned instance is never updated by the wrapper (a new snapshot is created when a capability is
+     * registered / unregistered), so it can be used safely from any thread and must not be modified.
+     * </p>
+     *
+     * @return a snapshot of the server capabilities or null if the language server is not initialized yet
+     * (capabilities are unknown).
+     */
+    @Nullable
+    public ServerCapabilities getServerCapabilitiesSnapshot() {
+        return serverCapabilitiesSnapshot;
+    }
+
+    private void updateServerCapabilitiesSnapshot() {
+        synchronized (serverCapabilitiesSnapshotLock) {
+            ServerCapabilities capabilities = this.serverCapabilities;
+            this.serverCapabilitiesSnapshot = capabilities != null ?
+                    JSONUtils.toModel(JSONUtils.getLsp4jGson().toJsonTree(capabilities), ServerCapabilities.class) :
+                    null;
+        }
+    }
+
+    /**
+     * Returns the scheduler which orders the LSP requests sent to the language server according to their priority.
+     *
+     * @return the scheduler which orders the LSP requests sent to the language server according to their priority.
+     */
+    @NotNull
+    public LSPRequestScheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+
+    /**
+     * Returns the {@link TextDocumentService} of the given language server which schedules the requests according
+     * to their priority (see {@link LSPRequestScheduler#wrap(TextDocumentService)}).
+     *
+     * @param server the language server.
+     * @return the {@link TextDocumentService} of the given language server which schedules the requests.
+     */
+    @NotNull
+    public TextDocumentService getTextDocumentService(@NotNull LanguageServer server) {
+        ScheduledTextDocumentService scheduled = this.scheduledTextDocumentService;
+        if (scheduled == null || scheduled.server() != server) {
+            // The scheduled service is created once per language server instance
+            scheduled = new ScheduledTextDocumentService(server, requestScheduler.wrap(server.getTextDocumentService()));
+            this.scheduledTextDocumentService = scheduled;
+        }
+        return scheduled.service();
+    }
+
+    /**
+     * Returns the cache of the responses of the read-only LSP requests (ex : textDocument/foldingRange).
+     *
+     * @return the cache of the responses of the read-only LSP requests.
+     */
+    @NotNull
+    public LSPResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Returns the executor which consumes the JSON-RPC messages received from the language server.
+     * It can be used to get the queue depth metrics of the language server.
+     *
+     * @return the executor which consumes the JSON-RPC messages received from the language server.
+     */
+    @NotNull
+    public OrderedMessageExecutor getInboundMessageExecutor() {
+        return inboundMessageExecutor;
+    }
+
+    /**
+     * Returns the executor which writes the JSON-RPC messages sent to the language server.
+     *
+     * @return the executor which writes the JSON-RPC messages sent to the language server.
+     */
+    @NotNull
+    public OrderedMessageExecutor getOutboundMessageExecutor() {
+        return outboundMessageExecutor;
+    }
+
+    /**
+     * Returns the position encoding negotiated with the language server (see {@link PositionEncodingKind})
+     * and {@link PositionEncodingKind#UTF16} if the server is not initialized or didn't choose one.
+     *
+     * @return the position encoding negotiated with the language server.
+     */
+    @NotNull
+    public String getPositionEncoding() {
+        return positionEncoding;
+    }
+
     /**
      * @return The language ID that this wrapper is dealing with if defined in the
      * language mapping for the language server
@@ -921,11 +1425,10 @@ public class LanguageServerWrapper implements Disposable {
                         setWorkspaceFoldersEnablement(true);
                     }
                 } else if ("workspace/executeCommand".equals(reg.getMethod())) { //$NON-NLS-1$
-                    Gson gson = new Gson(); // TODO? retrieve the GSon used by LS
-                    ExecuteCommandOptions executeCommandOptions = gson.fromJson((JsonObject) reg.getRegisterOptions(),
-                            ExecuteCommandOptions.class);
-                    List<String> newCommands = executeCommandOptions.getCommands();
-                    if (!newCommands.isEmpty()) {
+                    // The register options are a JsonObject, or a Java object with an in-process language server in direct mode
+                    ExecuteCommandOptions executeCommandOptions = JSONUtils.toModel(reg.getRegisterOptions(), ExecuteCommandOptions.class);
+                    List<String> newCommands = executeCommandOptions != null ? executeCommandOptions.getCommands() : null;
+                    if (newCommands != null && !newCommands.isEmpty()) {
                         addRegistration(reg, () -> unregisterCommands(newCommands));
                         registerCommands(newCommands);
                     }
@@ -947,12 +1450,17 @@ public class LanguageServerWrapper implements Disposable {
                         serverCapabilities.setDocumentRangeFormattingProvider(documentRangeFormattingProvider.getRight());
                         addRegistration(reg, () -> serverCapabilities.setDocumentRangeFormattingProvider(documentRangeFormattingProvider));
                     }
+                } else if ("workspace/didChangeWatchedFiles".equals(reg.getMethod())) { //$NON-NLS-1$
+                    DidChangeWatchedFilesRegistrationOptions options = JSONUtils.toModel(reg.getRegisterOptions(), DidChangeWatchedFilesRegistrationOptions.class);
+                    fileSystemWatcherManager.registerFileSystemWatchers(reg.getId(), options != null ? options.getWatchers() : null);
+                    addRegistration(reg, () -> fileSystemWatcherManager.unregisterFileSystemWatchers(reg.getId()));
                 } else if ("textDocument/codeAction".equals(reg.getMethod())) { //$NON-NLS-1$
                     final Either<Boolean, CodeActionOptions> beforeRegistration = serverCapabilities.getCodeActionProvider();
                     serverCapabilities.setCodeActionProvider(Boolean.TRUE);
                     addRegistration(reg, () -> serverCapabilities.setCodeActionProvider(beforeRegistration));
                 }
             });
+            updateServerCapabilitiesSnapshot();
         });
     }
 
@@ -1011,6 +1519,7 @@ public class LanguageServerWrapper implements Disposable {
                 unregistrator.run();
             }
         });
+        updateServerCapabilitiesSnapshot();
     }
 
     void unregisterCommands(List<String> cmds) {
@@ -1024,6 +1533,24 @@ public class LanguageServerWrapper implements Disposable {
         }
     }
 
+    private @Nullable String getContentHash(@NotNull String fileUri) {
+        try {
+            LSPVirtualFileData data = connectedDocuments.get(new URI(fileUri));
+            return data != null ? data.getSynchronizer().getContentHash() : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private int getVersion(@NotNull String fileUri) {
+        try {
+            LSPVirtualFileData data = connectedDocuments.get(new URI(fileUri));
+            return data != null ? data.getSynchronizer().getVersion() : -1;
+        } catch (URISyntaxException e) {
+            return -1;
+        }
+    }
+
     int getVersion(VirtualFile file) {
         if (file != null) {
             URI uri = LSPIJUtils.toUri(file);
@@ -1100,12 +1627,40 @@ public class LanguageServerWrapper implements Disposable {
         return serverError;
     }
 
+    /**
+     * Returns the number of crashes of the language server in the crash loop window.
+     *
+     * @return the number of crashes of the language server in the crash loop window.
+     */
     public int getNumberOfRestartAttempts() {
-        return numberOfRestartAttempts;
+        return restartPolicy.getCrashCount();
     }
 
+    /**
+     * Returns the number of crashes in the crash loop window which disables the language server.
+     *
+     * @return the number of crashes in the crash loop window which disables the language server.
+     */
     public int getMaxNumberOfRestartAttempts() {
-        return MAX_NUMBER_OF_RESTART_ATTEMPTS;
+        return restartPolicy.getCrashLoopThreshold();
+    }
+
+    /**
+     * Returns the restart policy of the language server.
+     *
+     * @return the restart policy of the language server.
+     */
+    public LanguageServerRestartPolicy getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    /**
+     * Returns the watchdog which detects that the language server doesn't answer anymore.
+     *
+     * @return the watchdog which detects that the language server doesn't answer anymore.
+     */
+    public LSPRequestWatchdog getWatchdog() {
+        return watchdog;
     }
 
     /**
@@ -55,6 +55,8 @@ public class LanguageServersRegistry {
 
     private final List<LanguageServerFileAssociation> fileAssociations = new ArrayList<>();
 
+    private volatile LanguageServerFileAssociationIndex fileAssociationIndex = LanguageServerFileAssociationIndex.EMPTY;
+
     private final Collection<LanguageServerDefinitionListener> listeners = new CopyOnWriteArrayList<>();
 
     private final List<ProviderInfo<? extends Object>> inlayHintsProviders = new ArrayList<>();
@@ -202,9 +204,7 @@ public class LanguageServersRegistry {
      * This does <strong>not</strong> include the one that match transitively as per content-type hierarchy
      */
     List<LanguageServerFileAssociation> findLanguageServerDefinitionFor(final @Nullable Language language, @Nullable FileType fileType, @NotNull VirtualFile file) {
-        return fileAssociations.stream()
-                .filter(mapping -> mapping.match(language, fileType, file.getName()))
-                .collect(Collectors.toList());
+        return fileAssociationIndex.findMatches(language, fileType, file.getName());
     }
 
     public List<LanguageServerFileAssociation> findLanguageServerDefinitionFor(final @NotNull String serverId) {
@@ -236,6 +236,12 @@ public class LanguageServersRegistry {
             }
             fileAssociations.add(new LanguageServerFileAssociation(matchers, serverDefinition, mapping.getDocumentMatcher(), languageId));
         }
+        updateFileAssociationIndex();
+    }
+
+    private synchronized void updateFileAssociationIndex() {
+        // The index is rebuilt and replaced in one time to avoid reading a partially updated index.
+        fileAssociationIndex = new LanguageServerFileAssociationIndex(new ArrayList<>(fileAssociations));
     }
 
     /**
@@ -381,6 +387,7 @@ public class LanguageServersRegistry {
                 .filter(mapping -> definition.equals(mapping.getServerDefinition()))
                 .collect(Collectors.toList());
         fileAssociations.removeAll(mappingsToRemove);
+        updateFileAssociationIndex();
     }
 
     public void updateServerDefinition(@NotNull UserDefinedLanguageServerDefinition serverDefinition,
@@ -479,9 +486,7 @@ public class LanguageServersRegistry {
         }
         Language language = LSPIJUtils.getFileLanguage(file, project);
         FileType fileType = file.getFileType();
-        return fileAssociations
-                .stream()
-                .anyMatch(mapping -> mapping.match(language, fileType, file.getName()));
+        return fileAssociationIndex.hasMatch(language, fileType, file.getName());
     }
 
     /**
@@ -14,13 +14,24 @@ import com.intellij.lang.Language;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ReadAction;
-import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.*;
 import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import org.microshed.lsp4ij.server.LanguageServerException;
 import org.microshed.lsp4ij.server.definition.LanguageServerFileAssociation;
 import org.microshed.lsp4ij.server.definition.LanguageServerDefinition;
 import org.microshed.lsp4ij.server.definition.LanguageServerDefinitionListener;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.jetbrains.annotations.NotNull;
@@ -32,6 +43,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -41,17 +54,21 @@ import java.util.stream.Collectors;
 public class LanguageServiceAccessor implements Disposable {
     private static final Logger LOGGER = LoggerFactory.getLogger(LanguageServiceAccessor.class);
 
+    // Maximum time to wait for the completion of the LSP requests sent to a language server replaced by a hot standby
+    private static final long HOT_STANDBY_DRAIN_TIMEOUT = 5000;
+
     private final Project project;
 
     private final LanguageServerDefinitionListener serverDefinitionListener = new LanguageServerDefinitionListener() {
 
         @Override
         public void handleAdded(@NotNull LanguageServerDefinitionListener.LanguageServerAddedEvent event) {
-            // Do nothing
+            invalidateMatchedLanguageServerDefinitions();
         }
 
         @Override
         public void handleRemoved(@NotNull LanguageServerDefinitionListener.LanguageServerRemovedEvent event) {
+            invalidateMatchedLanguageServerDefinitions();
             // Dispose all servers which are removed
             List<LanguageServerWrapper> serversToDispose = startedServers
                     .stream()
@@ -66,6 +83,9 @@ public class LanguageServiceAccessor implements Disposable {
 
         @Override
         public void handleChanged(@NotNull LanguageServerChangedEvent event) {
+            if (event.mappingsChanged) {
+                invalidateMatchedLanguageServerDefinitions();
+            }
             if (event.commandChanged || event.mappingsChanged) {
                 // Restart all servers where command or mappings has changed
                 List<LanguageServerWrapper> serversToRestart = startedServers
@@ -81,13 +101,37 @@ public class LanguageServiceAccessor implements Disposable {
         return project.getService(LanguageServiceAccessor.class);
     }
 
+    /**
+     * Cache of the language server definitions which match a file, to avoid executing the content-type walk
+     * and the {@link DocumentMatcher}s for each LSP request.
+     */
+    private final Map<VirtualFile, CachedMatchedLanguageServerDefinitions> matchedDefinitionsCache = ContainerUtil.createConcurrentWeakMap();
+
+    private long matchedDefinitionsCacheStamp;
+
     private LanguageServiceAccessor(Project project) {
         this.project = project;
         LanguageServersRegistry.getInstance().addLanguageServerDefinitionListener(serverDefinitionListener);
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(FileTypeManager.TOPIC, new FileTypeListener() {
+            @Override
+            public void fileTypesChanged(@NotNull FileTypeEvent event) {
+                invalidateMatchedLanguageServerDefinitions();
+            }
+        });
+        connection.subscribe(ModuleRootListener.TOPIC, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                invalidateMatchedLanguageServerDefinitions();
+            }
+        });
     }
 
     private final Set<LanguageServerWrapper> startedServers = new HashSet<>();
 
+    // Language servers which are waiting for their hot standby language server
+    private final Set<LanguageServerWrapper> hotStandbyRestarts = ConcurrentHashMap.newKeySet();
+
     @NotNull
     public CompletableFuture<List<LanguageServerItem>> getLanguageServers(@NotNull VirtualFile file,
                                                                           Predicate<ServerCapabilities> filter) {
@@ -103,6 +147,15 @@ public class LanguageServiceAccessor implements Disposable {
             return CompletableFuture.completedFuture(Collections.emptyList());
         }
 
+        if (matchedServers.isDone() && !matchedServers.isCompletedExceptionally()) {
+            // Fast path: when all matched language servers are initialized and the file is already connected to them,
+            // returns the language servers without starting / connecting them in other threads.
+            CompletableFuture<List<LanguageServerItem>> connectedServers = getConnectedLanguageServers(matchedServers.getNow(Collections.emptyList()), uri, filter);
+            if (connectedServers != null) {
+                return connectedServers;
+            }
+        }
+
         // Returns the language servers which match the given file, start them and connect the file to each matched language server
         final List<LanguageServerItem> servers = Collections.synchronizedList(new ArrayList<>());
         try {
@@ -112,7 +165,7 @@ public class LanguageServiceAccessor implements Disposable {
                             .map(wrapper ->
                                     wrapper.getInitializedServer()
                                             .thenComposeAsync(server -> {
-                                                if (server != null && wrapper.isEnabled() && (filter == null || filter.test(wrapper.getServerCapabilities()))) {
+                                                if (server != null && wrapper.isEnabled() && capabilitiesComply(wrapper, filter)) {
                                                     try {
                                                         return wrapper.connect(file);
                                                     } catch (IOException ex) {
@@ -120,11 +173,18 @@ public class LanguageServiceAccessor implements Disposable {
                                                     }
                                                 }
                                                 return CompletableFuture.completedFuture(null);
+                                            }, LSP4IJExecutors.getFeatureExecutor()).thenCompose(server -> {
+                                                if (server == null) {
+                                                    return CompletableFuture.completedFuture(null);
+                                                }
+                                                // Send the pending 'textDocument/didChange' before consuming the LSP request
+                                                return wrapper.flushPendingChanges(uri)
+                                                        .thenApply(unused -> server);
                                             }).thenAccept(server -> {
                                                 if (server != null) {
                                                     servers.add(new LanguageServerItem(server, wrapper));
                                                 }
-                                            })).toArray(CompletableFuture[]::new)))
+                                            })).toArray(CompletableFuture[]::new)), LSP4IJExecutors.getFeatureExecutor())
                     .thenApply(theVoid -> servers);
         } catch (final ProcessCanceledException cancellation) {
             throw cancellation;
@@ -134,6 +194,238 @@ public class LanguageServiceAccessor implements Disposable {
         }
     }
 
+    /**
+     * Returns the language servers which are initialized and already connected to the given file, or null if one of
+     * the given language servers is not initialized or not connected to the file.
+     *
+     * @param wrappers the language servers which match the file.
+     * @param uri      the file Uri.
+     * @param filter   the server capabilities filter.
+     * @return a future completed when the pending 'textDocument/didChange' of the file have been sent or null if
+     * the language servers must be started / connected.
+     */
+    @Nullable
+    private static CompletableFuture<List<LanguageServerItem>> getConnectedLanguageServers(@NotNull Collection<LanguageServerWrapper> wrappers,
+                                                                                           @NotNull URI uri,
+                                                                                           @Nullable Predicate<ServerCapabilities> filter) {
+        List<LanguageServerItem> servers = new ArrayList<>(wrappers.size());
+        List<CompletableFuture<Void>> pendingChanges = null;
+        for (LanguageServerWrapper wrapper : wrappers) {
+            if (!wrapper.isEnabled()) {
+                continue;
+            }
+            LanguageServer server = wrapper.getServerIfConnectedTo(uri);
+            if (server == null) {
+                // The language server is not started or the file is not connected, use the async path.
+                return null;
+            }
+            if (!capabilitiesComply(wrapper, filter)) {
+                continue;
+            }
+            // Send the pending 'textDocument/didChange' before consuming the LSP request
+            CompletableFuture<Void> flush = wrapper.flushPendingChanges(uri);
+            if (!flush.isDone()) {
+                if (pendingChanges == null) {
+                    pendingChanges = new ArrayList<>();
+                }
+                pendingChanges.add(flush);
+            }
+            servers.add(new LanguageServerItem(server, wrapper));
+        }
+        if (pendingChanges == null) {
+            return CompletableFuture.completedFuture(servers);
+        }
+        return CompletableFuture.allOf(pendingChanges.toArray(CompletableFuture[]::new))
+                .thenApply(theVoid -> servers);
+    }
+
+    /**
+     * Start in background the language servers which are configured to be pre-warmed (see {@link LanguageServerDefinition#isPrewarm()})
+     * and which are associated to some file types of the project. No file is connected to the started language servers,
+     * but the first LSP feature used in an editor doesn't wait for the process start and the 'initialize' request.
+     *
+     * <p>
+     * The file types are searched in a non-blocking read action in smart mode, the document matchers of the
+     * associations are not used. The pre-warm has a low priority: the language servers are started one after the
+     * other (the next one when the previous one is initialized), so they don't compete with the language servers
+     * started for the opened files.
+     * </p>
+     */
+    public void prewarmLanguageServers() {
+        Set<LanguageServerDefinition> serverDefinitions = LanguageServersRegistry.getInstance().getServerDefinitions()
+                .stream()
+                .filter(serverDefinition -> serverDefinition.isPrewarm() && serverDefinition.isEnabled())
+                .collect(Collectors.toSet());
+        if (serverDefinitions.isEmpty()) {
+            return;
+        }
+        ReadAction.nonBlocking(() -> findServerDefinitionsUsedByProject(serverDefinitions))
+                .inSmartMode(project)
+                .expireWith(this)
+                .submit(AppExecutorUtil.getAppExecutorService())
+                .onSuccess(usedServerDefinitions -> {
+                    CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+                    for (LanguageServerDefinition serverDefinition : usedServerDefinitions) {
+                        previous = previous
+                                .handle((result, error) -> null)
+                                .thenComposeAsync(unused -> prewarmLanguageServer(serverDefinition), LSP4IJExecutors.getLifecycleExecutor());
+                    }
+                });
+    }
+
+    private @NotNull CompletableFuture<?> prewarmLanguageServer(@NotNull LanguageServerDefinition serverDefinition) {
+        if (project.isDisposed() || !serverDefinition.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        LanguageServerWrapper wrapper = getOrCreateLSWrapper(project, serverDefinition, server -> server.canOperate(project));
+        // Wait for the initialization before starting the next language server
+        return wrapper.getInitializedServer();
+    }
+
+    private @NotNull Set<LanguageServerDefinition> findServerDefinitionsUsedByProject(@NotNull Set<LanguageServerDefinition> serverDefinitions) {
+        Set<LanguageServerDefinition> usedServerDefinitions = new HashSet<>();
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        FileType[] fileTypes = FileTypeManager.getInstance().getRegisteredFileTypes();
+        for (LanguageServerDefinition serverDefinition : serverDefinitions) {
+            for (LanguageServerFileAssociation association : LanguageServersRegistry.getInstance().findLanguageServerDefinitionFor(serverDefinition.getId())) {
+                ProgressManager.checkCanceled();
+                if (containsFileOf(association, fileTypes, scope)) {
+                    usedServerDefinitions.add(serverDefinition);
+                    break;
+                }
+            }
+        }
+        return usedServerDefinitions;
+    }
+
+    private static boolean containsFileOf(@NotNull LanguageServerFileAssociation association, @NotNull FileType[] fileTypes,
+                                          @NotNull GlobalSearchScope scope) {
+        FileType associatedFileType = association.getFileType();
+        if (associatedFileType != null) {
+            return FileTypeIndex.containsFileOfType(associatedFileType, scope);
+        }
+        Language language = association.getLanguage();
+        if (language != null) {
+            for (FileType fileType : fileTypes) {
+                if (fileType instanceof LanguageFileType languageFileType
+                        && languageFileType.getLanguage().isKindOf(language)
+                        && FileTypeIndex.containsFileOfType(fileType, scope)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        List<FileNameMatcher> fileNameMatchers = association.getFileNameMatchers();
+        if (fileNameMatchers != null) {
+            // Collect the matching file names first, the index must not be queried while it processes the file names
+            Set<String> matchingFileNames = new HashSet<>();
+            FilenameIndex.processAllFileNames(fileName -> {
+                for (FileNameMatcher matcher : fileNameMatchers) {
+                    if (matcher.acceptsCharSequence(fileName)) {
+                        matchingFileNames.add(fileName);
+                        break;
+                    }
+                }
+                return true;
+            }, scope, null);
+            for (String fileName : matchingFileNames) {
+                ProgressManager.checkCanceled();
+                if (!FilenameIndex.getVirtualFilesByName(fileName, scope).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the started language server of the given server definition which can operate the element
+     * (file or project) tested by the given predicate and creates it if there is none.
+     *
+     * @param fileProject      the project used to create the language server.
+     * @param serverDefinition the server definition.
+     * @param canOperate       the predicate which tests if a started language server can operate the element.
+     * @return the started language server or the created language server.
+     */
+    private @NotNull LanguageServerWrapper getOrCreateLSWrapper(@NotNull Project fileProject, @NotNull LanguageServerDefinition serverDefinition,
+                                                                @NotNull Predicate<LanguageServerWrapper> canOperate) {
+        synchronized (startedServers) {
+            // Loop for started language servers
+            for (var startedServer : startedServers) {
+                if (startedServer.getServerDefinition().equals(serverDefinition)
+                        && canOperate.test(startedServer)) {
+                    // A started language server match, use it
+                    return startedServer;
+                }
+            }
+            // There are none started servers which matches, create and add it.
+            LanguageServerWrapper wrapper = new LanguageServerWrapper(fileProject, serverDefinition);
+            startedServers.add(wrapper);
+            return wrapper;
+        }
+    }
+
+    /**
+     * Restart the given language server with a hot standby language server:
+     *
+     * <ul>
+     *     <li>a new language server process is started and initialized while the given language server is used.</li>
+     *     <li>the files connected to the given language server are connected to the new language server.</li>
+     *     <li>the new language server replaces the given language server for the next LSP requests.</li>
+     *     <li>the given language server is disposed when its pending LSP requests have been completed.</li>
+     * </ul>
+     *
+     * <p>
+     * If the new language server cannot be started, the given language server is restarted without hot standby.
+     * </p>
+     *
+     * @param languageServer the language server to restart.
+     */
+    public void restartWithHotStandby(@NotNull LanguageServerWrapper languageServer) {
+        if (!hotStandbyRestarts.add(languageServer)) {
+            // The hot standby language server is starting
+            return;
+        }
+        LanguageServerWrapper standby = new LanguageServerWrapper(project, languageServer.getServerDefinition());
+        standby.getInitializedServer()
+                .thenComposeAsync(server -> {
+                    if (server == null) {
+                        throw new CompletionException(standby.getServerError() != null ? standby.getServerError() :
+                                new LanguageServerException("The hot standby language server is not started."));
+                    }
+                    // Replay the files opened in the current language server
+                    return CompletableFuture.allOf(languageServer.getConnectedFiles()
+                            .stream()
+                            .map(fileData -> {
+                                try {
+                                    return standby.connect(fileData.getFile());
+                                } catch (IOException e) {
+                                    throw new CompletionException(e);
+                                }
+                            })
+                            .toArray(CompletableFuture[]::new));
+                }, LSP4IJExecutors.getLifecycleExecutor())
+                .whenComplete((unused, error) -> {
+                    hotStandbyRestarts.remove(languageServer);
+                    if (error != null) {
+                        LOGGER.warn("Error while starting the hot standby language server '" + languageServer.getServerDefinition().getId() + "'", error);
+                        standby.dispose();
+                        languageServer.coldRestart();
+                        return;
+                    }
+                    // Switch the LSP requests to the hot standby language server
+                    synchronized (startedServers) {
+                        if (!startedServers.remove(languageServer)) {
+                            // The language server has been removed (ex : the language server definition has been removed)
+                            standby.dispose();
+                            return;
+                        }
+                        startedServers.add(standby);
+                    }
+                    languageServer.disposeWhenIdle(HOT_STANDBY_DRAIN_TIMEOUT);
+                });
+    }
+
     /**
      * Return the started servers.
      *
@@ -182,13 +474,14 @@ public class LanguageServiceAccessor implements Disposable {
      * @return The result of applying the capabilities of {@code wrapper} to
      * {@code capabilitiesPredicate}, or {@code false} if
      * {@code capabilitiesPredicate == null} or
-     * {@code wrapper.getServerCapabilities() == null}
+     * {@code wrapper.getServerCapabilitiesSnapshot() == null} (server not initialized yet)
      */
     private static boolean capabilitiesComply(LanguageServerWrapper wrapper,
                                               Predicate<ServerCapabilities> capabilitiesPredicate) {
+        ServerCapabilities capabilities = wrapper.getServerCapabilitiesSnapshot();
         return capabilitiesPredicate == null
-                || wrapper.getServerCapabilities() == null /* null check is workaround for https://github.com/TypeFox/ls-api/issues/47 */
-                || capabilitiesPredicate.test(wrapper.getServerCapabilities());
+                || capabilities == null /* null check is workaround for https://github.com/TypeFox/ls-api/issues/47 */
+                || capabilitiesPredicate.test(capabilities);
     }
 
     @NotNull
@@ -228,23 +521,7 @@ public class LanguageServiceAccessor implements Disposable {
     private void collectLanguageServersFromDefinition(@NotNull VirtualFile file, @NotNull Project fileProject, @NotNull Set<LanguageServerDefinition> serverDefinitions, @NotNull Set<LanguageServerWrapper> matchedServers) {
         synchronized (startedServers) {
             for (var serverDefinition : serverDefinitions) {
-                boolean useExistingServer = false;
-                // Loop for started language servers
-                for (var startedServer : startedServers) {
-                    if (startedServer.getServerDefinition().equals(serverDefinition)
-                            && startedServer.canOperate(file)) {
-                        // A started language server match the file, use it
-                        matchedServers.add(startedServer);
-                        useExistingServer = true;
-                        break;
-                    }
-                }
-                if (!useExistingServer) {
-                    // There are none started servers which matches the file, create and add it.
-                    LanguageServerWrapper wrapper = new LanguageServerWrapper(fileProject, serverDefinition);
-                    startedServers.add(wrapper);
-                    matchedServers.add(wrapper);
-                }
+                matchedServers.add(getOrCreateLSWrapper(fileProject, serverDefinition, startedServer -> startedServer.canOperate(file)));
             }
         }
     }
@@ -284,14 +561,99 @@ public class LanguageServiceAccessor implements Disposable {
         }
     }
 
+    /**
+     * Language server definitions which match a file, with the language, file type and file name used to compute them.
+     */
+    private record CachedMatchedLanguageServerDefinitions(@Nullable Language language,
+                                                          @Nullable FileType fileType,
+                                                          @NotNull String fileName,
+                                                          @NotNull Set<LanguageServerDefinition> serverDefinitions) {
+
+        boolean isValidFor(@Nullable Language language, @Nullable FileType fileType, @NotNull String fileName) {
+            return Objects.equals(this.language, language)
+                    && Objects.equals(this.fileType, fileType)
+                    && this.fileName.equals(fileName);
+        }
+    }
+
     /**
      * Returns the matched language server definitions for the given file.
      *
+     * <p>
+     * The server definitions which match the file are cached per file, the cache entry is invalidated when the language,
+     * the file type or the name of the file changes, when a server definition is added / removed / updated
+     * and when the project roots change.
+     * </p>
+     *
      * @param file        the file.
      * @param fileProject the file project.
      * @return the matched language server definitions for the given file.
      */
     private MatchedLanguageServerDefinitions getMatchedLanguageServerDefinitions(@NotNull VirtualFile file, @NotNull Project fileProject) {
+        Language language = LSPIJUtils.getFileLanguage(file, project);
+        FileType fileType = file.getFileType();
+        String fileName = file.getName();
+
+        CachedMatchedLanguageServerDefinitions cached = matchedDefinitionsCache.get(file);
+        if (cached != null && cached.isValidFor(language, fileType, fileName)) {
+            Set<LanguageServerDefinition> enabledDefinitions = getEnabledDefinitions(cached.serverDefinitions());
+            return enabledDefinitions.isEmpty() ? MatchedLanguageServerDefinitions.NO_MATCH : new MatchedLanguageServerDefinitions(enabledDefinitions, null);
+        }
+
+        // The cache stores the server definitions which match the file even if they are disabled, to take care of
+        // the enable state of the server definition when the cache is used.
+        long stamp = getMatchedDefinitionsCacheStamp();
+        MatchedLanguageServerDefinitions matched = computeMatchedLanguageServerDefinitions(file, fileProject, language, fileType);
+        CompletableFuture<Set<LanguageServerDefinition>> async = matched.getAsyncMatched();
+        if (async == null) {
+            cacheMatchedLanguageServerDefinitions(file, stamp, new CachedMatchedLanguageServerDefinitions(language, fileType, fileName, matched.getMatched()));
+            Set<LanguageServerDefinition> enabledDefinitions = getEnabledDefinitions(matched.getMatched());
+            return enabledDefinitions.isEmpty() ? MatchedLanguageServerDefinitions.NO_MATCH : new MatchedLanguageServerDefinitions(enabledDefinitions, null);
+        }
+        return new MatchedLanguageServerDefinitions(getEnabledDefinitions(matched.getMatched()), async
+                .thenApply(asyncServerDefinitions -> {
+                    Set<LanguageServerDefinition> allDefinitions = new HashSet<>(matched.getMatched());
+                    allDefinitions.addAll(asyncServerDefinitions);
+                    cacheMatchedLanguageServerDefinitions(file, stamp, new CachedMatchedLanguageServerDefinitions(language, fileType, fileName, allDefinitions));
+                    return getEnabledDefinitions(asyncServerDefinitions);
+                }));
+    }
+
+    private synchronized long getMatchedDefinitionsCacheStamp() {
+        return matchedDefinitionsCacheStamp;
+    }
+
+    private synchronized void cacheMatchedLanguageServerDefinitions(@NotNull VirtualFile file, long stamp, @NotNull CachedMatchedLanguageServerDefinitions matched) {
+        if (stamp == matchedDefinitionsCacheStamp) {
+            // The cache has not been invalidated while the server definitions were computed
+            matchedDefinitionsCache.put(file, matched);
+        }
+    }
+
+    private synchronized void invalidateMatchedLanguageServerDefinitions() {
+        matchedDefinitionsCacheStamp++;
+        matchedDefinitionsCache.clear();
+    }
+
+    private static @NotNull Set<LanguageServerDefinition> getEnabledDefinitions(@NotNull Set<LanguageServerDefinition> serverDefinitions) {
+        if (serverDefinitions.isEmpty()) {
+            return serverDefinitions;
+        }
+        for (LanguageServerDefinition serverDefinition : serverDefinitions) {
+            if (!serverDefinition.isEnabled()) {
+                return serverDefinitions
+                        .stream()
+                        .filter(LanguageServerDefinition::isEnabled)
+                        .collect(Collectors.toSet());
+            }
+        }
+        return serverDefinitions;
+    }
+
+    private MatchedLanguageServerDefinitions computeMatchedLanguageServerDefinitions(@NotNull VirtualFile file,
+                                                                                     @NotNull Project fileProject,
+                                                                                     @Nullable Language language,
+                                                                                     @Nullable FileType fileType) {
 
         Set<LanguageServerDefinition> syncMatchedDefinitions = null;
         Set<LanguageServerFileAssociation> asyncMatchedDefinitions = null;
@@ -299,11 +661,9 @@ public class LanguageServiceAccessor implements Disposable {
         // look for running language servers via content-type
         Queue<Object> languages = new LinkedList<>();
         Set<Object> processedContentTypes = new HashSet<>();
-        Language language = LSPIJUtils.getFileLanguage(file, project);
         if (language != null) {
             languages.add(language);
         }
-        FileType fileType = file.getFileType();
         if (fileType != null) {
             languages.add(fileType);
         }
@@ -323,9 +683,8 @@ public class LanguageServiceAccessor implements Disposable {
             // Loop for server/language mapping
             for (LanguageServerFileAssociation mapping : LanguageServersRegistry.getInstance()
                     .findLanguageServerDefinitionFor(currentLanguage, currentFileType, file)) {
-                if (mapping == null || !mapping.isEnabled() || (syncMatchedDefinitions != null && syncMatchedDefinitions.contains(mapping.getServerDefinition()))) {
-                    // the mapping is disabled
-                    // or the server definition has been already added
+                if (mapping == null || (syncMatchedDefinitions != null && syncMatchedDefinitions.contains(mapping.getServerDefinition()))) {
+                    // the server definition has been already added
                     continue;
                 }
                 if (mapping.shouldBeMatchedAsynchronously(fileProject)) {
@@ -449,9 +808,10 @@ public class LanguageServiceAccessor implements Disposable {
                 if (server == null) {
                     continue;
                 }
+                ServerCapabilities capabilities = wrapper.getServerCapabilitiesSnapshot();
                 if (request == null
-                        || wrapper.getServerCapabilities() == null /* null check is workaround for https://github.com/TypeFox/ls-api/issues/47 */
-                        || request.test(wrapper.getServerCapabilities())) {
+                        || capabilities == null /* null check is workaround for https://github.com/TypeFox/ls-api/issues/47 */
+                        || request.test(capabilities)) {
                     serverInfos.add(server);
                 }
             }
@@ -461,7 +821,11 @@ public class LanguageServiceAccessor implements Disposable {
 
     public boolean checkCapability(LanguageServer languageServer, Predicate<ServerCapabilities> condition) {
         return startedServers.stream().filter(wrapper -> wrapper.isActive() && wrapper.getServer() == languageServer)
-                .anyMatch(wrapper -> condition.test(wrapper.getServerCapabilities()));
+                .anyMatch(wrapper -> {
+                    // The capabilities are unknown while the language server is starting
+                    ServerCapabilities capabilities = wrapper.getServerCapabilitiesSnapshot();
+                    return capabilities != null && condition.test(capabilities);
+                });
     }
 
     public Optional<LanguageServerDefinition> resolveServerDefinition(LanguageServer languageServer) {
@@ -22,6 +22,7 @@ public enum ServerStatus {
     starting, // The language server process is starting
     started, // The language server is started without error
     stopping, // The language server is stopping
-    stopped // The language server is stopped with or without error;
+    stopped, // The language server is stopped with or without error;
+    coolingDown // The language server has crashed and waits for the restart delay
 
 }
@@ -11,6 +11,8 @@
 package org.microshed.lsp4ij.client;
 
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
@@ -19,6 +21,7 @@ import com.intellij.psi.PsiFile;
 import org.microshed.lsp4ij.LanguageServerWrapper;
 import org.microshed.lsp4ij.ServerMessageHandler;
 import org.microshed.lsp4ij.internal.InlayHintsFactoryBridge;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.features.diagnostics.LSPDiagnosticHandler;
 import org.eclipse.lsp4j.*;
@@ -85,27 +88,37 @@ public class LanguageClientImpl implements LanguageClient, Disposable {
 
     @Override
     public final void logMessage(MessageParams message) {
-        CompletableFuture.runAsync(() -> ServerMessageHandler.logMessage(wrapper, message));
+        CompletableFuture.runAsync(() -> ServerMessageHandler.logMessage(wrapper, message), LSP4IJExecutors.getClientExecutor());
     }
 
     @Override
     public final CompletableFuture<ApplyWorkspaceEditResponse> applyEdit(ApplyWorkspaceEditParams params) {
         CompletableFuture<ApplyWorkspaceEditResponse> future = new CompletableFuture<>();
-        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
-            LSPIJUtils.applyWorkspaceEdit(params.getEdit());
-            future.complete(new ApplyWorkspaceEditResponse(true));
-        });
+        // Apply the edit later to avoid blocking the thread which consumes the messages of the language server
+        // while waiting for the EDT (the response is sent when the edit has been applied).
+        // The documents must not be modified inside an unrelated modal dialog, so the edit is applied with the
+        // default modality state.
+        ApplicationManager.getApplication().invokeLater(() -> {
+            try {
+                WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+                    LSPIJUtils.applyWorkspaceEdit(params.getEdit(), null, wrapper.getPositionEncoding());
+                    future.complete(new ApplyWorkspaceEditResponse(true));
+                });
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }, ModalityState.defaultModalityState());
         return future;
     }
 
     @Override
     public CompletableFuture<Void> registerCapability(RegistrationParams params) {
-        return CompletableFuture.runAsync(() -> wrapper.registerCapability(params));
+        return CompletableFuture.runAsync(() -> wrapper.registerCapability(params), LSP4IJExecutors.getClientExecutor());
     }
 
     @Override
     public CompletableFuture<Void> unregisterCapability(UnregistrationParams params) {
-        return CompletableFuture.runAsync(() -> wrapper.unregisterCapability(params));
+        return CompletableFuture.runAsync(() -> wrapper.unregisterCapability(params), LSP4IJExecutors.getClientExecutor());
     }
 
     @Override
@@ -125,7 +138,7 @@ public class LanguageClientImpl implements LanguageClient, Disposable {
                 return;
             }
             refreshInlayHintsForAllOpenedFiles();
-        });
+        }, LSP4IJExecutors.getClientExecutor());
     }
 
     private void refreshInlayHintsForAllOpenedFiles() {
@@ -24,6 +24,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.microshed.lsp4ij.*;
 import org.microshed.lsp4ij.server.definition.LanguageServerDefinition;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.jetbrains.annotations.NotNull;
@@ -134,7 +135,7 @@ public class CommandExecutor {
                             ServerMessageHandler.showMessage(languageServerDefinition.getDisplayName(), messageParams);
                             return error;
                         });
-            });
+            }, LSP4IJExecutors.getFeatureExecutor());
             return true;
         } catch (IOException e) {
             // log and let the code fall through for LSPEclipseUtils to handle
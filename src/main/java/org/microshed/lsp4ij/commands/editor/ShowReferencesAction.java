@@ -10,7 +10,6 @@
  ******************************************************************************/
 package org.microshed.lsp4ij.commands.editor;
 
-import com.google.gson.JsonArray;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.DataContext;
@@ -24,6 +23,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -74,15 +74,12 @@ public class ShowReferencesAction extends LSPCommandAction {
          */
 
         // Get the third argument (List of Location)
-        JsonArray array = (JsonArray) command.getArgumentAt(2);
+        // (a JsonArray, or a list of Location with an in-process language server in direct mode)
+        Location[] array = JSONUtils.toModel(command.getArgumentAt(2), Location[].class);
         if (array == null) {
             return;
         }
-        // Get LSP4J Location from the JSON locations array
-        final List<Location> locations = new ArrayList<>();
-        for (int i = 0; i < array.size(); i++) {
-            locations.add(JSONUtils.toModel(array.get(i), Location.class));
-        }
+        final List<Location> locations = new ArrayList<>(Arrays.asList(array));
         DataContext dataContext = e.getDataContext();
         // Call "Find Usages" in popup mode.
         LSPUsagesManager.getInstance(project).findShowUsagesInPopup(locations, dataContext, (MouseEvent) e.getInputEvent());
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.microshed.lsp4ij.console;
 
+import com.intellij.execution.filters.TextConsoleBuilderFactory;
 import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.Disposable;
@@ -27,6 +28,7 @@ import com.intellij.ui.CardLayoutPanel;
 import com.intellij.ui.OnePixelSplitter;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.util.ui.JBUI;
+import org.microshed.lsp4ij.LanguageServerWrapper;
 import org.microshed.lsp4ij.LanguageServersRegistry;
 import org.microshed.lsp4ij.console.actions.ApplyLanguageServerSettingsAction;
 import org.microshed.lsp4ij.console.actions.ResetLanguageServerSettingsAction;
@@ -165,6 +167,8 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
 
         private ConsoleView consoleView;
 
+        private ConsoleView errorOutputView;
+
         private final Set<UserDefinedLanguageServerSettingsListener> settingsChangeListeners = new HashSet<UserDefinedLanguageServerSettingsListener>();
 
         private final Set<LanguageServerDefinitionListener> serverDefinitionListeners = new HashSet<>();
@@ -179,10 +183,17 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
                 showDetail();
             } else if (key instanceof LanguageServerProcessTreeNode) {
                 // Create console view
-                consoleView = createConsoleView(((LanguageServerProcessTreeNode) key).getLanguageServer().getServerDefinition(), project);
+                LanguageServerWrapper languageServer = ((LanguageServerProcessTreeNode) key).getLanguageServer();
+                consoleView = createConsoleView(languageServer.getServerDefinition(), project);
                 Disposer.register(LSPConsoleToolWindowPanel.this, consoleView);
-                add(consoleView.getComponent(), NAME_VIEW_CONSOLE);
                 configureConsoleToolbar(consoleView);
+                // Create the error output view, displayed under the traces, filled with the error output
+                // already written by the language server process
+                errorOutputView = createErrorOutputView(project);
+                Disposer.register(LSPConsoleToolWindowPanel.this, errorOutputView);
+                configureConsoleToolbar(errorOutputView);
+                errorOutputView.print(languageServer.getErrorLog().getText(), ConsoleViewContentType.ERROR_OUTPUT);
+                add(createConsoleSplitPanel(consoleView.getComponent(), errorOutputView.getComponent()), NAME_VIEW_CONSOLE);
                 showConsole();
             }
         }
@@ -233,6 +244,13 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
             consoleView.print(stacktrace, ConsoleViewContentType.ERROR_OUTPUT);
         }
 
+        public void showErrorOutput(String text) {
+            if (errorOutputView == null) {
+                return;
+            }
+            errorOutputView.print(text, ConsoleViewContentType.ERROR_OUTPUT);
+        }
+
         @Override
         public void dispose() {
             for (UserDefinedLanguageServerSettingsListener settingsChangeListener : settingsChangeListeners) {
@@ -247,6 +265,9 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
             if (consoleView != null) {
                 consoleView.dispose();
             }
+            if (errorOutputView != null) {
+                errorOutputView.dispose();
+            }
         }
     }
 
@@ -355,6 +376,19 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
         return builder.getConsole();
     }
 
+    private static ConsoleView createErrorOutputView(@NotNull Project project) {
+        var builder = TextConsoleBuilderFactory.getInstance().createBuilder(project);
+        builder.setViewer(true);
+        return builder.getConsole();
+    }
+
+    private static JComponent createConsoleSplitPanel(JComponent traces, JComponent errorOutput) {
+        OnePixelSplitter splitter = new OnePixelSplitter(true, 0.75f);
+        splitter.setFirstComponent(traces);
+        splitter.setSecondComponent(errorOutput);
+        return splitter;
+    }
+
     public void showMessage(LanguageServerProcessTreeNode processTreeNode, String message) {
         if (isDisposed()) {
             return;
@@ -375,6 +409,19 @@ public class LSPConsoleToolWindowPanel extends SimpleToolWindowPanel implements
         }
     }
 
+    public void showErrorOutput(LanguageServerProcessTreeNode processTreeNode, String text) {
+        if (isDisposed()) {
+            return;
+        }
+        var consoleOrErrorPanel = consoles.getValue(processTreeNode, false);
+        if (consoleOrErrorPanel == null) {
+            // The created console is filled with the error log, which already contains the given text
+            consoles.getValue(processTreeNode, true);
+            return;
+        }
+        consoleOrErrorPanel.showErrorOutput(text);
+    }
+
 
     /**
      * Configure console toolbar on the right of the console to provide some action like "Scroll to End", "Clean", etc
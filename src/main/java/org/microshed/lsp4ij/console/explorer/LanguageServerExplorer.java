@@ -208,6 +208,7 @@ public class LanguageServerExplorer extends SimpleToolWindowPanel implements Dis
                                 break;
                             case stopping:
                             case stopped:
+                            case coolingDown:
                                 // Restart language server action
                                 group = new DefaultActionGroup();
                                 AnAction restartServerAction = ActionManager.getInstance().getAction(RestartServerAction.ACTION_ID);
@@ -268,6 +269,10 @@ public class LanguageServerExplorer extends SimpleToolWindowPanel implements Dis
         panel.showError(processTreeNode, exception);
     }
 
+    public void showErrorOutput(LanguageServerProcessTreeNode processTreeNode, String text) {
+        panel.showErrorOutput(processTreeNode, text);
+    }
+
     public DefaultTreeModel getTreeModel() {
         return (DefaultTreeModel) tree.getModel();
     }
@@ -77,6 +77,15 @@ public class LanguageServerExplorerLifecycleListener implements LanguageServerLi
         invokeLater(() -> showError(processTreeNode, exception));
     }
 
+    @Override
+    public void handleErrorOutput(LanguageServerWrapper languageServer, String text) {
+        if (explorer.isDisposed()) {
+            return;
+        }
+        LanguageServerProcessTreeNode processTreeNode = updateServerStatus(languageServer, null, false);
+        invokeLater(() -> showErrorOutput(processTreeNode, text));
+    }
+
     private TracingMessageConsumer getLSPRequestCacheFor(LanguageServerWrapper languageServer) {
         TracingMessageConsumer cache = tracingPerServer.get(languageServer);
         if (cache != null) {
@@ -121,7 +130,7 @@ public class LanguageServerExplorerLifecycleListener implements LanguageServerLi
             // Should never occur.
             return null;
         }
-        var processTreeNode = serverNode.getActiveProcessTreeNode();
+        var processTreeNode = serverNode.getProcessTreeNode(languageServer);
         if (processTreeNode == null) {
             var treeModel = explorer.getTreeModel();
             processTreeNode = new LanguageServerProcessTreeNode(languageServer, treeModel);
@@ -130,7 +139,8 @@ public class LanguageServerExplorerLifecycleListener implements LanguageServerLi
                 serverStatus = languageServer.getServerStatus();
             }
             selectProcess = true;
-            serverNode.add(processTreeNode);
+            // The process of the last started language server (ex : a hot standby) is the first node
+            serverNode.insert(processTreeNode, 0);
         }
         boolean serverStatusChanged = serverStatus != null && serverStatus != processTreeNode.getServerStatus();
         boolean updateUI = serverStatusChanged || selectProcess;
@@ -168,6 +178,13 @@ public class LanguageServerExplorerLifecycleListener implements LanguageServerLi
         explorer.showError(processTreeNode, exception);
     }
 
+    private void showErrorOutput(LanguageServerProcessTreeNode processTreeNode, String text) {
+        if (explorer.isDisposed()) {
+            return;
+        }
+        explorer.showErrorOutput(processTreeNode, text);
+    }
+
     public boolean isDisposed() {
         return disposed;
     }
@@ -16,12 +16,14 @@ package org.microshed.lsp4ij.console.explorer;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.util.text.Formats;
 import com.intellij.ui.AnimatedIcon;
+import org.microshed.lsp4ij.LanguageServerRestartPolicy;
 import org.microshed.lsp4ij.LanguageServerWrapper;
 import org.microshed.lsp4ij.ServerStatus;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Language server process node.
@@ -55,6 +57,7 @@ public class LanguageServerProcessTreeNode extends DefaultMutableTreeNode {
                 break;
             case stopped:
             case started:
+            case coolingDown:
                 startTime = -1;
                 break;
         }
@@ -68,7 +71,17 @@ public class LanguageServerProcessTreeNode extends DefaultMutableTreeNode {
         }
         Throwable serverError = languageServer.getServerError();
         StringBuilder name = new StringBuilder();
-        if (serverError == null) {
+        if (serverStatus == ServerStatus.coolingDown) {
+            // ex : cooling down [2/5 crashes in 180s]
+            LanguageServerRestartPolicy restartPolicy = languageServer.getRestartPolicy();
+            name.append("cooling down [");
+            name.append(restartPolicy.getCrashCount());
+            name.append("/");
+            name.append(restartPolicy.getCrashLoopThreshold());
+            name.append(" crashes in ");
+            name.append(TimeUnit.MILLISECONDS.toSeconds(restartPolicy.getCrashLoopWindow()));
+            name.append("s]");
+        } else if (serverError == null) {
             name.append(serverStatus.name());
         } else {
             name.append(serverStatus == ServerStatus.stopped ? "crashed" : serverStatus.name());
@@ -112,6 +125,8 @@ public class LanguageServerProcessTreeNode extends DefaultMutableTreeNode {
                     return AllIcons.RunConfigurations.TestError;
                 }
                 return AllIcons.Actions.Suspend;
+            case coolingDown:
+                return AllIcons.General.Warning;
             default:
                 return RUNNING_ICON;
         }
@@ -126,4 +141,14 @@ public class LanguageServerProcessTreeNode extends DefaultMutableTreeNode {
         long duration = endTime - startTime;
         return Formats.formatDuration(duration, "\u2009");
     }
+
+    /**
+     * Returns the remaining time before the crashed language server can be restarted.
+     *
+     * @return the remaining time before the crashed language server can be restarted.
+     */
+    public String getRemainingCoolDownTime() {
+        long remaining = languageServer.getRestartPolicy().getRemainingCoolDown();
+        return "restart in " + Formats.formatDuration(remaining, "\u2009");
+    }
 }
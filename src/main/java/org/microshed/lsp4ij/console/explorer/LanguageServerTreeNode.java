@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.microshed.lsp4ij.console.explorer;
 
+import org.microshed.lsp4ij.LanguageServerWrapper;
 import org.microshed.lsp4ij.server.definition.LanguageServerDefinition;
 
 import javax.swing.*;
@@ -40,6 +41,22 @@ public class LanguageServerTreeNode extends DefaultMutableTreeNode {
         return null;
     }
 
+    /**
+     * Returns the process node of the given language server and null otherwise.
+     *
+     * @param languageServer the language server.
+     * @return the process node of the given language server and null otherwise.
+     */
+    public LanguageServerProcessTreeNode getProcessTreeNode(LanguageServerWrapper languageServer) {
+        for (int i = 0; i < super.getChildCount(); i++) {
+            LanguageServerProcessTreeNode processTreeNode = (LanguageServerProcessTreeNode) super.getChildAt(i);
+            if (processTreeNode.getLanguageServer() == languageServer) {
+                return processTreeNode;
+            }
+        }
+        return null;
+    }
+
     public Icon getIcon() {
         return serverDefinition.getIcon();
     }
@@ -66,10 +66,14 @@ public class LanguageServerTreeRenderer extends ColoredTreeCellRenderer {
             setIcon(languageProcessTreeNode.getIcon());
             append(languageProcessTreeNode.getDisplayName());
 
-            if (languageProcessTreeNode.getServerStatus() == ServerStatus.starting
-                    || languageProcessTreeNode.getServerStatus() == ServerStatus.stopping) {
+            ServerStatus serverStatus = languageProcessTreeNode.getServerStatus();
+            if (serverStatus == ServerStatus.starting
+                    || serverStatus == ServerStatus.stopping
+                    || serverStatus == ServerStatus.coolingDown) {
                 // Display elapsed time when language server is starting/stopping
-                myDurationText = languageProcessTreeNode.getElapsedTime();
+                // and the remaining time before the restart when language server is cooling down
+                myDurationText = serverStatus == ServerStatus.coolingDown ?
+                        languageProcessTreeNode.getRemainingCoolDownTime() : languageProcessTreeNode.getElapsedTime();
                 final var durationText = myDurationText;
                 if (durationText != null) {
                     FontMetrics metrics = getFontMetrics(RelativeFont.SMALL.derive(getFont()));
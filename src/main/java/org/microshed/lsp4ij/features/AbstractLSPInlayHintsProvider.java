@@ -22,6 +22,7 @@ import com.intellij.ui.layout.LayoutKt;
 import org.microshed.lsp4ij.LanguageServersRegistry;
 import org.microshed.lsp4ij.commands.CommandExecutor;
 import org.microshed.lsp4ij.internal.InlayHintsFactoryBridge;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.Command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -95,7 +96,7 @@ public abstract class AbstractLSPInlayHintsProvider implements InlayHintsProvide
                                         InlayHintsFactoryBridge.refreshInlayHints(psiFile, new Editor[]{editor}, false);
                                     }
                                     return null;
-                                });
+                                }, LSP4IJExecutors.getFeatureExecutor());
                     }
                 } catch (CancellationException e) {
                     // Do nothing
@@ -66,11 +66,29 @@ public interface LSPPsiElementFactory<T extends LSPPsiElement> {
     public static <T extends LSPPsiElement> T toPsiElement(@NotNull Location location,
                                                            @NotNull Project project,
                                                            @NotNull LSPPsiElementFactory<T> factory) {
+        return toPsiElement(location, null, project, factory);
+    }
+
+    /**
+     * Create an instance of {@link LSPPsiElement} by using the given factory from the given LSP location
+     * expressed with the given position encoding and null otherwise.
+     *
+     * @param location         the LSP location.
+     * @param positionEncoding the position encoding used by the language server, UTF-16 if null.
+     * @param factory          the LSP Psi element factory.
+     * @param project          the project.
+     * @return an instance of {@link LSPPsiElement} from the given LSP location and null otherwise.
+     */
+    @Nullable
+    public static <T extends LSPPsiElement> T toPsiElement(@NotNull Location location,
+                                                           @Nullable String positionEncoding,
+                                                           @NotNull Project project,
+                                                           @NotNull LSPPsiElementFactory<T> factory) {
         if (ApplicationManager.getApplication().isReadAccessAllowed()) {
-            return doToPsiElement(location.getUri(), location.getRange(), project, factory);
+            return doToPsiElement(location.getUri(), location.getRange(), positionEncoding, project, factory);
         }
         return ReadAction.compute(() -> {
-            return doToPsiElement(location.getUri(), location.getRange(), project, factory);
+            return doToPsiElement(location.getUri(), location.getRange(), positionEncoding, project, factory);
         });
     }
 
@@ -98,17 +116,36 @@ public interface LSPPsiElementFactory<T extends LSPPsiElement> {
     public static <T extends LSPPsiElement> T toPsiElement(@NotNull LocationLink location,
                                                            @NotNull Project project,
                                                            @NotNull LSPPsiElementFactory<T> factory) {
+        return toPsiElement(location, null, project, factory);
+    }
+
+    /**
+     * Create an instance of {@link LSPPsiElement} by using the given factory from the given LSP location link
+     * expressed with the given position encoding and null otherwise.
+     *
+     * @param location         the LSP location link.
+     * @param positionEncoding the position encoding used by the language server, UTF-16 if null.
+     * @param factory          the LSP Psi element factory.
+     * @param project          the project.
+     * @return an instance of {@link LSPPsiElement} by using the given factory from the given LSP location link and null otherwise.
+     */
+    @Nullable
+    public static <T extends LSPPsiElement> T toPsiElement(@NotNull LocationLink location,
+                                                           @Nullable String positionEncoding,
+                                                           @NotNull Project project,
+                                                           @NotNull LSPPsiElementFactory<T> factory) {
         if (ApplicationManager.getApplication().isReadAccessAllowed()) {
-            return doToPsiElement(location.getTargetUri(), location.getTargetRange(), project, factory);
+            return doToPsiElement(location.getTargetUri(), location.getTargetRange(), positionEncoding, project, factory);
         }
         return ReadAction.compute(() -> {
-            return doToPsiElement(location.getTargetUri(), location.getTargetRange(), project, factory);
+            return doToPsiElement(location.getTargetUri(), location.getTargetRange(), positionEncoding, project, factory);
         });
     }
 
     @Nullable
     private static <T extends LSPPsiElement> T doToPsiElement(@Nullable String uri,
                                                               @Nullable Range range,
+                                                              @Nullable String positionEncoding,
                                                               @NotNull Project project,
                                                               @NotNull LSPPsiElementFactory<T> factory) {
         if (uri == null || range == null) {
@@ -122,7 +159,7 @@ public interface LSPPsiElementFactory<T extends LSPPsiElement> {
         if (document == null) {
             return null;
         }
-        TextRange textRange = LSPIJUtils.toTextRange(range, document);
+        TextRange textRange = LSPIJUtils.toTextRange(range, document, positionEncoding);
         if (textRange == null) {
             return null;
         }
@@ -77,7 +77,7 @@ public class LSPLazyCodeActionIntentionAction implements IntentionAction {
         String serverId = getLanguageServerWrapper().getServerDefinition().getId();
         if (codeAction != null) {
             if (codeAction.getEdit() == null && codeAction.getCommand() == null
-                    && LanguageServerItem.isCodeActionResolveSupported(getLanguageServerWrapper().getServerCapabilities())) {
+                    && LanguageServerItem.isCodeActionResolveSupported(getLanguageServerWrapper().getServerCapabilitiesSnapshot())) {
                 // Unresolved code action "edit" property. Resolve it.
                 getLanguageServerWrapper().getInitializedServer()
                         .thenApply(ls ->
@@ -103,7 +103,7 @@ public class LSPLazyCodeActionIntentionAction implements IntentionAction {
     private void apply(CodeAction codeaction, @NotNull Project project, PsiFile file, String serverId) {
         if (codeaction != null) {
             if (codeaction.getEdit() != null) {
-                LSPIJUtils.applyWorkspaceEdit(codeaction.getEdit(), codeaction.getTitle());
+                LSPIJUtils.applyWorkspaceEdit(codeaction.getEdit(), codeaction.getTitle(), getLanguageServerWrapper().getPositionEncoding());
             }
             if (codeaction.getCommand() != null) {
                 executeCommand(codeaction.getCommand(), project, file, serverId);
@@ -29,6 +29,7 @@ import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServersRegistry;
 import org.microshed.lsp4ij.commands.CommandExecutor;
 import org.microshed.lsp4ij.internal.StringUtils;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import kotlin.Pair;
 import org.eclipse.lsp4j.CodeLens;
 import org.eclipse.lsp4j.Command;
@@ -159,7 +160,7 @@ public class LSPCodeLensProvider implements CodeVisionProvider<Void> {
                         // Code lens is valid, create the proper code vision entry and text range.
                         String text = codeLens.getCommand().getTitle();
                         if (!StringUtils.isEmpty(text)) {
-                            TextRange textRange = LSPIJUtils.toTextRange(codeLens.getRange(), editor.getDocument(), true);
+                            TextRange textRange = LSPIJUtils.toTextRange(codeLens.getRange(), editor.getDocument(), true, codeLensData.languageServer().getPositionEncoding());
                             CodeVisionEntry entry = createCodeVisionEntry(codeLens, nbCodeLensForCurrentLine, codeLensData.languageServer(), project);
                             result.add(new Pair<>(textRange, entry));
                         }
@@ -210,8 +211,7 @@ public class LSPCodeLensProvider implements CodeVisionProvider<Void> {
                                         UIUtil.invokeLaterIfNeeded(() ->
                                                 CommandExecutor.executeCommandClientSide(command, null, editor, project, null, e));
                                     }
-                                }
-                        );
+                                }, LSP4IJExecutors.getFeatureExecutor());
             } else {
                 CommandExecutor.executeCommandClientSide(command, null, editor, project, null, e);
             }
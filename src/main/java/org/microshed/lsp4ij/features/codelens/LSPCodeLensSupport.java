@@ -18,6 +18,7 @@ import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.CodeLens;
@@ -78,7 +79,7 @@ public class LSPCodeLensSupport extends AbstractLSPFeatureSupport<CodeLensParams
 
                     // Merge list of textDocument/codelens future in one future which return the list of code lenses
                     return CompletableFutures.mergeInOneFuture(codeLensPerServerFutures, cancellationSupport);
-                })
+                }, LSP4IJExecutors.getFeatureExecutor())
                 .thenApply(codeLensData -> {
                     // Sort codelens by line number
                     codeLensData.sort(LSPCodeLensProvider::sortCodeLensByLine);
@@ -114,7 +115,7 @@ public class LSPCodeLensSupport extends AbstractLSPFeatureSupport<CodeLensParams
                                 }
                             });
                     return data;
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static boolean isValidCodeLens(CodeLens codeLens) {
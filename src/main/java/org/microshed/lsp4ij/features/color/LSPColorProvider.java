@@ -16,22 +16,21 @@ import com.intellij.codeInsight.hints.presentation.PresentationFactory;
 import com.intellij.codeInsight.hints.presentation.SequencePresentation;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.util.Pair;
 import com.intellij.psi.PsiFile;
 import org.microshed.lsp4ij.LSPFileSupport;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.features.AbstractLSPInlayHintsProvider;
+import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.eclipse.lsp4j.Color;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -77,14 +76,14 @@ public class LSPColorProvider extends AbstractLSPInlayHintsProvider {
             List<ColorData> data = future.getNow(Collections.emptyList());
             fillColor(document, data, colorInformation);
         } else {
-            while (!future.isDone()) {
-                ProgressManager.checkCanceled();
-                try {
-                    List<ColorData> data = future.get(25, TimeUnit.MILLISECONDS);
-                    fillColor(document, data, colorInformation);
-                } catch (TimeoutException | ExecutionException e) {
-                    // Do nothing
-                }
+            try {
+                CompletableFutures.waitUntilDone(future);
+            } catch (CancellationException | ExecutionException e) {
+                // Do nothing
+            }
+            if (CompletableFutures.isDoneNormally(future)) {
+                List<ColorData> data = future.getNow(Collections.emptyList());
+                fillColor(document, data, colorInformation);
             }
         }
         return colorInformation;
@@ -92,7 +91,7 @@ public class LSPColorProvider extends AbstractLSPInlayHintsProvider {
 
     private static void fillColor(Document document, List<ColorData> data, List<Pair<Integer, ColorData>> colors) {
         for (var codeLensData : data) {
-            int offset = LSPIJUtils.toOffset(codeLensData.color().getRange().getStart(), document);
+            int offset = LSPIJUtils.toOffset(codeLensData.color().getRange().getStart(), document, codeLensData.languageServer().getPositionEncoding());
             colors.add(Pair.create(offset, codeLensData));
         }
     }
@@ -18,6 +18,7 @@ import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.DocumentColorParams;
@@ -76,7 +77,7 @@ public class LSPColorSupport extends AbstractLSPFeatureSupport<DocumentColorPara
 
                     // Merge list of textDocument/documentColor future in one future which return the list of color information
                     return CompletableFutures.mergeInOneFuture(colorInformationPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static CompletableFuture<List<ColorData>> getColorsFor(@NotNull DocumentColorParams params,
@@ -94,7 +95,7 @@ public class LSPColorSupport extends AbstractLSPFeatureSupport<DocumentColorPara
                             .filter(Objects::nonNull)
                             .map(color -> new ColorData(color, languageServer))
                             .toList();
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
 
@@ -35,13 +35,19 @@ public class CompletionPrefix {
     private final int completionOffset;
     private final Position completionPos;
     private final Document document;
+    private final String positionEncoding;
 
     private final Map<Range, String /* prefix */> prefixCache;
 
     public CompletionPrefix(int completionOffset, Document document) {
+        this(completionOffset, document, null);
+    }
+
+    public CompletionPrefix(int completionOffset, Document document, @Nullable String positionEncoding) {
         this.completionOffset = completionOffset;
         this.document = document;
-        this.completionPos = LSPIJUtils.toPosition(completionOffset, document);
+        this.positionEncoding = positionEncoding;
+        this.completionPos = LSPIJUtils.toPosition(completionOffset, document, positionEncoding);
         this.prefixCache = new HashMap<>();
     }
 
@@ -66,7 +72,7 @@ public class CompletionPrefix {
         if (prefix == null && !prefixCache.containsKey(textEditRange)) {
             // Compute the prefix which can be null
             // ex : {#ea|ch will return {#ea
-            prefix = CompletionProposalTools.getCompletionPrefix(completionPos, textEditRange, document);
+            prefix = CompletionProposalTools.getCompletionPrefix(completionPos, textEditRange, document, positionEncoding);
             prefixCache.put(textEditRange, prefix);
         }
         if (prefix == null) {
@@ -20,6 +20,7 @@ import com.intellij.psi.codeStyle.CodeStyleSettings;
 import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
 import com.intellij.psi.impl.PsiManagerEx;
 import com.intellij.psi.templateLanguages.TemplateLanguageFileViewProvider;
+import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.features.completion.snippet.LspSnippetIndentOptions;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
@@ -39,12 +40,15 @@ public final class CompletionProposalTools {
     // ----------------- Prefix utilities
 
     public static @Nullable String getCompletionPrefix(@NotNull Position completionPos, @NotNull Range textEditRange, @NotNull Document document) {
+        return getCompletionPrefix(completionPos, textEditRange, document, null);
+    }
+
+    public static @Nullable String getCompletionPrefix(@NotNull Position completionPos, @NotNull Range textEditRange, @NotNull Document document, @Nullable String positionEncoding) {
         if (Ranges.containsPosition(textEditRange, completionPos)) {
             // ex : {#ea|ch
             // here the prefix to return should be {#ea
-            int lineStartOffset = document.getLineStartOffset(completionPos.getLine());
-            int startOffset = lineStartOffset + textEditRange.getStart().getCharacter();
-            int endOffset = lineStartOffset + completionPos.getCharacter();
+            int startOffset = LSPIJUtils.toOffset(new Position(completionPos.getLine(), textEditRange.getStart().getCharacter()), document, positionEncoding);
+            int endOffset = LSPIJUtils.toOffset(completionPos, document, positionEncoding);
             return document.getCharsSequence().subSequence(startOffset, endOffset).toString();
         } else {
             return null;
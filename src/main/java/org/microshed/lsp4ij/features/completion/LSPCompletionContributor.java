@@ -29,7 +29,9 @@ import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServersRegistry;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.internal.StringUtils;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
@@ -72,6 +74,7 @@ public class LSPCompletionContributor extends CompletionContributor {
         ProgressManager.checkCanceled();
 
         final CancellationSupport cancellationSupport = new CancellationSupport();
+        Runnable unregisterCanceledAction = null;
         try {
             CompletableFuture<List<LanguageServerItem>> completionLanguageServersFuture = initiateLanguageServers(file, project);
             cancellationSupport.execute(completionLanguageServersFuture);
@@ -82,7 +85,6 @@ public class LSPCompletionContributor extends CompletionContributor {
              more characters as toProposals will require as read lock that this thread already have and
              async processing is occuring on a separate thread.
              */
-            CompletionParams params = LSPIJUtils.toCompletionParams(uri, offset, document);
             BlockingDeque<Pair<Either<List<CompletionItem>, CompletionList>, LanguageServerItem>> proposals = new LinkedBlockingDeque<>();
 
             CompletableFuture<Void> future = completionLanguageServersFuture
@@ -91,22 +93,29 @@ public class LSPCompletionContributor extends CompletionContributor {
                                     .map(languageServer ->
                                             cancellationSupport.execute(languageServer.getServer()
                                                             .getTextDocumentService()
-                                                            .completion(params), languageServer, LSPRequestConstants.TEXT_DOCUMENT_COMPLETION)
+                                                            .completion(LSPIJUtils.toCompletionParams(uri, offset, document, languageServer.getPositionEncoding())), languageServer, LSPRequestConstants.TEXT_DOCUMENT_COMPLETION)
                                                     .thenAcceptAsync(completion -> {
                                                         if (completion != null) {
                                                             proposals.add(new Pair<>(completion, languageServer));
                                                         }
-                                                    }))
-                                    .toArray(CompletableFuture[]::new))));
+                                                    }, LSP4IJExecutors.getFeatureExecutor()))
+                                    .toArray(CompletableFuture[]::new))), LSP4IJExecutors.getFeatureExecutor());
+
+            // Marker added when all completion responses have been received or when the completion is cancelled,
+            // to wake up the loop instead of polling the future every 25 ms.
+            final Pair<Either<List<CompletionItem>, CompletionList>, LanguageServerItem> endOfProposals = new Pair<>(null, null);
+            future.whenComplete((unused, error) -> proposals.add(endOfProposals));
+            unregisterCanceledAction = CompletableFutures.onProgressCanceled(() -> proposals.add(endOfProposals));
+            long checkCanceledInterval = CompletableFutures.getCheckCanceledInterval(unregisterCanceledAction != null);
 
             ProgressManager.checkCanceled();
             while (!future.isDone() || !proposals.isEmpty()) {
                 ProgressManager.checkCanceled();
-                Pair<Either<List<CompletionItem>, CompletionList>, LanguageServerItem> pair = proposals.poll(25, TimeUnit.MILLISECONDS);
-                if (pair != null) {
+                Pair<Either<List<CompletionItem>, CompletionList>, LanguageServerItem> pair = proposals.poll(checkCanceledInterval, TimeUnit.NANOSECONDS);
+                if (pair != null && pair != endOfProposals) {
                     Either<List<CompletionItem>, CompletionList> completion = pair.getFirst();
                     if (completion != null) {
-                        CompletionPrefix completionPrefix = new CompletionPrefix(offset, document);
+                        CompletionPrefix completionPrefix = new CompletionPrefix(offset, document, pair.getSecond().getPositionEncoding());
                         addCompletionItems(psiFile, editor, completionPrefix, pair.getFirst(), pair.getSecond(), result, cancellationSupport);
                     }
                 }
@@ -117,6 +126,10 @@ public class LSPCompletionContributor extends CompletionContributor {
         } catch (RuntimeException | InterruptedException e) {
             LOGGER.warn(e.getLocalizedMessage(), e);
             result.addElement(createErrorProposal(offset, e));
+        } finally {
+            if (unregisterCanceledAction != null) {
+                unregisterCanceledAction.run();
+            }
         }
     }
 
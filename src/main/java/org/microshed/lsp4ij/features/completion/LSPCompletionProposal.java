@@ -183,13 +183,13 @@ public class LSPCompletionProposal extends LookupElement {
         if (textEdit != null) {
             if (textEdit.isLeft()) {
                 try {
-                    return LSPIJUtils.toOffset(this.item.getTextEdit().getLeft().getRange().getStart(), document);
+                    return LSPIJUtils.toOffset(this.item.getTextEdit().getLeft().getRange().getStart(), document, languageServer.getPositionEncoding());
                 } catch (RuntimeException e) {
                     LOGGER.warn(e.getLocalizedMessage(), e);
                 }
             } else {
                 try {
-                    return LSPIJUtils.toOffset(this.item.getTextEdit().getRight().getInsert().getStart(), document);
+                    return LSPIJUtils.toOffset(this.item.getTextEdit().getRight().getInsert().getStart(), document, languageServer.getPositionEncoding());
                 } catch (RuntimeException e) {
                     LOGGER.warn(e.getLocalizedMessage(), e);
                 }
@@ -262,8 +262,8 @@ public class LSPCompletionProposal extends LookupElement {
         try {
             if (textEdit == null) {
                 insertText = getInsertText();
-                Position start = LSPIJUtils.toPosition(this.bestOffset, document);
-                Position end = LSPIJUtils.toPosition(offset, document); // need 2 distinct objects
+                Position start = LSPIJUtils.toPosition(this.bestOffset, document, languageServer.getPositionEncoding());
+                Position end = LSPIJUtils.toPosition(offset, document, languageServer.getPositionEncoding()); // need 2 distinct objects
                 textEdit = new TextEdit(new Range(start, end), insertText);
             } else if (offset > this.initialOffset) {
                 // characters were added after completion was activated
@@ -279,7 +279,7 @@ public class LSPCompletionProposal extends LookupElement {
                 }
             }
             { // allow completion items to be wrong with a too wide range
-                Position documentEnd = LSPIJUtils.toPosition(document.getTextLength(), document);
+                Position documentEnd = LSPIJUtils.toPosition(document.getTextLength(), document, languageServer.getPositionEncoding());
                 Position textEditEnd = textEdit.getRange().getEnd();
                 if (documentEnd.getLine() < textEditEnd.getLine()
                         || (documentEnd.getLine() == textEditEnd.getLine() && documentEnd.getCharacter() < textEditEnd.getCharacter())) {
@@ -304,9 +304,9 @@ public class LSPCompletionProposal extends LookupElement {
                 List<TextEdit> allEdits = new ArrayList<>();
                 allEdits.add(textEdit);
                 allEdits.addAll(additionalEdits);
-                LSPIJUtils.applyEdits(editor, document, allEdits);
+                LSPIJUtils.applyEdits(editor, document, allEdits, languageServer.getPositionEncoding());
             } else {
-                LSPIJUtils.applyEdits(editor, document, Collections.singletonList(textEdit));
+                LSPIJUtils.applyEdits(editor, document, Collections.singletonList(textEdit), languageServer.getPositionEncoding());
             }
 
 
@@ -388,8 +388,8 @@ public class LSPCompletionProposal extends LookupElement {
             case TM_SELECTED_TEXT:
                 Range selectedRange = getTextEditRange();
                 try {
-                    int startOffset = LSPIJUtils.toOffset(selectedRange.getStart(), document);
-                    int endOffset = LSPIJUtils.toOffset(selectedRange.getEnd(), document);
+                    int startOffset = LSPIJUtils.toOffset(selectedRange.getStart(), document, languageServer.getPositionEncoding());
+                    int endOffset = LSPIJUtils.toOffset(selectedRange.getEnd(), document, languageServer.getPositionEncoding());
                     String selectedText = document.getText(new TextRange(startOffset, endOffset));
                     return selectedText;
                 } catch (RuntimeException e) {
@@ -94,7 +94,7 @@ public class LSPDiagnosticAnnotator extends ExternalAnnotator<Boolean, Boolean>
         // - when the offset is at the end of the line, the method returns a text range with the same  offset,
         // and annotation must be created with Annotation#setAfterEndOfLine(true).
         // - when the offset is inside the line, the end offset is incremented.
-        TextRange range = LSPIJUtils.toTextRange(diagnostic.getRange(), document, true);
+        TextRange range = LSPIJUtils.toTextRange(diagnostic.getRange(), document, true, diagnosticsForServer.getPositionEncoding());
         if (range == null) {
             // Language server reports invalid diagnostic, ignore it.
             return;
@@ -87,6 +87,11 @@ public class LSPDiagnosticHandler implements Consumer<PublishDiagnosticsParams>
         URI fileURI = LSPIJUtils.toUri(file);
         LSPVirtualFileData data = languageServerWrapper.getLSPVirtualFileData(fileURI);
         if (data != null) {
+            if (data.isSupersededVersion(params.getVersion())) {
+                // The diagnostics have been computed for an old content of the document,
+                // the language server will publish the diagnostics of the last content.
+                return;
+            }
             synchronized (data) {
                 data.updateDiagnostics(params.getDiagnostics());
             }
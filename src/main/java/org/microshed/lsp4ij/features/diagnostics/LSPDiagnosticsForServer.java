@@ -129,6 +129,15 @@ public class LSPDiagnosticsForServer {
         return diagnostics.keySet();
     }
 
+    /**
+     * Returns the position encoding used by the language server to express the diagnostics ranges.
+     *
+     * @return the position encoding used by the language server to express the diagnostics ranges.
+     */
+    public String getPositionEncoding() {
+        return languageServerWrapper.getPositionEncoding();
+    }
+
     /**
      * Returns Intellij quickfixes for the given diagnostic if there available.
      *
@@ -150,7 +159,7 @@ public class LSPDiagnosticsForServer {
             // We cannot use here languageServerWrapper.getServerCapabilities() otherwise it will restart the language server.
             return false;
         }
-        ServerCapabilities serverCapabilities = languageServerWrapper.getServerCapabilities();
+        ServerCapabilities serverCapabilities = languageServerWrapper.getServerCapabilitiesSnapshot();
         return serverCapabilities != null && LSPIJUtils.hasCapability(serverCapabilities.getCodeActionProvider());
     }
 
@@ -84,7 +84,7 @@ public class LSPDocumentLinkAnnotator extends ExternalAnnotator<List<DocumentLin
         }
         Document document = LSPIJUtils.getDocument(file.getVirtualFile());
         for (var documentLink : documentLinks) {
-            TextRange range = LSPIJUtils.toTextRange(documentLink.documentLink().getRange(), document);
+            TextRange range = LSPIJUtils.toTextRange(documentLink.documentLink().getRange(), document, documentLink.languageServer().getPositionEncoding());
             holder.newSilentAnnotation(HighlightInfoType.HIGHLIGHTED_REFERENCE_SEVERITY)
                     .range(range)
                     .textAttributes(DefaultLanguageHighlighterColors.HIGHLIGHTED_REFERENCE)
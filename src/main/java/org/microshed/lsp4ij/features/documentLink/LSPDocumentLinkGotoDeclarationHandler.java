@@ -83,7 +83,7 @@ public class LSPDocumentLinkGotoDeclarationHandler implements GotoDeclarationHan
             if (documentLinks != null) {
                 for (DocumentLinkData documentLinkData : documentLinks) {
                     DocumentLink documentLink = documentLinkData.documentLink();
-                    TextRange range = LSPIJUtils.toTextRange(documentLink.getRange(), document);
+                    TextRange range = LSPIJUtils.toTextRange(documentLink.getRange(), document, documentLinkData.languageServer().getPositionEncoding());
                     if (range.contains(offset)) {
                         // The Ctrl+Click has been done in a LSP document link,try to open the document.
                         final String target = documentLink.getTarget();
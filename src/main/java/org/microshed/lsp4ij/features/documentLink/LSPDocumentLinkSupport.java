@@ -19,6 +19,7 @@ import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.eclipse.lsp4j.DocumentLinkParams;
 import org.jetbrains.annotations.NotNull;
@@ -76,7 +77,7 @@ public class LSPDocumentLinkSupport extends AbstractLSPFeatureSupport<DocumentLi
 
                     // Merge list of textDocument/documentLink future in one future which return the list of document link
                     return CompletableFutures.mergeInOneFuture(linkInformationPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static CompletableFuture<List<DocumentLinkData>> getDocumentLinksFor(@NotNull DocumentLinkParams params,
@@ -94,7 +95,7 @@ public class LSPDocumentLinkSupport extends AbstractLSPFeatureSupport<DocumentLi
                             .filter(Objects::nonNull)
                             .map(color -> new DocumentLinkData(color, languageServer))
                             .toList();
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
 
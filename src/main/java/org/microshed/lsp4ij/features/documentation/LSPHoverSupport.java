@@ -19,6 +19,7 @@ import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
@@ -68,6 +69,7 @@ public class LSPHoverSupport extends AbstractLSPFeatureSupport<HoverParams, List
                                                                             @NotNull HoverParams params,
                                                                             @NotNull CancellationSupport cancellationSupport) {
 
+        Document document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LanguageServerItem::isHoverSupported)
                 .thenComposeAsync(languageServers -> {
@@ -80,12 +82,12 @@ public class LSPHoverSupport extends AbstractLSPFeatureSupport<HoverParams, List
                     // Collect list of textDocument/hover future for each language servers
                     List<CompletableFuture<MarkupContent>> hoverPerServerFutures = languageServers
                             .stream()
-                            .map(languageServer -> getHoverFor(params, languageServer, cancellationSupport))
+                            .map(languageServer -> getHoverFor(params, document, languageServer, cancellationSupport))
                             .toList();
 
                     // Merge list of textDocument/hover future in one future which return the list of highlights
                     return mergeInOneFuture(hoverPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     public static @NotNull CompletableFuture<List<MarkupContent>> mergeInOneFuture(@NotNull List<CompletableFuture<MarkupContent>> futures,
@@ -105,12 +107,17 @@ public class LSPHoverSupport extends AbstractLSPFeatureSupport<HoverParams, List
     }
 
     private static CompletableFuture<MarkupContent> getHoverFor(@NotNull HoverParams params,
+                                                                @Nullable Document document,
                                                                 @NotNull LanguageServerItem languageServer,
                                                                 @NotNull CancellationSupport cancellationSupport) {
+        // The params are expressed in UTF-16, convert them with the position encoding of the language server
+        HoverParams serverParams = document != null ?
+                new HoverParams(params.getTextDocument(), LSPIJUtils.toPosition(params.getPosition(), document, languageServer.getPositionEncoding())) :
+                params;
         return cancellationSupport.execute(languageServer
                         .getTextDocumentService()
-                        .hover(params), languageServer, LSPRequestConstants.TEXT_DOCUMENT_HOVER)
-                .thenApplyAsync(LSPHoverSupport::getHoverString);
+                        .hover(serverParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_HOVER)
+                .thenApplyAsync(LSPHoverSupport::getHoverString, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static @Nullable MarkupContent getHoverString(Hover hover) {
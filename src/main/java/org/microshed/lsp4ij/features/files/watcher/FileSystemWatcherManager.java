@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.features.files.watcher;
+
+import org.eclipse.lsp4j.FileChangeType;
+import org.eclipse.lsp4j.FileSystemWatcher;
+import org.eclipse.lsp4j.RelativePattern;
+import org.eclipse.lsp4j.WatchKind;
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Manages the file system watchers registered by a language server with the dynamic registration
+ * of 'workspace/didChangeWatchedFiles'.
+ *
+ * <p>
+ * The glob patterns of the watchers are compiled when they are registered, so that a file event
+ * can be checked quickly with {@link #isMatchFilePattern(URI, FileChangeType)}.
+ * </p>
+ */
+public class FileSystemWatcherManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemWatcherManager.class);
+
+    private record CompiledWatcher(@NotNull PathPatternMatcher matcher, int kind) {
+
+        boolean matches(@NotNull String path, @NotNull FileChangeType changeType) {
+            return (kind & toWatchKind(changeType)) != 0 && matcher.matches(path);
+        }
+    }
+
+    private final Map<String /* registration id */, List<CompiledWatcher>> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * Register the given file system watchers.
+     *
+     * @param id       the registration id.
+     * @param watchers the file system watchers.
+     */
+    public void registerFileSystemWatchers(@NotNull String id, @Nullable List<FileSystemWatcher> watchers) {
+        List<CompiledWatcher> compiledWatchers = new ArrayList<>();
+        if (watchers != null) {
+            for (FileSystemWatcher watcher : watchers) {
+                PathPatternMatcher matcher;
+                try {
+                    matcher = toMatcher(watcher.getGlobPattern());
+                } catch (PatternSyntaxException e) {
+                    // Invalid glob pattern (ex : 'foo[]'), the watcher is ignored
+                    LOGGER.warn("Invalid glob pattern of the file system watcher '" + id + "'", e);
+                    continue;
+                }
+                if (matcher != null) {
+                    int kind = watcher.getKind() != null ? watcher.getKind() : WatchKind.Create | WatchKind.Change | WatchKind.Delete;
+                    compiledWatchers.add(new CompiledWatcher(matcher, kind));
+                }
+            }
+        }
+        registrations.put(id, compiledWatchers);
+    }
+
+    /**
+     * Unregister the file system watchers of the given registration id.
+     *
+     * @param id the registration id.
+     */
+    public void unregisterFileSystemWatchers(@NotNull String id) {
+        registrations.remove(id);
+    }
+
+    /**
+     * Unregister all file system watchers.
+     */
+    public void clear() {
+        registrations.clear();
+    }
+
+    /**
+     * Returns true if the language server has registered some file system watchers and false otherwise.
+     *
+     * @return true if the language server has registered some file system watchers and false otherwise.
+     */
+    public boolean hasFilePatterns() {
+        return !registrations.isEmpty();
+    }
+
+    /**
+     * Returns true if the given file change matches a file system watcher registered by the language server and false otherwise.
+     *
+     * @param uri        the file Uri.
+     * @param changeType the file change type.
+     * @return true if the given file change matches a file system watcher registered by the language server and false otherwise.
+     */
+    public boolean isMatchFilePattern(@NotNull URI uri, @NotNull FileChangeType changeType) {
+        if (registrations.isEmpty()) {
+            return false;
+        }
+        String path = uri.getPath();
+        if (path == null) {
+            return false;
+        }
+        for (List<CompiledWatcher> watchers : registrations.values()) {
+            for (CompiledWatcher watcher : watchers) {
+                if (watcher.matches(path, changeType)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable PathPatternMatcher toMatcher(@Nullable Either<String, RelativePattern> globPattern) {
+        if (globPattern == null) {
+            return null;
+        }
+        if (globPattern.isLeft()) {
+            String pattern = globPattern.getLeft();
+            return pattern != null ? new PathPatternMatcher(pattern, null) : null;
+        }
+        RelativePattern relativePattern = globPattern.getRight();
+        if (relativePattern == null || relativePattern.getPattern() == null || relativePattern.getBaseUri() == null) {
+            return null;
+        }
+        Either<WorkspaceFolder, String> baseUri = relativePattern.getBaseUri();
+        String base = baseUri.isLeft() ? baseUri.getLeft().getUri() : baseUri.getRight();
+        String basePath = base != null ? getBasePath(base) : null;
+        if (basePath == null) {
+            return null;
+        }
+        return new PathPatternMatcher(relativePattern.getPattern(), basePath);
+    }
+
+    private static @Nullable String getBasePath(@NotNull String baseUri) {
+        try {
+            String path = URI.create(baseUri).getPath();
+            if (path == null) {
+                return null;
+            }
+            return path.endsWith("/") ? path : path + "/";
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int toWatchKind(@NotNull FileChangeType changeType) {
+        return switch (changeType) {
+            case Created -> WatchKind.Create;
+            case Changed -> WatchKind.Change;
+            case Deleted -> WatchKind.Delete;
+        };
+    }
+}
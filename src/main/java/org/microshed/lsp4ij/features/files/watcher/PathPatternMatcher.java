@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.features.files.watcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Pattern;
+
+/**
+ * Path matcher compiled from an LSP glob pattern.
+ *
+ * <p>
+ * The following glob syntax is supported:
+ * <ul>
+ *     <li><code>*</code> to match zero or more characters in a path segment</li>
+ *     <li><code>?</code> to match on one character in a path segment</li>
+ *     <li><code>**</code> to match any number of path segments, including none</li>
+ *     <li><code>{}</code> to group conditions (e.g. <code>**&#47;*.{ts,js}</code>)</li>
+ *     <li><code>[]</code> to declare a range of characters to match in a path segment (e.g. <code>example.[0-9]</code>)</li>
+ *     <li><code>[!...]</code> to negate a range of characters to match in a path segment (e.g. <code>example.[!0-9]</code>)</li>
+ * </ul>
+ * </p>
+ *
+ * @see <a href="https://microsoft.github.io/language-server-protocol/specifications/lsp/3.17/specification/#globPattern">LSP GlobPattern</a>
+ */
+public class PathPatternMatcher {
+
+    private final @NotNull String pattern;
+
+    private final @Nullable String basePath;
+
+    private final @NotNull Pattern regex;
+
+    /**
+     * Create a path matcher.
+     *
+     * @param pattern  the glob pattern.
+     * @param basePath the base path (ending with '/') of a relative pattern and null otherwise.
+     */
+    public PathPatternMatcher(@NotNull String pattern, @Nullable String basePath) {
+        this.pattern = pattern;
+        this.basePath = basePath;
+        this.regex = toRegex(pattern);
+    }
+
+    public @NotNull String getPattern() {
+        return pattern;
+    }
+
+    public @Nullable String getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * Returns true if the given path (which uses '/' as separator) matches the glob pattern and false otherwise.
+     *
+     * @param path the path.
+     * @return true if the given path matches the glob pattern and false otherwise.
+     */
+    public boolean matches(@NotNull String path) {
+        if (basePath != null) {
+            if (!path.startsWith(basePath)) {
+                return false;
+            }
+            path = path.substring(basePath.length());
+        }
+        return regex.matcher(path).matches();
+    }
+
+    private static @NotNull Pattern toRegex(@NotNull String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() * 2);
+        int groupDepth = 0;
+        boolean inRange = false;
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            if (inRange) {
+                if (c == ']') {
+                    inRange = false;
+                    regex.append(']');
+                } else {
+                    if (c == '\\' || c == '[' || c == '&') {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '*':
+                    if (i + 1 < length && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < length && glob.charAt(i + 1) == '/') {
+                            // '**/' matches any number of path segments, including none
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    inRange = true;
+                    regex.append('[');
+                    if (i + 1 < length && glob.charAt(i + 1) == '!') {
+                        i++;
+                        regex.append('^');
+                    }
+                    break;
+                case '{':
+                    groupDepth++;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    if (groupDepth > 0) {
+                        groupDepth--;
+                        regex.append(')');
+                    } else {
+                        regex.append("\\}");
+                    }
+                    break;
+                case ',':
+                    regex.append(groupDepth > 0 ? "|" : ",");
+                    break;
+                default:
+                    if (!Character.isLetterOrDigit(c)) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+            }
+        }
+        if (inRange) {
+            // Invalid range (ex : 'foo[a-z'), close it
+            regex.append(']');
+        }
+        while (groupDepth-- > 0) {
+            // Invalid group (ex : 'foo{a,b'), close it
+            regex.append(')');
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package org.microshed.lsp4ij.features.foldingRange;
 
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
@@ -19,9 +20,12 @@ import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.eclipse.lsp4j.FoldingRange;
 import org.eclipse.lsp4j.FoldingRangeRequestParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PositionEncodingKind;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
@@ -59,6 +63,7 @@ public class LSPFoldingRangeSupport extends AbstractLSPFeatureSupport<FoldingRan
                                                                                    @NotNull FoldingRangeRequestParams params,
                                                                                    @NotNull CancellationSupport cancellationSupport) {
 
+        Document document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LanguageServerItem::isFoldingSupported)
                 .thenComposeAsync(languageServers -> {
@@ -71,15 +76,16 @@ public class LSPFoldingRangeSupport extends AbstractLSPFeatureSupport<FoldingRan
                     // Collect list of textDocument/foldingRange future for each language servers
                     List<CompletableFuture<List<FoldingRange>>> foldingRangesPerServerFutures = languageServers
                             .stream()
-                            .map(languageServer -> getFoldingRangesFor(params, languageServer, cancellationSupport))
+                            .map(languageServer -> getFoldingRangesFor(params, document, languageServer, cancellationSupport))
                             .toList();
 
                     // Merge list of textDocument/foldingRange future in one future which return the list of folding ranges
                     return CompletableFutures.mergeInOneFuture(foldingRangesPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static CompletableFuture<List<FoldingRange>> getFoldingRangesFor(FoldingRangeRequestParams params,
+                                                                             Document document,
                                                                              LanguageServerItem languageServer,
                                                                              CancellationSupport cancellationSupport) {
         return cancellationSupport.execute(languageServer
@@ -92,8 +98,29 @@ public class LSPFoldingRangeSupport extends AbstractLSPFeatureSupport<FoldingRan
                     }
                     return foldingRanges.stream()
                             .filter(Objects::nonNull)
+                            .map(foldingRange -> toUTF16FoldingRange(foldingRange, document, languageServer.getPositionEncoding()))
                             .toList();
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
+    }
+
+    private static FoldingRange toUTF16FoldingRange(FoldingRange foldingRange, Document document, String positionEncoding) {
+        if (document == null || PositionEncodingKind.UTF16.equals(positionEncoding)) {
+            return foldingRange;
+        }
+        // The folding range characters are expressed with the position encoding of the language server, convert them to UTF-16.
+        // The LSP response can be shared between several callers, so it is not updated.
+        FoldingRange utf16FoldingRange = new FoldingRange(foldingRange.getStartLine(), foldingRange.getEndLine());
+        utf16FoldingRange.setKind(foldingRange.getKind());
+        utf16FoldingRange.setCollapsedText(foldingRange.getCollapsedText());
+        if (foldingRange.getStartCharacter() != null) {
+            Position start = new Position(foldingRange.getStartLine(), foldingRange.getStartCharacter());
+            utf16FoldingRange.setStartCharacter(LSPIJUtils.toUTF16Position(start, document, positionEncoding).getCharacter());
+        }
+        if (foldingRange.getEndCharacter() != null) {
+            Position end = new Position(foldingRange.getEndLine(), foldingRange.getEndCharacter());
+            utf16FoldingRange.setEndCharacter(LSPIJUtils.toUTF16Position(end, document, positionEncoding).getCharacter());
+        }
+        return utf16FoldingRange;
     }
 
 }
@@ -23,6 +23,7 @@ import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.*;
@@ -36,7 +37,8 @@ import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.function.Predicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static org.microshed.lsp4ij.internal.CompletableFutures.waitUntilDone;
 
@@ -139,20 +141,38 @@ public class LSPFormattingSupport extends AbstractLSPFeatureSupport<LSPFormattin
 
                     cancellationSupport.checkCanceled();
 
+                    String positionEncoding = languageServer.getPositionEncoding();
                     if (isRangeFormatting && languageServer.isDocumentRangeFormattingSupported()) {
                         // Range formatting
-                        DocumentRangeFormattingParams lspParams = createDocumentRangeFormattingParams(params.tabSize(), params.insertSpaces(), params.textRange(), params.document());
+                        DocumentRangeFormattingParams lspParams = createDocumentRangeFormattingParams(params.tabSize(), params.insertSpaces(), params.textRange(), params.document(), positionEncoding);
                         return cancellationSupport.execute(languageServer
                                 .getTextDocumentService()
-                                .rangeFormatting(lspParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_RANGE_FORMATTING);
+                                .rangeFormatting(lspParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_RANGE_FORMATTING)
+                                .thenApply(edits -> toUTF16Edits(edits, params.document(), positionEncoding));
                     }
 
                     // Full document formatting
                     DocumentFormattingParams lspParams = createDocumentFormattingParams(params.tabSize(), params.insertSpaces());
                     return cancellationSupport.execute(languageServer
                             .getTextDocumentService()
-                            .formatting(lspParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_FORMATTING);
-                });
+                            .formatting(lspParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_FORMATTING)
+                            .thenApply(edits -> toUTF16Edits(edits, params.document(), positionEncoding));
+                }, LSP4IJExecutors.getFeatureExecutor());
+    }
+
+    /**
+     * Returns the given text edits with ranges expressed in UTF-16 (used by {@link #applyEdits(Document, List)}).
+     */
+    private static List<? extends TextEdit> toUTF16Edits(@Nullable List<? extends TextEdit> edits,
+                                                         @Nullable Document document,
+                                                         @NotNull String positionEncoding) {
+        if (edits == null || document == null || PositionEncodingKind.UTF16.equals(positionEncoding)) {
+            return edits;
+        }
+        return edits
+                .stream()
+                .map(edit -> new TextEdit(LSPIJUtils.toUTF16Range(edit.getRange(), document, positionEncoding), edit.getNewText()))
+                .collect(Collectors.toList());
     }
 
     private static LanguageServerItem getFormattingLanguageServer(List<LanguageServerItem> languageServers, boolean isRangeFormatting) {
@@ -184,7 +204,7 @@ public class LSPFormattingSupport extends AbstractLSPFeatureSupport<LSPFormattin
         return params;
     }
 
-    private @NotNull DocumentRangeFormattingParams createDocumentRangeFormattingParams(Integer tabSize, Boolean insertSpaces, @NotNull TextRange textRange, Document document) {
+    private @NotNull DocumentRangeFormattingParams createDocumentRangeFormattingParams(Integer tabSize, Boolean insertSpaces, @NotNull TextRange textRange, Document document, @Nullable String positionEncoding) {
         DocumentRangeFormattingParams params = new DocumentRangeFormattingParams();
         params.setTextDocument(LSPIJUtils.toTextDocumentIdentifier(getFile().getVirtualFile()));
         FormattingOptions options = new FormattingOptions();
@@ -196,7 +216,7 @@ public class LSPFormattingSupport extends AbstractLSPFeatureSupport<LSPFormattin
         }
         params.setOptions(options);
         if (document != null) {
-            Range range = LSPIJUtils.toRange(textRange, document);
+            Range range = LSPIJUtils.toRange(textRange, document, positionEncoding);
             params.setRange(range);
         }
         return params;
@@ -10,17 +10,21 @@
  ******************************************************************************/
 package org.microshed.lsp4ij.features.highlight;
 
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
+import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.DocumentHighlight;
 import org.eclipse.lsp4j.DocumentHighlightParams;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,6 +60,7 @@ public class LSPHighlightSupport extends AbstractLSPFeatureSupport<DocumentHighl
                                                                                      @NotNull DocumentHighlightParams params,
                                                                                      @NotNull CancellationSupport cancellationSupport) {
 
+        Document document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LanguageServerItem::isDocumentHighlightSupported)
                 .thenComposeAsync(languageServers -> {
@@ -68,20 +73,26 @@ public class LSPHighlightSupport extends AbstractLSPFeatureSupport<DocumentHighl
                     // Collect list of textDocument/highlights future for each language servers
                     List<CompletableFuture<List<? extends org.eclipse.lsp4j.DocumentHighlight>>> highlightsPerServerFutures = languageServers
                             .stream()
-                            .map(languageServer -> getHighlightsFor(params, languageServer, cancellationSupport))
+                            .map(languageServer -> getHighlightsFor(params, document, languageServer, cancellationSupport))
                             .toList();
 
                     // Merge list of textDocument/highlights future in one future which return the list of highlights
                     return mergeInOneFuture(highlightsPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static CompletableFuture<List<? extends org.eclipse.lsp4j.DocumentHighlight>> getHighlightsFor(@NotNull DocumentHighlightParams params,
+                                                                                                           @Nullable Document document,
                                                                                                            @NotNull LanguageServerItem languageServer,
                                                                                                            @NotNull CancellationSupport cancellationSupport) {
+        // The params and the highlights ranges are expressed in UTF-16, convert them with the position encoding of the language server
+        String positionEncoding = document != null ? languageServer.getPositionEncoding() : null;
+        DocumentHighlightParams serverParams = positionEncoding != null ?
+                new DocumentHighlightParams(params.getTextDocument(), LSPIJUtils.toPosition(params.getPosition(), document, positionEncoding)) :
+                params;
         return cancellationSupport.execute(languageServer
                         .getTextDocumentService()
-                        .documentHighlight(params), languageServer, LSPRequestConstants.TEXT_DOCUMENT_DOCUMENT_HIGHLIGHT)
+                        .documentHighlight(serverParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_DOCUMENT_HIGHLIGHT)
                 .thenApplyAsync(highlights -> {
                     if (highlights == null) {
                         // textDocument/highlight may return null
@@ -89,8 +100,11 @@ public class LSPHighlightSupport extends AbstractLSPFeatureSupport<DocumentHighl
                     }
                     return highlights.stream()
                             .filter(Objects::nonNull)
+                            .map(highlight -> positionEncoding != null && highlight.getRange() != null ?
+                                    new DocumentHighlight(LSPIJUtils.toUTF16Range(highlight.getRange(), document, positionEncoding), highlight.getKind()) :
+                                    highlight)
                             .toList();
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     /**
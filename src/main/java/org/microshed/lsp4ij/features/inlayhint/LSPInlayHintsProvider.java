@@ -16,13 +16,14 @@ import com.intellij.codeInsight.hints.presentation.PresentationFactory;
 import com.intellij.codeInsight.hints.presentation.SequencePresentation;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.util.Pair;
 import com.intellij.psi.PsiFile;
 import org.microshed.lsp4ij.LSPFileSupport;
 import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.features.AbstractLSPInlayHintsProvider;
+import org.microshed.lsp4ij.internal.CompletableFutures;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.jetbrains.annotations.NotNull;
@@ -32,10 +33,9 @@ import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -87,14 +87,14 @@ public class LSPInlayHintsProvider extends AbstractLSPInlayHintsProvider {
             List<InlayHintData> data = future.getNow(Collections.emptyList());
             fillInlayHints(document, data, inlayHints);
         } else {
-            while (!future.isDone()) {
-                ProgressManager.checkCanceled();
-                try {
-                    List<InlayHintData> data = future.get(25, TimeUnit.MILLISECONDS);
-                    fillInlayHints(document, data, inlayHints);
-                } catch (TimeoutException | ExecutionException e) {
-                    // Do nothing
-                }
+            try {
+                CompletableFutures.waitUntilDone(future);
+            } catch (CancellationException | ExecutionException e) {
+                // Do nothing
+            }
+            if (CompletableFutures.isDoneNormally(future)) {
+                List<InlayHintData> data = future.getNow(Collections.emptyList());
+                fillInlayHints(document, data, inlayHints);
             }
         }
         return inlayHints;
@@ -102,7 +102,7 @@ public class LSPInlayHintsProvider extends AbstractLSPInlayHintsProvider {
 
     private static void fillInlayHints(Document document, List<InlayHintData> data, List<Pair<Integer, InlayHintData>> inlayHints) {
         for (var inlayHintData : data) {
-            int offset = LSPIJUtils.toOffset(inlayHintData.inlayHint().getPosition(), document);
+            int offset = LSPIJUtils.toOffset(inlayHintData.inlayHint().getPosition(), document, inlayHintData.languageServer().getPositionEncoding());
             inlayHints.add(Pair.create(offset, inlayHintData));
         }
     }
@@ -186,8 +186,7 @@ public class LSPInlayHintsProvider extends AbstractLSPInlayHintsProvider {
                                 if (resolvedInlayHint != null) {
                                     executeClientCommand(getCommand(resolvedInlayHint, index), editor, event);
                                 }
-                            }
-                    );
+                            }, LSP4IJExecutors.getFeatureExecutor());
         } else {
             executeClientCommand(getCommand(inlayHint, index), editor, event);
         }
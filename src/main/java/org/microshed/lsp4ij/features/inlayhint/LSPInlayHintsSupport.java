@@ -10,17 +10,21 @@
  ******************************************************************************/
 package org.microshed.lsp4ij.features.inlayhint;
 
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
+import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.internal.CompletableFutures;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.InlayHint;
 import org.eclipse.lsp4j.InlayHintParams;
+import org.eclipse.lsp4j.Range;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -58,6 +62,7 @@ public class LSPInlayHintsSupport extends AbstractLSPFeatureSupport<InlayHintPar
                                                                                  @NotNull InlayHintParams params,
                                                                                  @NotNull CancellationSupport cancellationSupport) {
 
+        Document document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LanguageServerItem::isInlayHintSupported)
                 .thenComposeAsync(languageServers -> {
@@ -70,18 +75,24 @@ public class LSPInlayHintsSupport extends AbstractLSPFeatureSupport<InlayHintPar
                     // Collect list of textDocument/inlayHint future for each language servers
                     List<CompletableFuture<List<InlayHintData>>> inlayHintPerServerFutures = languageServers
                             .stream()
-                            .map(languageServer -> getInlayHintsFor(params, languageServer, cancellationSupport))
+                            .map(languageServer -> getInlayHintsFor(params, document, languageServer, cancellationSupport))
                             .toList();
 
                     // Merge list of textDocument/inlayHint future in one future which return the list of inlay hints
                     return CompletableFutures.mergeInOneFuture(inlayHintPerServerFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
-    private static CompletableFuture<List<InlayHintData>> getInlayHintsFor(InlayHintParams params, LanguageServerItem languageServer, CancellationSupport cancellationSupport) {
+    private static CompletableFuture<List<InlayHintData>> getInlayHintsFor(InlayHintParams params, Document document, LanguageServerItem languageServer, CancellationSupport cancellationSupport) {
+        // The params range is expressed in UTF-16, convert it with the position encoding of the language server
+        String positionEncoding = languageServer.getPositionEncoding();
+        InlayHintParams serverParams = document != null ?
+                new InlayHintParams(params.getTextDocument(), new Range(LSPIJUtils.toPosition(params.getRange().getStart(), document, positionEncoding),
+                        LSPIJUtils.toPosition(params.getRange().getEnd(), document, positionEncoding))) :
+                params;
         return cancellationSupport.execute(languageServer
                         .getTextDocumentService()
-                        .inlayHint(params), languageServer, LSPRequestConstants.TEXT_DOCUMENT_INLAY_HINT)
+                        .inlayHint(serverParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_INLAY_HINT)
                 .thenApplyAsync(inlayHints -> {
                     if (inlayHints == null) {
                         // textDocument/inlayHint may return null
@@ -105,7 +116,7 @@ public class LSPInlayHintsSupport extends AbstractLSPFeatureSupport<InlayHintPar
                                 }
                             });
                     return data;
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
 
@@ -20,12 +20,15 @@ import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.features.LSPPsiElement;
+import org.microshed.lsp4ij.features.LSPPsiElementFactory;
 import org.microshed.lsp4ij.LanguageServersRegistry;
 import org.microshed.lsp4ij.internal.CancellationSupport;
 import org.microshed.lsp4ij.internal.CancellationUtil;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.eclipse.lsp4j.DefinitionParams;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.LocationLink;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.jetbrains.annotations.Nullable;
@@ -51,7 +54,7 @@ public class LSPGotoDeclarationHandler implements GotoDeclarationHandler {
             return PsiElement.EMPTY_ARRAY;
         }
         Document document = editor.getDocument();
-        DefinitionParams params = new DefinitionParams(LSPIJUtils.toTextDocumentIdentifier(file), LSPIJUtils.toPosition(offset, document));
+        TextDocumentIdentifier textDocument = LSPIJUtils.toTextDocumentIdentifier(file);
         Set<PsiElement> targets = new HashSet<>();
         final CancellationSupport cancellationSupport = new CancellationSupport();
         try {
@@ -66,9 +69,9 @@ public class LSPGotoDeclarationHandler implements GotoDeclarationHandler {
                                                     .map(server ->
                                                             cancellationSupport.execute(server
                                                                             .getTextDocumentService()
-                                                                            .definition(params), server, "Definition")
-                                                                    .thenAcceptAsync(definitions -> targets.addAll(toElements(project, definitions))))
-                                                    .toArray(CompletableFuture[]::new))))
+                                                                            .definition(new DefinitionParams(textDocument, LSPIJUtils.toPosition(offset, document, server.getPositionEncoding()))), server, "Definition")
+                                                                    .thenAcceptAsync(definitions -> targets.addAll(toElements(project, definitions, server.getPositionEncoding())), LSP4IJExecutors.getFeatureExecutor()))
+                                                    .toArray(CompletableFuture[]::new))), LSP4IJExecutors.getFeatureExecutor())
                     .get(1_000, TimeUnit.MILLISECONDS);
         } catch (ResponseErrorException | ExecutionException | CancellationException e) {
             // do not report error if the server has cancelled the request
@@ -84,20 +87,20 @@ public class LSPGotoDeclarationHandler implements GotoDeclarationHandler {
         return targets.toArray(new PsiElement[targets.size()]);
     }
 
-    private static List<LSPPsiElement> toElements(Project project, Either<List<? extends Location>, List<? extends LocationLink>> definitions) {
+    private static List<LSPPsiElement> toElements(Project project, Either<List<? extends Location>, List<? extends LocationLink>> definitions, String positionEncoding) {
         if (definitions == null) {
             return Collections.emptyList();
         }
         if (definitions.isLeft()) {
             return definitions.getLeft()
                     .stream()
-                    .map(location -> toPsiElement(location, project))
+                    .map(location -> toPsiElement(location, positionEncoding, project, LSPPsiElementFactory.DEFAULT))
                     .filter(Objects::nonNull)
                     .toList();
         }
         return definitions.getRight()
                 .stream()
-                .map(location -> toPsiElement(location, project))
+                .map(location -> toPsiElement(location, positionEncoding, project, LSPPsiElementFactory.DEFAULT))
                 .filter(Objects::nonNull)
                 .toList();
     }
@@ -10,17 +10,21 @@
  ******************************************************************************/
 package org.microshed.lsp4ij.features.signatureHelp;
 
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
+import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.eclipse.lsp4j.SignatureHelp;
 import org.eclipse.lsp4j.SignatureHelpParams;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -51,6 +55,7 @@ public class LSPSignatureHelpSupport extends AbstractLSPFeatureSupport<Signature
                                                                               @NotNull SignatureHelpParams params,
                                                                               @NotNull CancellationSupport cancellationSupport) {
 
+        Document document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LanguageServerItem::isSignatureHelpSupported)
                 .thenComposeAsync(languageServers -> {
@@ -62,16 +67,21 @@ public class LSPSignatureHelpSupport extends AbstractLSPFeatureSupport<Signature
 
                     // Get signature help for the first language server
                     LanguageServerItem languageServer = languageServers.get(0);
-                    return getSignatureHelpFor(params, languageServer, cancellationSupport);
-                });
+                    return getSignatureHelpFor(params, document, languageServer, cancellationSupport);
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static CompletableFuture<SignatureHelp> getSignatureHelpFor(@NotNull SignatureHelpParams params,
+                                                                        @Nullable Document document,
                                                                         @NotNull LanguageServerItem languageServer,
                                                                         @NotNull CancellationSupport cancellationSupport) {
+        // The params are expressed in UTF-16, convert them with the position encoding of the language server
+        SignatureHelpParams serverParams = document != null ?
+                new SignatureHelpParams(params.getTextDocument(), LSPIJUtils.toPosition(params.getPosition(), document, languageServer.getPositionEncoding()), params.getContext()) :
+                params;
         return cancellationSupport.execute(languageServer
                 .getTextDocumentService()
-                .signatureHelp(params), languageServer, LSPRequestConstants.TEXT_DOCUMENT_SIGNATURE_HELP);
+                .signatureHelp(serverParams), languageServer, LSPRequestConstants.TEXT_DOCUMENT_SIGNATURE_HELP);
     }
 
 
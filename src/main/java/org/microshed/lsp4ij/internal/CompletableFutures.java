@@ -14,16 +14,19 @@
 package org.microshed.lsp4ij.internal;
 
 import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.AbstractProgressIndicatorExBase;
+import com.intellij.openapi.wm.ex.ProgressIndicatorEx;
 import com.intellij.psi.PsiFile;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4j.jsonrpc.CompletableFutures.FutureCancelChecker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 /**
@@ -33,6 +36,31 @@ import java.util.function.Function;
  */
 public class CompletableFutures {
 
+    // Interval used to check the cancellation when the progress indicator cannot notify its cancellation
+    private static final long CHECK_CANCELED_INTERVAL = TimeUnit.MILLISECONDS.toNanos(25);
+
+    // Interval used to check the other cancellation sources (ex : Psi file modification) when the progress indicator notifies its cancellation
+    private static final long CHECK_CANCELED_NOTIFIED_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * Progress indicator state delegate which executes the registered actions when the progress indicator is cancelled.
+     * Only one hook is added to a progress indicator (state delegates cannot be removed), the actions are removed
+     * when the wait is done.
+     */
+    private static final class CancelHook extends AbstractProgressIndicatorExBase {
+
+        private final Set<Runnable> actions = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void cancel() {
+            super.cancel();
+            actions.forEach(Runnable::run);
+        }
+    }
+
+    // The hook doesn't reference its progress indicator, so the progress indicator can be garbage collected
+    private static final Map<ProgressIndicatorEx, CancelHook> cancelHooks = Collections.synchronizedMap(new WeakHashMap<>());
+
     private CompletableFutures() {
 
     }
@@ -40,7 +68,8 @@ public class CompletableFutures {
     /**
      * It's a copy of
      * {@link org.eclipse.lsp4j.jsonrpc.CompletableFutures#computeAsync} that
-     * accepts a function that returns a CompletableFuture.
+     * accepts a function that returns a CompletableFuture. The code is run on the
+     * LSP4IJ feature executor instead of the common pool.
      *
      * @param <R>  the return type of the asynchronous computation
      * @param code the code to run asynchronously
@@ -51,7 +80,7 @@ public class CompletableFutures {
     public static <R> CompletableFuture<R> computeAsyncCompose(
             Function<CancelChecker, CompletableFuture<R>> code) {
         CompletableFuture<CancelChecker> start = new CompletableFuture<>();
-        CompletableFuture<R> result = start.thenComposeAsync(code);
+        CompletableFuture<R> result = start.thenComposeAsync(code, LSP4IJExecutors.getFeatureExecutor());
         start.complete(new FutureCancelChecker(result));
         return result;
     }
@@ -97,39 +126,114 @@ public class CompletableFutures {
     /**
      * Wait for the done of the given future and stop the wait if {@link ProcessCanceledException} is thrown.
      *
+     * <p>
+     * The current thread is parked and it is woken up as soon as the future is done or the current
+     * progress indicator is cancelled, instead of polling the future.
+     * </p>
+     *
      * @param future the future to wait.
-     * @param file
+     * @param file   the Psi file which cancels the wait when it is modified and null otherwise.
      */
     public static void waitUntilDone(@NotNull CompletableFuture<?> future,
                                      @Nullable PsiFile file) throws ExecutionException, ProcessCanceledException {
+        if (future.isDone()) {
+            return;
+        }
+        final Thread waiter = Thread.currentThread();
+        Runnable unregisterCanceledAction = onProgressCanceled(() -> LockSupport.unpark(waiter));
+        try {
+            park(future, file, ProgressManager::checkCanceled, getCheckCanceledInterval(unregisterCanceledAction != null));
+        } finally {
+            if (unregisterCanceledAction != null) {
+                unregisterCanceledAction.run();
+            }
+        }
+        try {
+            future.get();
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CancellationException ce) {
+                throw ce;
+            }
+            if (cause instanceof ProcessCanceledException pce) {
+                throw pce;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            // The future is done, it cannot happen
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Park the current thread until the given future is done, and check the cancellation each time the thread is woken up.
+     *
+     * @param future                the future to wait.
+     * @param file                  the Psi file which cancels the wait when it is modified and null otherwise.
+     * @param checkCanceled         the cancellation check (ex : {@link ProgressManager#checkCanceled()}).
+     * @param checkCanceledInterval the maximum time (in nanoseconds) between two cancellation checks.
+     */
+    static void park(@NotNull CompletableFuture<?> future,
+                     @Nullable PsiFile file,
+                     @NotNull Runnable checkCanceled,
+                     long checkCanceledInterval) {
         final long modificationStamp = file != null ? file.getModificationStamp() : -1;
+        final Thread waiter = Thread.currentThread();
+        future.whenComplete((result, error) -> LockSupport.unpark(waiter));
         while (!future.isDone()) {
-            try {
-                // check progress canceled
-                ProgressManager.checkCanceled();
-                // check psi file
-                if (file != null) {
-                    if (modificationStamp != file.getModificationStamp()) {
-                        throw new CancellationException("Psi file has changed.");
-                    }
-                }
-                // wait for 25 ms
-                future.get(25, TimeUnit.MILLISECONDS);
-            } catch (TimeoutException ignore) {
-                // Ignore timeout
-            } catch (ExecutionException | CompletionException e) {
-                Throwable cause = e.getCause();
-                if (cause instanceof CancellationException ce) {
-                    throw ce;
+            // check progress canceled
+            checkCanceled.run();
+            // check psi file
+            if (file != null) {
+                if (modificationStamp != file.getModificationStamp()) {
+                    throw new CancellationException("Psi file has changed.");
                 }
-                if (cause instanceof ProcessCanceledException pce) {
-                    throw pce;
+            }
+            LockSupport.parkNanos(future, checkCanceledInterval);
+            // Ignore the interrupt to avoid a busy loop
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Register the given action which is executed when the current progress indicator is cancelled.
+     *
+     * @param action the action to execute (ex : wake up a parked thread).
+     * @return the runnable which unregisters the action (must be called when the wait is done) and null if the
+     * current progress indicator cannot notify its cancellation.
+     */
+    public static @Nullable Runnable onProgressCanceled(@NotNull Runnable action) {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        if (indicator instanceof ProgressIndicatorEx indicatorEx) {
+            CancelHook hook;
+            synchronized (cancelHooks) {
+                hook = cancelHooks.get(indicatorEx);
+                if (hook == null) {
+                    hook = new CancelHook();
+                    indicatorEx.addStateDelegate(hook);
+                    cancelHooks.put(indicatorEx, hook);
                 }
-                throw e;
-            } catch (InterruptedException e) {
-                Thread.interrupted();
             }
+            hook.actions.add(action);
+            if (indicator.isCanceled()) {
+                // The progress indicator has been cancelled before the registration
+                action.run();
+            }
+            final CancelHook registeredHook = hook;
+            return () -> registeredHook.actions.remove(action);
         }
+        return null;
+    }
+
+    /**
+     * Returns the interval (in nanoseconds) to use to check the cancellation while waiting.
+     *
+     * @param progressCanceledNotified true if the cancellation of the progress indicator is notified
+     *                                 (see {@link #onProgressCanceled(Runnable)}) and false otherwise.
+     * @return the interval (in nanoseconds) to use to check the cancellation while waiting.
+     */
+    public static long getCheckCanceledInterval(boolean progressCanceledNotified) {
+        return progressCanceledNotified ? CHECK_CANCELED_NOTIFIED_INTERVAL : CHECK_CANCELED_INTERVAL;
     }
 
 }
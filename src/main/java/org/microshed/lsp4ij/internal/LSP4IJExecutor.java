@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor owned by LSP4IJ used to execute the asynchronous LSP tasks of a given type (see {@link LSP4IJExecutors}),
+ * instead of the JVM-wide {@link ForkJoinPool#commonPool()} shared with the IDE and the other plugins.
+ *
+ * <p>
+ * The tasks are executed by a bounded pool of platform threads or, when virtual threads are enabled and
+ * supported by the JVM (JDK 21+), by one virtual thread per task. The executor tracks the number of tasks
+ * which are waiting to be executed and which are executing.
+ * </p>
+ */
+public class LSP4IJExecutor implements Executor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LSP4IJExecutor.class);
+
+    private final @NotNull String name;
+    private final @NotNull Executor delegate;
+    private final boolean virtual;
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong completedTaskCount = new AtomicLong();
+
+    /**
+     * Create an executor.
+     *
+     * @param name           the name of the executor, used as prefix of the thread names (ex : LSP4IJ Feature).
+     * @param maxThreads     the maximum number of platform threads.
+     * @param virtualThreads true if the tasks must be executed with virtual threads when the JVM supports them.
+     */
+    public LSP4IJExecutor(@NotNull String name, int maxThreads, boolean virtualThreads) {
+        this.name = name;
+        ThreadFactory virtualThreadFactory = virtualThreads ? createVirtualThreadFactory(name + "-") : null;
+        if (virtualThreadFactory != null) {
+            this.delegate = task -> virtualThreadFactory.newThread(task).start();
+            this.virtual = true;
+        } else {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+            executor.allowCoreThreadTimeOut(true);
+            this.delegate = executor;
+            this.virtual = false;
+        }
+    }
+
+    @Override
+    public void execute(@NotNull Runnable task) {
+        queueSize.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                queueSize.decrementAndGet();
+                activeCount.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    activeCount.decrementAndGet();
+                    completedTaskCount.incrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            queueSize.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the name of the executor.
+     *
+     * @return the name of the executor.
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if the tasks are executed with virtual threads and false otherwise.
+     *
+     * @return true if the tasks are executed with virtual threads and false otherwise.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Returns the number of tasks which are waiting to be executed.
+     *
+     * @return the number of tasks which are waiting to be executed.
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * Returns the number of tasks which are executing.
+     *
+     * @return the number of tasks which are executing.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Returns the number of tasks which have been executed.
+     *
+     * @return the number of tasks which have been executed.
+     */
+    public long getCompletedTaskCount() {
+        return completedTaskCount.get();
+    }
+
+    /**
+     * Returns a factory of virtual threads and null if the JVM doesn't support virtual threads.
+     *
+     * <p>
+     * Virtual threads are created with reflection since the plugin is compiled for Java 17.
+     * </p>
+     *
+     * @param prefix the prefix of the thread names.
+     * @return a factory of virtual threads and null if the JVM doesn't support virtual threads.
+     */
+    private static @Nullable ThreadFactory createVirtualThreadFactory(@NotNull String prefix) {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method factory = builderClass.getMethod("factory");
+            Object builder = name.invoke(ofVirtual.invoke(null), prefix, 0L);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Virtual threads are not available, platform threads are used", e);
+            return null;
+        }
+    }
+}
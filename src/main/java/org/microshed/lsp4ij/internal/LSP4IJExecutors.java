@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Executors used by LSP4IJ to execute the asynchronous tasks, per task type.
+ *
+ * <p>
+ * The virtual threads (JDK 21+) are enabled with the system property '-Dlsp4ij.executor.virtualThreads=true'.
+ * </p>
+ */
+public final class LSP4IJExecutors {
+
+    /**
+     * System property to enable the virtual threads.
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "lsp4ij.executor.virtualThreads";
+
+    /**
+     * Type of asynchronous LSP tasks.
+     */
+    public enum TaskType {
+        /**
+         * Continuations of the LSP requests consumed by the IntelliJ features (ex : textDocument/codeLens).
+         */
+        FEATURE("LSP4IJ Feature"),
+        /**
+         * Requests and notifications sent by the language server to the client (ex : window/logMessage, client/registerCapability).
+         */
+        CLIENT("LSP4IJ Client"),
+        /**
+         * Start / stop of the language servers and open of the documents.
+         */
+        LIFECYCLE("LSP4IJ Lifecycle");
+
+        private final @NotNull String threadName;
+
+        TaskType(@NotNull String threadName) {
+            this.threadName = threadName;
+        }
+    }
+
+    private static final Map<TaskType, LSP4IJExecutor> EXECUTORS = new EnumMap<>(TaskType.class);
+
+    static {
+        boolean virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY);
+        // Some continuations wait for other futures, the pool must not be too small to avoid starvation
+        int maxThreads = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+        for (TaskType type : TaskType.values()) {
+            EXECUTORS.put(type, new LSP4IJExecutor(type.threadName, maxThreads, virtualThreads));
+        }
+    }
+
+    private LSP4IJExecutors() {
+    }
+
+    /**
+     * Returns the executor for the given task type.
+     *
+     * @param type the task type.
+     * @return the executor for the given task type.
+     */
+    public static @NotNull LSP4IJExecutor getExecutor(@NotNull TaskType type) {
+        return EXECUTORS.get(type);
+    }
+
+    /**
+     * Returns the executor used for the continuations of the LSP requests consumed by the IntelliJ features.
+     *
+     * @return the executor used for the continuations of the LSP requests consumed by the IntelliJ features.
+     */
+    public static @NotNull LSP4IJExecutor getFeatureExecutor() {
+        return getExecutor(TaskType.FEATURE);
+    }
+
+    /**
+     * Returns the executor used for the requests and notifications sent by the language server to the client.
+     *
+     * @return the executor used for the requests and notifications sent by the language server to the client.
+     */
+    public static @NotNull LSP4IJExecutor getClientExecutor() {
+        return getExecutor(TaskType.CLIENT);
+    }
+
+    /**
+     * Returns the executor used to start / stop the language servers and to open the documents.
+     *
+     * @return the executor used to start / stop the language servers and to open the documents.
+     */
+    public static @NotNull LSP4IJExecutor getLifecycleExecutor() {
+        return getExecutor(TaskType.LIFECYCLE);
+    }
+}
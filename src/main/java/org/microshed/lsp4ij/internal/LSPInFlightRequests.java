@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.microshed.lsp4ij.JSONUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Table of the LSP requests which are in flight for a language server, used to share the response between
+ * concurrent identical requests (ex : textDocument/hover sent by the documentation provider and the hover support).
+ *
+ * <p>
+ * Two requests are identical when they have the same method, the same parameters and they are sent for the
+ * same version of the document. Each caller receives its own future: the LSP request is cancelled
+ * ('$/cancelRequest') only when all callers have cancelled their future.
+ * </p>
+ *
+ * <p>
+ * Only the requests which don't modify anything (see {@link #isShareable(String)}) are shared. The callers can update
+ * the LSP response (ex : CompletionItem#setTextEdit), so when a response is shared, the first caller receives
+ * the response and the other callers receive a copy of the response.
+ * </p>
+ */
+public class LSPInFlightRequests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LSPInFlightRequests.class);
+
+    // The read-only requests which can be shared. The requests which modify something (ex : rename, formatting),
+    // which are not idempotent (ex : codeAction, completion) or whose params are a mutable response (the resolve
+    // requests) are not shared.
+    private static final Set<String> SHAREABLE_METHODS = Set.of(
+            "hover", "signatureHelp", "definition", "declaration", "typeDefinition", "implementation", "references",
+            "documentHighlight", "documentSymbol", "documentLink", "codeLens", "foldingRange", "documentColor",
+            "inlayHint", "selectionRange", "semanticTokensFull", "semanticTokensRange", "linkedEditingRange");
+
+    private record RequestKey(@NotNull String method, @Nullable String uri, int version, @NotNull Object[] params) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RequestKey other
+                    && version == other.version
+                    && method.equals(other.method)
+                    && Objects.equals(uri, other.uri)
+                    && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * method.hashCode() + Objects.hashCode(uri)) + version) + Arrays.hashCode(params);
+        }
+    }
+
+    private static class SharedRequest {
+
+        private final @NotNull CompletableFuture<Object> future;
+        private int consumers;
+        // true when the LSP request is completed, no consumer can be added
+        private boolean completed;
+        // JSON of the response used to give a copy to the consumers (except the first one), null if the response is not shared
+        private @Nullable String json;
+
+        SharedRequest(@NotNull CompletableFuture<Object> future) {
+            this.future = future;
+        }
+    }
+
+    // The 'getTextDocument()' method of the LSP request parameters (ex : HoverParams#getTextDocument())
+    private static final ClassValue<Optional<Method>> GET_TEXT_DOCUMENT = new ClassValue<>() {
+        @Override
+        protected Optional<Method> computeValue(@NotNull Class<?> type) {
+            try {
+                Method method = type.getMethod("getTextDocument");
+                return TextDocumentIdentifier.class.isAssignableFrom(method.getReturnType()) ? Optional.of(method) : Optional.empty();
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private final @NotNull ToIntFunction<String> documentVersionProvider;
+
+    private final Map<RequestKey, SharedRequest> requests = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param documentVersionProvider the provider of the current version of a document for a given uri.
+     */
+    public LSPInFlightRequests(@NotNull ToIntFunction<String> documentVersionProvider) {
+        this.documentVersionProvider = documentVersionProvider;
+    }
+
+    /**
+     * Returns true if the requests of the given {@link org.eclipse.lsp4j.services.TextDocumentService} method can be shared and false otherwise.
+     *
+     * @param methodName the method name of {@link org.eclipse.lsp4j.services.TextDocumentService} (ex : hover).
+     * @return true if the requests of the given method can be shared and false otherwise.
+     */
+    public static boolean isShareable(@NotNull String methodName) {
+        return SHAREABLE_METHODS.contains(methodName);
+    }
+
+    /**
+     * Execute the given LSP request or share the response of an identical request which is in flight.
+     *
+     * @param method     the LSP method (ex : hover).
+     * @param params     the LSP request parameters.
+     * @param resultType the type of the LSP response.
+     * @param request    the supplier which sends the LSP request.
+     * @param <T>        the result type.
+     * @return a future dedicated to the caller of the LSP request.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @NotNull CompletableFuture<T> execute(@NotNull String method, @Nullable Object[] params, @NotNull Type resultType,
+                                                     @NotNull Supplier<CompletableFuture<T>> request) {
+        if (!isShareable(method)) {
+            return request.get();
+        }
+        Object[] args = params != null ? params : new Object[0];
+        String uri = getUri(args);
+        RequestKey key = new RequestKey(method, uri, uri != null ? documentVersionProvider.applyAsInt(uri) : -1, args);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        SharedRequest shared;
+        boolean created = false;
+        boolean first;
+        synchronized (requests) {
+            shared = requests.get(key);
+            if (shared == null || shared.completed) {
+                shared = new SharedRequest(new CompletableFuture<>());
+                requests.put(key, shared);
+                created = true;
+            }
+            first = shared.consumers == 0;
+            shared.consumers++;
+        }
+        final SharedRequest sharedRequest = shared;
+        if (created) {
+            // Send the LSP request outside the lock
+            sharedRequest.future.whenComplete((r, e) -> requests.remove(key, sharedRequest));
+            CompletableFuture<Object> lspRequest;
+            try {
+                lspRequest = (CompletableFuture<Object>) request.get();
+            } catch (RuntimeException e) {
+                sharedRequest.future.completeExceptionally(e);
+                throw e;
+            }
+            lspRequest.whenComplete((value, error) -> {
+                boolean shareResponse;
+                synchronized (requests) {
+                    sharedRequest.completed = true;
+                    shareResponse = sharedRequest.consumers > 1;
+                }
+                if (error != null) {
+                    sharedRequest.future.completeExceptionally(error);
+                    return;
+                }
+                if (shareResponse) {
+                    // Serialize the response before giving it to the first consumer which could update it
+                    try {
+                        sharedRequest.json = JSONUtils.getLsp4jGson().toJson(value);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Error while copying the '" + method + "' response", e);
+                    }
+                }
+                sharedRequest.future.complete(value);
+            });
+            sharedRequest.future.whenComplete((value, error) -> {
+                if (sharedRequest.future.isCancelled()) {
+                    lspRequest.cancel(true);
+                }
+            });
+        }
+        sharedRequest.future.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            String json = sharedRequest.json;
+            if (first || json == null) {
+                result.complete((T) value);
+                return;
+            }
+            try {
+                result.complete(JSONUtils.getLsp4jGson().fromJson(json, resultType));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                release(key, sharedRequest);
+            }
+        });
+        return result;
+    }
+
+    private void release(@NotNull RequestKey key, @NotNull SharedRequest shared) {
+        boolean cancel;
+        synchronized (requests) {
+            shared.consumers--;
+            cancel = shared.consumers <= 0 && !shared.future.isDone();
+            if (cancel) {
+                requests.remove(key, shared);
+            }
+        }
+        if (cancel) {
+            // The last consumer has cancelled its future, cancel the LSP request
+            shared.future.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the number of distinct LSP requests which are in flight.
+     *
+     * @return the number of distinct LSP requests which are in flight.
+     */
+    public int size() {
+        return requests.size();
+    }
+
+    static @Nullable String getUri(@NotNull Object[] params) {
+        if (params.length == 0 || params[0] == null) {
+            return null;
+        }
+        Method getTextDocument = GET_TEXT_DOCUMENT.get(params[0].getClass()).orElse(null);
+        if (getTextDocument == null) {
+            return null;
+        }
+        try {
+            TextDocumentIdentifier textDocument = (TextDocumentIdentifier) getTextDocument.invoke(params[0]);
+            return textDocument != null ? textDocument.getUri() : null;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
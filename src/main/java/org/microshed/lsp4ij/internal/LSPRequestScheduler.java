@@ -0,0 +1,487 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import org.eclipse.lsp4j.services.TextDocumentService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Schedules the LSP requests sent to a language server according to their priority.
+ *
+ * <ul>
+ *     <li>at most 'maxConcurrentRequests' requests are sent to the language server at the same time (no limit
+ *     if 'maxConcurrentRequests' is 0), the other requests wait in a queue and the queue with the highest priority
+ *     is consumed first.</li>
+ *     <li>background requests (ex : textDocument/codeLens) can't use the last slot, so an interactive request
+ *     (ex : textDocument/completion) is never waiting for background requests.</li>
+ *     <li>when an interactive request arrives and all slots are used, an in-flight background request is
+ *     cancelled ('$/cancelRequest') and re-queued to free a slot.</li>
+ *     <li>identical read-only requests which are in flight share the same response, each caller receives its own
+ *     copy of the response (see {@link LSPInFlightRequests}).</li>
+ *     <li>the responses of read-only requests are cached (see {@link LSPResponseCache}).</li>
+ *     <li>the responses which describe the document state (ex : textDocument/codeLens) are rejected with a
+ *     {@link CancellationException} when the document has been changed (new 'textDocument/didChange' version)
+ *     while the request was processed.</li>
+ *     <li>a queued request is cancelled instead of being sent when the document has been changed while it was
+ *     waiting, because the 'textDocument/didChange' has been sent before it and its parameters (ex : position)
+ *     refer to the old content of the document.</li>
+ *     <li>the requests sent to the language server are tracked by the watchdog (see {@link LSPRequestWatchdog}).</li>
+ * </ul>
+ */
+public class LSPRequestScheduler {
+
+    /**
+     * LSP request priority.
+     */
+    public enum Priority {
+        /**
+         * Request triggered by a user action and waited by the user (ex : textDocument/completion, textDocument/hover).
+         */
+        INTERACTIVE,
+        /**
+         * Request which is not classified.
+         */
+        NORMAL,
+        /**
+         * Request computed in background when a file is opened / modified (ex : textDocument/codeLens, textDocument/inlayHint).
+         */
+        BACKGROUND
+    }
+
+    private static final Set<String> INTERACTIVE_METHODS = Set.of(
+            "completion", "resolveCompletionItem", "hover", "signatureHelp", "documentHighlight",
+            "definition", "declaration", "typeDefinition", "implementation", "references",
+            "codeAction", "resolveCodeAction", "formatting", "rangeFormatting", "onTypeFormatting",
+            "rename", "prepareRename", "linkedEditingRange");
+
+    private static final Set<String> BACKGROUND_METHODS = Set.of(
+            "codeLens", "resolveCodeLens", "foldingRange", "documentLink", "documentLinkResolve",
+            "inlayHint", "resolveInlayHint", "documentColor", "colorPresentation", "documentSymbol",
+            "semanticTokensFull", "semanticTokensFullDelta", "semanticTokensRange", "diagnostic");
+
+    // Requests whose the response is applied to the document content (ex : annotations, inlay hints, code vision)
+    private static final Set<String> DOCUMENT_STATE_METHODS = Set.of(
+            "codeLens", "foldingRange", "documentLink", "inlayHint", "documentColor", "documentSymbol",
+            "documentHighlight", "semanticTokensFull", "semanticTokensFullDelta", "semanticTokensRange", "diagnostic");
+
+    /**
+     * Returns the priority of the given {@link TextDocumentService} method.
+     *
+     * @param methodName the method name of {@link TextDocumentService} (ex : completion).
+     * @return the priority of the given {@link TextDocumentService} method.
+     */
+    public static @NotNull Priority getPriority(@NotNull String methodName) {
+        if (INTERACTIVE_METHODS.contains(methodName)) {
+            return Priority.INTERACTIVE;
+        }
+        if (BACKGROUND_METHODS.contains(methodName)) {
+            return Priority.BACKGROUND;
+        }
+        return Priority.NORMAL;
+    }
+
+    private class ScheduledRequest<T> {
+
+        private final @NotNull Priority priority;
+        private final @NotNull Supplier<CompletableFuture<T>> request;
+        private final @Nullable String uri;
+        private final int version;
+        private final @NotNull CompletableFuture<T> result = new CompletableFuture<>();
+        private @Nullable CompletableFuture<T> inFlight;
+        private boolean preempted;
+
+        ScheduledRequest(@NotNull Priority priority, @Nullable String uri, @NotNull Supplier<CompletableFuture<T>> request) {
+            this.priority = priority;
+            this.request = request;
+            this.uri = uri;
+            this.version = uri != null ? documentVersionProvider.applyAsInt(uri) : -1;
+            // When the caller cancels the request, remove it from the queue or cancel the in-flight LSP request
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    onCancelled(this);
+                }
+            });
+        }
+
+        void send() {
+            if (version >= 0 && documentVersionProvider.applyAsInt(uri) != version) {
+                // A 'textDocument/didChange' has been sent while the request was waiting
+                onDone(this);
+                result.completeExceptionally(new CancellationException("Document version " + version + " has changed while the request was waiting to be sent."));
+                return;
+            }
+            CompletableFuture<T> lspRequest;
+            try {
+                lspRequest = request.get();
+            } catch (Throwable e) {
+                onDone(this);
+                result.completeExceptionally(e);
+                return;
+            }
+            synchronized (lock) {
+                inFlight = lspRequest;
+            }
+            lspRequest.whenComplete((value, error) -> {
+                boolean requeued;
+                synchronized (lock) {
+                    // Only re-queue the request if it has really been cancelled (the response can arrive before the cancel)
+                    requeued = preempted && lspRequest.isCancelled() && !result.isDone();
+                    preempted = false;
+                    inFlight = null;
+                }
+                onDone(this);
+                if (requeued) {
+                    // The request has been cancelled to free a slot for an interactive request, send it later
+                    enqueue(this, true);
+                } else if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+
+    private final Object lock = new Object();
+    private final int maxConcurrentRequests;
+    private final Map<Priority, Deque<ScheduledRequest<?>>> queues = new EnumMap<>(Priority.class);
+    private final List<ScheduledRequest<?>> inFlightRequests = new ArrayList<>();
+    private final List<CompletableFuture<Void>> idleFutures = new ArrayList<>();
+    private final @NotNull ToIntFunction<String> documentVersionProvider;
+    private final LSPInFlightRequests sharedRequests;
+    private final LSPResponseCache responseCache;
+    private final LSPRequestWatchdog watchdog;
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrentRequests   the maximum number of requests sent at the same time to the language server
+     *                                (0 to not limit the number of requests).
+     * @param documentVersionProvider the provider of the current version of a document for a given uri.
+     * @param responseCache           the cache of the responses of read-only requests.
+     * @param watchdog                the watchdog which tracks the requests sent to the language server.
+     */
+    public LSPRequestScheduler(int maxConcurrentRequests,
+                               @NotNull ToIntFunction<String> documentVersionProvider,
+                               @NotNull LSPResponseCache responseCache,
+                               @NotNull LSPRequestWatchdog watchdog) {
+        this.maxConcurrentRequests = maxConcurrentRequests > 0 ? maxConcurrentRequests : Integer.MAX_VALUE;
+        this.documentVersionProvider = documentVersionProvider;
+        this.sharedRequests = new LSPInFlightRequests(documentVersionProvider);
+        this.responseCache = responseCache;
+        this.watchdog = watchdog;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Schedule the given LSP request.
+     *
+     * @param priority the request priority.
+     * @param request  the supplier which sends the LSP request.
+     * @param <T>      the result type.
+     * @return the future of the LSP request result. Cancelling this future cancels the LSP request.
+     */
+    public <T> @NotNull CompletableFuture<T> schedule(@NotNull Priority priority, @NotNull Supplier<CompletableFuture<T>> request) {
+        return schedule(priority, null, request);
+    }
+
+    /**
+     * Schedule the given LSP request of a document.
+     *
+     * @param priority the request priority.
+     * @param uri      the document uri and null otherwise.
+     * @param request  the supplier which sends the LSP request.
+     * @param <T>      the result type.
+     * @return the future of the LSP request result. Cancelling this future cancels the LSP request. The future is
+     * cancelled if the document is changed before the request is sent.
+     */
+    public <T> @NotNull CompletableFuture<T> schedule(@NotNull Priority priority, @Nullable String uri, @NotNull Supplier<CompletableFuture<T>> request) {
+        ScheduledRequest<T> scheduled = new ScheduledRequest<>(priority, uri, request);
+        enqueue(scheduled, false);
+        return scheduled.result;
+    }
+
+    /**
+     * Create a {@link TextDocumentService} which schedules the requests of the given text document service.
+     * The notifications (ex : textDocument/didOpen) are not scheduled.
+     *
+     * <p>
+     * The created instance must be reused for all the requests of the language server
+     * (see {@link org.microshed.lsp4ij.LanguageServerWrapper#getTextDocumentService(org.eclipse.lsp4j.services.LanguageServer)}).
+     * </p>
+     *
+     * @param delegate the text document service of the language server.
+     * @return a {@link TextDocumentService} which schedules the requests of the given text document service.
+     */
+    public @NotNull TextDocumentService wrap(@NotNull TextDocumentService delegate) {
+        InvocationHandler handler = (proxy, method, args) -> invoke(delegate, method, args);
+        return (TextDocumentService) Proxy.newProxyInstance(TextDocumentService.class.getClassLoader(),
+                new Class<?>[]{TextDocumentService.class}, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(@NotNull TextDocumentService delegate, @NotNull Method method, @Nullable Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class || !CompletableFuture.class.equals(method.getReturnType())) {
+            return invokeMethod(delegate, method, args);
+        }
+        String methodName = method.getName();
+        String uri = args != null ? LSPInFlightRequests.getUri(args) : null;
+        Supplier<CompletableFuture<Object>> request = () -> sharedRequests.execute(methodName, args, getResultType(method), () -> schedule(getPriority(methodName), uri, () -> {
+            try {
+                return watchdog.track(methodName, (CompletableFuture<Object>) invokeMethod(delegate, method, args));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        if (LSPResponseCache.isCacheable(methodName)) {
+            Supplier<CompletableFuture<Object>> uncachedRequest = request;
+            request = () -> responseCache.execute(methodName, args, getResultType(method), uncachedRequest);
+        }
+        if (DOCUMENT_STATE_METHODS.contains(methodName)) {
+            return rejectStaleResponse(methodName, args, request);
+        }
+        return request.get();
+    }
+
+    private <T> @NotNull CompletableFuture<T> rejectStaleResponse(@NotNull String methodName, @Nullable Object[] args,
+                                                                  @NotNull Supplier<CompletableFuture<T>> request) {
+        String uri = args != null ? LSPInFlightRequests.getUri(args) : null;
+        int version = uri != null ? documentVersionProvider.applyAsInt(uri) : -1;
+        if (version < 0) {
+            // The document is not synchronized with the language server
+            return request.get();
+        }
+        CompletableFuture<T> lspRequest = request.get();
+        CompletableFuture<T> result = lspRequest.thenApply(response -> {
+            if (documentVersionProvider.applyAsInt(uri) != version) {
+                // The response has been computed for a document content which has been superseded
+                throw new CancellationException("Document version " + version + " has changed while 'textDocument/" + methodName + "' was processed.");
+            }
+            return response;
+        });
+        return cancelWith(result, lspRequest);
+    }
+
+    /**
+     * Cancel the given source future when the given dependent future is cancelled.
+     *
+     * @param dependent the dependent future (ex : created with thenApply).
+     * @param source    the source future (ex : the LSP request).
+     * @param <T>       the result type.
+     * @return the dependent future.
+     */
+    static <T> @NotNull CompletableFuture<T> cancelWith(@NotNull CompletableFuture<T> dependent, @NotNull CompletableFuture<?> source) {
+        dependent.whenComplete((r, e) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    private static @NotNull Type getResultType(@NotNull Method method) {
+        // ex : CompletableFuture<List<FoldingRange>> -> List<FoldingRange>
+        Type returnType = method.getGenericReturnType();
+        if (returnType instanceof ParameterizedType parameterizedType) {
+            return parameterizedType.getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    private static Object invokeMethod(@NotNull Object delegate, @NotNull Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Cancel all scheduled requests (ex : when the language server is stopped).
+     */
+    public void cancelAll() {
+        List<ScheduledRequest<?>> toCancel = new ArrayList<>();
+        synchronized (lock) {
+            for (Deque<ScheduledRequest<?>> queue : queues.values()) {
+                toCancel.addAll(queue);
+                queue.clear();
+            }
+            toCancel.addAll(inFlightRequests);
+        }
+        for (ScheduledRequest<?> request : toCancel) {
+            request.result.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the number of requests sent to the language server which are waiting for a response.
+     *
+     * @return the number of requests sent to the language server which are waiting for a response.
+     */
+    public int getInFlightCount() {
+        synchronized (lock) {
+            return inFlightRequests.size();
+        }
+    }
+
+    /**
+     * Returns the number of requests which are waiting to be sent to the language server.
+     *
+     * @return the number of requests which are waiting to be sent to the language server.
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            int size = 0;
+            for (Deque<ScheduledRequest<?>> queue : queues.values()) {
+                size += queue.size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Returns a future which is completed when no request is in flight or waiting to be sent to the language server.
+     *
+     * @return a future which is completed when no request is in flight or waiting to be sent to the language server.
+     */
+    public @NotNull CompletableFuture<Void> whenIdle() {
+        CompletableFuture<Void> idle = new CompletableFuture<>();
+        synchronized (lock) {
+            if (!isIdle()) {
+                idleFutures.add(idle);
+                return idle;
+            }
+        }
+        idle.complete(null);
+        return idle;
+    }
+
+    private boolean isIdle() {
+        if (!inFlightRequests.isEmpty()) {
+            return false;
+        }
+        for (Deque<ScheduledRequest<?>> queue : queues.values()) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void enqueue(@NotNull ScheduledRequest<?> request, boolean preempted) {
+        CompletableFuture<?> toPreempt = null;
+        synchronized (lock) {
+            if (preempted) {
+                // Preempted requests are sent first when a background slot is available
+                queues.get(request.priority).addFirst(request);
+            } else {
+                queues.get(request.priority).addLast(request);
+            }
+            if (request.priority == Priority.INTERACTIVE && inFlightRequests.size() >= maxConcurrentRequests) {
+                toPreempt = preemptBackgroundRequest();
+            }
+        }
+        if (toPreempt != null) {
+            // Cancel the LSP request outside the lock: lsp4j sends the '$/cancelRequest' and completes the future
+            toPreempt.cancel(true);
+        }
+        dispatch();
+    }
+
+    private @Nullable CompletableFuture<?> preemptBackgroundRequest() {
+        for (int i = inFlightRequests.size() - 1; i >= 0; i--) {
+            ScheduledRequest<?> request = inFlightRequests.get(i);
+            if (request.priority == Priority.BACKGROUND && !request.preempted && request.inFlight != null) {
+                request.preempted = true;
+                return request.inFlight;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch() {
+        while (true) {
+            ScheduledRequest<?> next;
+            synchronized (lock) {
+                next = pollNext();
+                if (next == null) {
+                    return;
+                }
+                inFlightRequests.add(next);
+            }
+            next.send();
+        }
+    }
+
+    private @Nullable ScheduledRequest<?> pollNext() {
+        int inFlight = inFlightRequests.size();
+        if (inFlight >= maxConcurrentRequests) {
+            return null;
+        }
+        for (Priority priority : Priority.values()) {
+            if (priority == Priority.BACKGROUND && maxConcurrentRequests > 1 && inFlight >= maxConcurrentRequests - 1) {
+                // Keep the last slot for interactive requests
+                return null;
+            }
+            ScheduledRequest<?> request = queues.get(priority).pollFirst();
+            if (request != null) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    private void onDone(@NotNull ScheduledRequest<?> request) {
+        synchronized (lock) {
+            inFlightRequests.remove(request);
+        }
+        dispatch();
+        List<CompletableFuture<Void>> idle = null;
+        synchronized (lock) {
+            if (!idleFutures.isEmpty() && isIdle()) {
+                idle = new ArrayList<>(idleFutures);
+                idleFutures.clear();
+            }
+        }
+        if (idle != null) {
+            idle.forEach(future -> future.complete(null));
+        }
+    }
+
+    private void onCancelled(@NotNull ScheduledRequest<?> request) {
+        CompletableFuture<?> inFlight;
+        synchronized (lock) {
+            queues.get(request.priority).remove(request);
+            inFlight = request.inFlight;
+        }
+        if (inFlight != null && !inFlight.isDone()) {
+            // Send the '$/cancelRequest'
+            inFlight.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Watchdog which detects a language server which doesn't answer anymore without crashing (ex : infinite loop, deadlock).
+ *
+ * <p>
+ * The watchdog tracks the LSP requests sent to the language server with a deadline which depends on the
+ * request method (long-running requests like textDocument/references have a longer deadline) or else on the
+ * request priority (see {@link LSPRequestScheduler#getPriority(String)}) and the time of the last message
+ * received from the language server. The language server is considered as stalled when:
+ * </p>
+ *
+ * <ul>
+ *     <li>requests have exceeded their deadline and no message has been received from the language server
+ *     for the stall timeout.</li>
+ *     <li>or a request has exceeded its deadline and the language server doesn't answer to a liveness probe
+ *     (any response, even an error like 'MethodNotFound', means that the language server is alive).</li>
+ * </ul>
+ *
+ * <p>
+ * A stall is reported once to the stall handler, until a new message is received from the language server.
+ * </p>
+ */
+public class LSPRequestWatchdog {
+
+    /**
+     * Action executed when the language server is stalled.
+     */
+    public enum StallAction {
+        /**
+         * Cancel the pending requests ('$/cancelRequest') to unblock the callers.
+         */
+        cancel,
+        /**
+         * Notify the user who can restart the language server (default action).
+         */
+        notify,
+        /**
+         * Restart the language server and reconnect the opened documents.
+         */
+        restart;
+
+        public static @NotNull StallAction get(@Nullable String value) {
+            if (value != null) {
+                for (StallAction action : values()) {
+                    if (action.name().equalsIgnoreCase(value)) {
+                        return action;
+                    }
+                }
+            }
+            return notify;
+        }
+    }
+
+    /**
+     * Stall of the language server.
+     *
+     * @param reason          the reason of the stall.
+     * @param pendingRequests the pending requests.
+     */
+    public record StallEvent(@NotNull String reason, @NotNull List<CompletableFuture<?>> pendingRequests) {
+    }
+
+    private record PendingRequest(@NotNull String method, long startTime, long deadline) {
+    }
+
+    private static final long CHECK_INTERVAL = 1000;
+
+    private static final long PROBE_TIMEOUT = 5000;
+
+    // Deadlines of the requests which can take a long time, even when the user waits for them
+    private static final Map<String, Long> METHOD_DEADLINES = Map.of(
+            "references", 60000L,
+            "implementation", 30000L,
+            "rename", 60000L,
+            "formatting", 30000L,
+            "rangeFormatting", 30000L,
+            "codeAction", 15000L,
+            "resolveCodeAction", 15000L);
+
+    private static final Map<LSPRequestScheduler.Priority, Long> PRIORITY_DEADLINES = new EnumMap<>(Map.of(
+            LSPRequestScheduler.Priority.INTERACTIVE, 5000L,
+            LSPRequestScheduler.Priority.NORMAL, 15000L,
+            LSPRequestScheduler.Priority.BACKGROUND, 30000L));
+
+    private final long stallTimeout;
+    private final @NotNull Supplier<CompletableFuture<?>> livenessProbe;
+    private final @NotNull Consumer<StallEvent> stallHandler;
+
+    private final Map<CompletableFuture<?>, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private volatile long lastMessageTime;
+
+    private final Object lock = new Object();
+    private @Nullable ScheduledFuture<?> checkTask;
+    private @Nullable CompletableFuture<?> probe;
+    private long probeTime;
+    // true when the language server ignores the liveness probe (no response while other messages are received)
+    private boolean probeIgnored;
+    private volatile boolean stalled;
+
+    /**
+     * Constructor.
+     *
+     * @param stallTimeout  the time (in milliseconds) without message from the language server while requests have exceeded
+     *                      their deadline after which the language server is stalled, 0 to disable the watchdog.
+     * @param livenessProbe the supplier which sends a request to the language server which must answer quickly.
+     * @param stallHandler  the handler called when the language server is stalled.
+     */
+    public LSPRequestWatchdog(long stallTimeout,
+                              @NotNull Supplier<CompletableFuture<?>> livenessProbe,
+                              @NotNull Consumer<StallEvent> stallHandler) {
+        this.stallTimeout = stallTimeout;
+        this.livenessProbe = livenessProbe;
+        this.stallHandler = stallHandler;
+    }
+
+    /**
+     * Returns true if the watchdog is enabled and false otherwise.
+     *
+     * @return true if the watchdog is enabled and false otherwise.
+     */
+    public boolean isEnabled() {
+        return stallTimeout > 0;
+    }
+
+    /**
+     * Track the given LSP request sent to the language server until it is completed.
+     *
+     * @param method  the LSP method (ex : completion).
+     * @param request the future of the LSP request.
+     * @param <T>     the result type.
+     * @return the given future.
+     */
+    public <T> @NotNull CompletableFuture<T> track(@NotNull String method, @NotNull CompletableFuture<T> request) {
+        if (!isEnabled() || request.isDone()) {
+            return request;
+        }
+        long now = now();
+        pendingRequests.put(request, new PendingRequest(method, now, now + getDeadline(method)));
+        request.whenComplete((r, e) -> pendingRequests.remove(request));
+        return request;
+    }
+
+    /**
+     * Returns the deadline (in milliseconds) of the given LSP method.
+     *
+     * @param method the LSP method (ex : completion).
+     * @return the deadline (in milliseconds) of the given LSP method.
+     */
+    static long getDeadline(@NotNull String method) {
+        Long deadline = METHOD_DEADLINES.get(method);
+        return deadline != null ? deadline : PRIORITY_DEADLINES.get(LSPRequestScheduler.getPriority(method));
+    }
+
+    /**
+     * Notify the watchdog that a message has been received from the language server.
+     */
+    public void onMessageReceived() {
+        lastMessageTime = now();
+        stalled = false;
+    }
+
+    /**
+     * Returns true if the language server is stalled and false otherwise.
+     *
+     * @return true if the language server is stalled and false otherwise.
+     */
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    /**
+     * Returns the number of requests sent to the language server which are waiting for a response.
+     *
+     * @return the number of requests sent to the language server which are waiting for a response.
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * Start the watchdog (when the language server is started).
+     */
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            if (checkTask != null) {
+                return;
+            }
+            lastMessageTime = now();
+            stalled = false;
+            probeIgnored = false;
+            checkTask = AppExecutorUtil.getAppScheduledExecutorService()
+                    .scheduleWithFixedDelay(this::check, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the watchdog (when the language server is stopped).
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (checkTask != null) {
+                checkTask.cancel(false);
+                checkTask = null;
+            }
+            if (probe != null) {
+                probe.cancel(true);
+                probe = null;
+            }
+            stalled = false;
+        }
+        pendingRequests.clear();
+    }
+
+    private void check() {
+        if (stalled || pendingRequests.isEmpty()) {
+            return;
+        }
+        long now = now();
+        // Only the requests which have exceeded their deadline are considered, a long-running request
+        // (ex : textDocument/references on a large project) is not a stall
+        long oldestStartTime = Long.MAX_VALUE;
+        int overdue = 0;
+        for (PendingRequest request : pendingRequests.values()) {
+            if (now > request.deadline()) {
+                oldestStartTime = Math.min(oldestStartTime, request.startTime());
+                overdue++;
+            }
+        }
+        if (overdue == 0) {
+            return;
+        }
+        String reason;
+        long silence = now - Math.max(lastMessageTime, oldestStartTime);
+        if (silence >= stallTimeout) {
+            reason = "No message received from the language server for " + TimeUnit.MILLISECONDS.toSeconds(silence)
+                    + "s while " + overdue + " requests have exceeded their deadline.";
+        } else {
+            reason = checkLiveness(now);
+        }
+        if (reason == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (checkTask == null || stalled) {
+                // The watchdog has been stopped
+                return;
+            }
+            stalled = true;
+        }
+        stallHandler.accept(new StallEvent(reason, new ArrayList<>(pendingRequests.keySet())));
+    }
+
+    private @Nullable String checkLiveness(long now) {
+        synchronized (lock) {
+            if (probeIgnored) {
+                // Only the time without message from the language server can be used to detect a stall
+                return null;
+            }
+            if (probe == null) {
+                // Some requests have exceeded their deadline, check that the language server still answers
+                // (a slow request must not be considered as a stall)
+                try {
+                    probe = livenessProbe.get();
+                } catch (RuntimeException e) {
+                    probe = CompletableFuture.failedFuture(e);
+                }
+                probeTime = now;
+                return null;
+            }
+            if (probe.isDone()) {
+                // The language server has answered (even with an error like 'MethodNotFound'),
+                // probe again when requests are overdue
+                if (now - probeTime >= PROBE_TIMEOUT) {
+                    probe = null;
+                }
+                return null;
+            }
+            if (now - probeTime < PROBE_TIMEOUT) {
+                return null;
+            }
+            probe.cancel(true);
+            probe = null;
+            if (lastMessageTime >= probeTime) {
+                // The language server is alive but doesn't answer to the liveness probe
+                probeIgnored = true;
+                return null;
+            }
+        }
+        return "The language server has not answered to the liveness probe within " + TimeUnit.MILLISECONDS.toSeconds(PROBE_TIMEOUT) + "s.";
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import com.google.gson.Gson;
+import org.microshed.lsp4ij.JSONUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of the responses of the read-only LSP requests (ex : textDocument/foldingRange) sent to a language server.
+ *
+ * <p>
+ * A response is cached with the method, the parameters and the hash of the document content known by the language server,
+ * so that the response is reused when the document comes back to a previous content (ex : undo) or when
+ * the same request is sent again for an unchanged document (ex : when switching between editors).
+ * </p>
+ *
+ * <p>
+ * The responses are stored as JSON to compute their size and to give a copy of the response to each caller
+ * (some feature supports update the LSP response, ex : conversion of the position encoding).
+ * When the size of the cache exceeds the max size, the least recently used responses are evicted.
+ * </p>
+ */
+public class LSPResponseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LSPResponseCache.class);
+
+    // The responses which can be resolved later (ex : codeLens, inlayHint, documentLink) are not cached: their 'data'
+    // is a server-side state which could have been dropped (ex : when the language server has been restarted),
+    // so a cached response could not be resolved anymore.
+    private static final Set<String> CACHEABLE_METHODS = Set.of(
+            "foldingRange", "documentColor", "hover", "documentSymbol");
+
+    // Estimated size (in bytes) of a cache entry without the JSON response
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private record ResponseKey(@NotNull String method, @NotNull String uri, @NotNull String contentHash, @NotNull Object[] params) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ResponseKey other
+                    && contentHash.equals(other.contentHash)
+                    && method.equals(other.method)
+                    && uri.equals(other.uri)
+                    && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * method.hashCode() + uri.hashCode()) + contentHash.hashCode()) + Arrays.hashCode(params);
+        }
+    }
+
+    private record CachedResponse(@NotNull String json, int size) {
+    }
+
+    private final long maxSize;
+    private final @NotNull Function<String, String> contentHashProvider;
+
+    // Access ordered map: the first entry is the least recently used response
+    private final LinkedHashMap<ResponseKey, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize             the maximum size (in bytes) of the cached responses, 0 to disable the cache.
+     * @param contentHashProvider the provider of the hash (SHA-256) of the document content known by the language server for a given uri
+     *                            (null if the language server doesn't know yet the current content).
+     */
+    public LSPResponseCache(long maxSize, @NotNull Function<String, String> contentHashProvider) {
+        this.maxSize = maxSize;
+        this.contentHashProvider = contentHashProvider;
+    }
+
+    /**
+     * Returns true if the response of the given {@link org.eclipse.lsp4j.services.TextDocumentService} method can be cached and false otherwise.
+     *
+     * @param methodName the method name of {@link org.eclipse.lsp4j.services.TextDocumentService} (ex : foldingRange).
+     * @return true if the response of the given method can be cached and false otherwise.
+     */
+    public static boolean isCacheable(@NotNull String methodName) {
+        return CACHEABLE_METHODS.contains(methodName);
+    }
+
+    /**
+     * Returns a copy of the cached response of the given LSP request or execute the LSP request and cache its response.
+     *
+     * @param method     the LSP method (ex : foldingRange).
+     * @param params     the LSP request parameters.
+     * @param resultType the type of the LSP response.
+     * @param request    the supplier which sends the LSP request.
+     * @param <T>        the result type.
+     * @return the future of the LSP response.
+     */
+    public <T> @NotNull CompletableFuture<T> execute(@NotNull String method, @Nullable Object[] params, @NotNull Type resultType,
+                                                     @NotNull Supplier<CompletableFuture<T>> request) {
+        if (maxSize <= 0 || params == null) {
+            return request.get();
+        }
+        String uri = LSPInFlightRequests.getUri(params);
+        String contentHash = uri != null ? contentHashProvider.apply(uri) : null;
+        if (contentHash == null) {
+            // - the LSP request is not for a document
+            // - or the language server doesn't know yet the current content of the document
+            return request.get();
+        }
+        ResponseKey key = new ResponseKey(method, uri, contentHash, params.clone());
+        CachedResponse cached;
+        synchronized (responses) {
+            cached = responses.get(key);
+            if (cached != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        Gson gson = JSONUtils.getLsp4jGson();
+        if (cached != null) {
+            try {
+                return CompletableFuture.completedFuture(gson.fromJson(cached.json(), resultType));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Error while reading the cached '" + method + "' response", e);
+                remove(key);
+            }
+        }
+        CompletableFuture<T> lspRequest = request.get();
+        return LSPRequestScheduler.cancelWith(lspRequest
+                .thenApply(result -> {
+                    // Serialize the response before giving it to the caller which could update it
+                    try {
+                        String json = gson.toJson(result);
+                        put(key, new CachedResponse(json, ENTRY_OVERHEAD + 2 * json.length()));
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Error while caching the '" + method + "' response", e);
+                    }
+                    return result;
+                }), lspRequest);
+    }
+
+    private void put(@NotNull ResponseKey key, @NotNull CachedResponse response) {
+        if (response.size() > maxSize) {
+            return;
+        }
+        synchronized (responses) {
+            CachedResponse old = responses.put(key, response);
+            if (old != null) {
+                size -= old.size();
+            }
+            size += response.size();
+            Iterator<CachedResponse> it = responses.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= it.next().size();
+                it.remove();
+                evictionCount++;
+            }
+        }
+    }
+
+    private void remove(@NotNull ResponseKey key) {
+        synchronized (responses) {
+            CachedResponse old = responses.remove(key);
+            if (old != null) {
+                size -= old.size();
+            }
+        }
+    }
+
+    /**
+     * Evict the cached responses of all documents except the given document.
+     *
+     * <p>
+     * The responses of a document can depend on the content of other documents (ex : hover of a type
+     * declared in another document), so they are evicted when another document changes. The responses
+     * of the changed document are kept, they are cached with the content hash of the document.
+     * </p>
+     *
+     * @param uri the uri of the changed document.
+     */
+    public void evictAllExcept(@NotNull String uri) {
+        synchronized (responses) {
+            Iterator<Map.Entry<ResponseKey, CachedResponse>> it = responses.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ResponseKey, CachedResponse> entry = it.next();
+                if (!uri.equals(entry.getKey().uri())) {
+                    size -= entry.getValue().size();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict all cached responses (ex : when the language server is stopped, when watched files change).
+     */
+    public void evictAll() {
+        synchronized (responses) {
+            responses.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the number of requests served by the cache.
+     *
+     * @return the number of requests served by the cache.
+     */
+    public long getHitCount() {
+        synchronized (responses) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Returns the number of cacheable requests which have been sent to the language server.
+     *
+     * @return the number of cacheable requests which have been sent to the language server.
+     */
+    public long getMissCount() {
+        synchronized (responses) {
+            return missCount;
+        }
+    }
+
+    /**
+     * Returns the number of responses evicted because the cache was full.
+     *
+     * @return the number of responses evicted because the cache was full.
+     */
+    public long getEvictionCount() {
+        synchronized (responses) {
+            return evictionCount;
+        }
+    }
+
+    /**
+     * Returns the estimated size (in bytes) of the cached responses.
+     *
+     * @return the estimated size (in bytes) of the cached responses.
+     */
+    public long getSize() {
+        synchronized (responses) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return the number of cached responses.
+     */
+    public int getResponseCount() {
+        synchronized (responses) {
+            return responses.size();
+        }
+    }
+}
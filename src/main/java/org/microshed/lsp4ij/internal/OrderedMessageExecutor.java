@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor which executes the tasks one by one in a dedicated thread, in the order where they have been submitted.
+ *
+ * <p>
+ * The pending tasks are stored in a bounded queue. When the queue is full, {@link #execute(Runnable)} blocks
+ * the submitting thread until a task has been executed. For JSON-RPC messages received from a language server,
+ * the submitting thread is the thread which reads the process output, so a language server which floods
+ * messages is slowed down instead of flooding the IDE.
+ * </p>
+ */
+public class OrderedMessageExecutor implements Executor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final BlockingQueue<Runnable> queue;
+
+    private final AtomicInteger maxQueueSize = new AtomicInteger();
+
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * Create an ordered executor.
+     *
+     * @param threadName the name of the thread which executes the tasks.
+     * @param capacity   the maximum number of pending tasks before blocking the submitting thread.
+     */
+    public OrderedMessageExecutor(@NotNull String threadName, int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue,
+                new ThreadFactoryBuilder().setNameFormat(threadName).setDaemon(true).build(),
+                this::waitForCapacity);
+    }
+
+    @Override
+    public void execute(@NotNull Runnable task) {
+        executor.execute(task);
+        maxQueueSize.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    private void waitForCapacity(@NotNull Runnable task, @NotNull ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Executor has been shutdown");
+        }
+        // The queue is full, block the submitting thread until a task has been consumed.
+        throttledCount.incrementAndGet();
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * Returns the number of tasks which are waiting to be executed.
+     *
+     * @return the number of tasks which are waiting to be executed.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the maximum number of tasks which have been waiting at the same time.
+     *
+     * @return the maximum number of tasks which have been waiting at the same time.
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize.get();
+    }
+
+    /**
+     * Returns the number of times a submitting thread has been blocked because the queue was full.
+     *
+     * @return the number of times a submitting thread has been blocked because the queue was full.
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Returns the number of tasks which have been executed.
+     *
+     * @return the number of tasks which have been executed.
+     */
+    public long getExecutedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Stop the executor and discard the pending tasks.
+     */
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+}
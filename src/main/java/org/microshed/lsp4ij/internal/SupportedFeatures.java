@@ -31,6 +31,7 @@ public class SupportedFeatures {
         publishDiagnosticsCapabilities.setDataSupport(Boolean.TRUE);
         publishDiagnosticsCapabilities.setCodeDescriptionSupport(Boolean.TRUE);
         publishDiagnosticsCapabilities.setRelatedInformation(Boolean.TRUE);
+        publishDiagnosticsCapabilities.setVersionSupport(Boolean.TRUE);
         textDocumentClientCapabilities.setPublishDiagnostics(publishDiagnosticsCapabilities);
 
         // Code Action support
@@ -162,7 +163,9 @@ public class SupportedFeatures {
         // TODO
         // editCapabilities.setFailureHandling(FailureHandlingKind.Undo);
         workspaceClientCapabilities.setWorkspaceEdit(editCapabilities);
-        workspaceClientCapabilities.setDidChangeWatchedFiles(new DidChangeWatchedFilesCapabilities(Boolean.TRUE));
+        DidChangeWatchedFilesCapabilities didChangeWatchedFilesCapabilities = new DidChangeWatchedFilesCapabilities(Boolean.TRUE);
+        didChangeWatchedFilesCapabilities.setRelativePatternSupport(Boolean.TRUE);
+        workspaceClientCapabilities.setDidChangeWatchedFiles(didChangeWatchedFilesCapabilities);
 
         workspaceClientCapabilities.setDidChangeConfiguration(new DidChangeConfigurationCapabilities(Boolean.TRUE));
 
@@ -180,4 +183,14 @@ public class SupportedFeatures {
         return windowClientCapabilities;
     }
 
+    public static @NotNull GeneralClientCapabilities getGeneralClientCapabilities() {
+        final var generalClientCapabilities = new GeneralClientCapabilities();
+        // Position encodings supported by LSP4IJ, in order of preference (UTF-16 is the IntelliJ Document encoding).
+        generalClientCapabilities.setPositionEncodings(Arrays.asList(
+                PositionEncodingKind.UTF16,
+                PositionEncodingKind.UTF8,
+                PositionEncodingKind.UTF32));
+        return generalClientCapabilities;
+    }
+
 }
\ No newline at end of file
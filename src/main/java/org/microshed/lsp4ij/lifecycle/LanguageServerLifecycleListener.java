@@ -30,6 +30,16 @@ public interface LanguageServerLifecycleListener {
 
     void handleError(LanguageServerWrapper languageServer, Throwable exception);
 
+    /**
+     * Handle the lines (separated by '\n') written by the language server process in its error output.
+     *
+     * @param languageServer the language server.
+     * @param text           the lines written in the error output.
+     */
+    default void handleErrorOutput(LanguageServerWrapper languageServer, String text) {
+        // Do nothing
+    }
+
     void dispose();
 
 }
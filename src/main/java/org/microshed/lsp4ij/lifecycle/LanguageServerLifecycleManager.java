@@ -93,6 +93,19 @@ public class LanguageServerLifecycleManager {
             }
         }
     }
+
+    public void onErrorOutput(LanguageServerWrapper languageServer, String text) {
+        if (isDisposed()) {
+            return;
+        }
+        for (LanguageServerLifecycleListener listener : this.listeners) {
+            try {
+                listener.handleErrorOutput(languageServer, text);
+            } catch (Exception e) {
+                LOGGER.error("Error while handling error output of the language server '" + languageServer.getServerDefinition().getId() + "'", e);
+            }
+        }
+    }
     public boolean isDisposed() {
         return disposed;
     }
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import com.google.gson.GsonBuilder;
+import org.eclipse.lsp4j.jsonrpc.*;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * LSP4J launcher builder which reads / writes the JSON-RPC messages with buffers reused for all the messages
+ * (see {@link BufferedMessageProducer} and {@link BufferedMessageConsumer}), to reduce the garbage created by
+ * big messages (ex : textDocument/publishDiagnostics, textDocument/completion, textDocument/semanticTokens).
+ * The big strings of the written messages (ex : the document text of textDocument/didOpen) are streamed
+ * (see {@link StreamedTextTypeAdapter}).
+ *
+ * @param <T> the remote interface.
+ */
+public class BufferedLauncherBuilder<T> extends Launcher.Builder<T> {
+
+    private StreamedTextTypeAdapter streamedTextAdapter;
+
+    @Override
+    public Launcher<T> create() {
+        // Validate input
+        if (input == null) {
+            throw new IllegalStateException("Input stream must be configured.");
+        }
+        if (output == null) {
+            throw new IllegalStateException("Output stream must be configured.");
+        }
+        if (localServices == null) {
+            throw new IllegalStateException("Local service must be configured.");
+        }
+        if (remoteInterfaces == null) {
+            throw new IllegalStateException("Remote interface must be configured.");
+        }
+
+        // Create the JSON handler, remote endpoint and remote proxy
+        streamedTextAdapter = new StreamedTextTypeAdapter();
+        MessageJsonHandler jsonHandler = createJsonHandler();
+        if (messageTracer != null) {
+            messageTracer.setJsonHandler(jsonHandler);
+        }
+        RemoteEndpoint remoteEndpoint = createRemoteEndpoint(jsonHandler);
+        T remoteProxy = createProxy(remoteEndpoint);
+
+        // Create the message processor
+        BufferedMessageProducer reader = new BufferedMessageProducer(input, jsonHandler, remoteEndpoint);
+        MessageConsumer messageConsumer = wrapMessageConsumer(remoteEndpoint);
+        ConcurrentMessageProcessor msgProcessor = createMessageProcessor(reader, messageConsumer, remoteProxy);
+        ExecutorService execService = executorService != null ? executorService : Executors.newCachedThreadPool();
+        return createLauncher(execService, remoteProxy, remoteEndpoint, msgProcessor);
+    }
+
+    @Override
+    protected MessageJsonHandler createJsonHandler() {
+        Consumer<GsonBuilder> configureGson = this.configureGson;
+        return new MessageJsonHandler(getSupportedMethods(), gsonBuilder -> {
+            gsonBuilder.registerTypeAdapter(String.class, streamedTextAdapter);
+            if (configureGson != null) {
+                configureGson.accept(gsonBuilder);
+            }
+        });
+    }
+
+    @Override
+    protected RemoteEndpoint createRemoteEndpoint(MessageJsonHandler jsonHandler) {
+        MessageConsumer outgoingMessageStream = wrapMessageConsumer(new BufferedMessageConsumer(output, jsonHandler, streamedTextAdapter));
+        Endpoint localEndpoint = ServiceEndpoints.toEndpoint(localServices);
+        RemoteEndpoint remoteEndpoint;
+        if (exceptionHandler == null) {
+            remoteEndpoint = new RemoteEndpoint(outgoingMessageStream, localEndpoint);
+        } else {
+            remoteEndpoint = new RemoteEndpoint(outgoingMessageStream, localEndpoint, exceptionHandler);
+        }
+        jsonHandler.setMethodProvider(remoteEndpoint);
+        remoteEndpoint.setJsonHandler(jsonHandler);
+        return remoteEndpoint;
+    }
+}
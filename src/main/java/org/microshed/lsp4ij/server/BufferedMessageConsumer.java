@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.eclipse.lsp4j.jsonrpc.JsonRpcException;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageConstants;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON-RPC message consumer which writes the 'Content-Length' framed messages with a reused buffer.
+ *
+ * <p>
+ * Compared to the LSP4J {@link org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer}, the message is serialized
+ * with Gson directly in UTF-8 in a buffer reused for all the messages, instead of creating a String and a byte
+ * array per message. The big strings are not copied in the buffer but streamed when the message is written
+ * (see {@link StreamedTextTypeAdapter}).
+ * </p>
+ */
+class BufferedMessageConsumer implements MessageConsumer, MessageConstants {
+
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+
+    private record StreamedText(int offset, @NotNull String text) {
+    }
+
+    private final @NotNull OutputStream output;
+    private final @NotNull MessageJsonHandler jsonHandler;
+    private final @NotNull StreamedTextTypeAdapter streamedTextAdapter;
+
+    private final MessageBuffer content = new MessageBuffer();
+    private final StringBuilder header = new StringBuilder(32);
+    private final byte[] headerBytes = new byte[64];
+    private final List<StreamedText> streamedTexts = new ArrayList<>();
+    private byte[] streamBuffer;
+
+    BufferedMessageConsumer(@NotNull OutputStream output, @NotNull MessageJsonHandler jsonHandler,
+                            @NotNull StreamedTextTypeAdapter streamedTextAdapter) {
+        this.output = output;
+        this.jsonHandler = jsonHandler;
+        this.streamedTextAdapter = streamedTextAdapter;
+    }
+
+    @Override
+    public synchronized void consume(Message message) {
+        try {
+            Writer writer = content.writer();
+            streamedTextAdapter.startStreaming(this);
+            try {
+                jsonHandler.serialize(message, writer);
+            } finally {
+                streamedTextAdapter.stopStreaming();
+            }
+            writer.close();
+
+            if (streamedTexts.isEmpty()) {
+                writeHeader(content.size());
+                output.write(content.getBytes(), 0, content.size());
+            } else {
+                writeWithStreamedTexts();
+            }
+            output.flush();
+        } catch (IOException exception) {
+            throw new JsonRpcException(exception);
+        } finally {
+            streamedTexts.clear();
+            content.release();
+        }
+    }
+
+    /**
+     * Stream the given text in the string which has just been serialized (an empty string) in the message content.
+     *
+     * @param text the text.
+     */
+    void streamText(@NotNull String text) {
+        // The offset of the closing quote of the empty string
+        streamedTexts.add(new StreamedText(content.size() - 1, text));
+    }
+
+    /**
+     * Write the message content with the streamed texts.
+     *
+     * @throws IOException if the output stream cannot be written.
+     */
+    private void writeWithStreamedTexts() throws IOException {
+        byte[] bytes = content.getBytes();
+        int size = content.size();
+        // The byte length is computed before writing the texts to write the 'Content-Length' header
+        long contentLength = size;
+        for (StreamedText streamedText : streamedTexts) {
+            contentLength += StreamedTextTypeAdapter.getEscapedLength(streamedText.text());
+        }
+        if (contentLength > Integer.MAX_VALUE) {
+            throw new IOException("Message too large: " + contentLength + " bytes");
+        }
+        if (streamBuffer == null) {
+            streamBuffer = new byte[STREAM_BUFFER_SIZE];
+        }
+        writeHeader((int) contentLength);
+        int position = 0;
+        for (StreamedText streamedText : streamedTexts) {
+            output.write(bytes, position, streamedText.offset() - position);
+            StreamedTextTypeAdapter.writeEscaped(streamedText.text(), output, streamBuffer);
+            position = streamedText.offset();
+        }
+        output.write(bytes, position, size - position);
+    }
+
+    private void writeHeader(int contentLength) throws IOException {
+        header.setLength(0);
+        header.append(CONTENT_LENGTH_HEADER).append(": ").append(contentLength).append(CRLF).append(CRLF);
+        int headerLength = header.length();
+        for (int i = 0; i < headerLength; i++) {
+            headerBytes[i] = (byte) header.charAt(i);
+        }
+        output.write(headerBytes, 0, headerLength);
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.eclipse.lsp4j.jsonrpc.*;
+import org.eclipse.lsp4j.jsonrpc.json.MessageConstants;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON-RPC message producer which reads the 'Content-Length' framed messages with reused buffers.
+ *
+ * <p>
+ * Compared to the LSP4J {@link org.eclipse.lsp4j.jsonrpc.json.StreamMessageProducer}:
+ * </p>
+ * <ul>
+ *     <li>the headers are read by chunks instead of byte by byte, without creating Strings.</li>
+ *     <li>the content is read in a buffer reused for all the messages, and is parsed with the Gson
+ *     streaming reader through a UTF-8 reader of the buffer, instead of creating a byte array and a String
+ *     per message.</li>
+ * </ul>
+ */
+class BufferedMessageProducer implements MessageProducer, Closeable, MessageConstants {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferedMessageProducer.class);
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private static final byte[] CONTENT_LENGTH = (CONTENT_LENGTH_HEADER + ":").toLowerCase().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_TYPE = (CONTENT_TYPE_HEADER + ":").toLowerCase().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHARSET = "charset=".getBytes(StandardCharsets.US_ASCII);
+
+    private final @NotNull InputStream input;
+    private final @NotNull MessageJsonHandler jsonHandler;
+    private final @Nullable MessageIssueHandler issueHandler;
+
+    // Buffer of the bytes read from the input stream (headers and beginning of the content)
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final MessageBuffer content = new MessageBuffer();
+
+    private volatile boolean keepRunning;
+
+    BufferedMessageProducer(@NotNull InputStream input, @NotNull MessageJsonHandler jsonHandler, @Nullable MessageIssueHandler issueHandler) {
+        this.input = input;
+        this.jsonHandler = jsonHandler;
+        this.issueHandler = issueHandler;
+    }
+
+    @Override
+    public void listen(MessageConsumer callback) {
+        if (keepRunning) {
+            throw new IllegalStateException("This BufferedMessageProducer is already running.");
+        }
+        keepRunning = true;
+        try {
+            while (keepRunning) {
+                int contentLength = -1;
+                Charset charset = StandardCharsets.UTF_8;
+                // Read the headers until an empty line
+                int lineStart;
+                while ((lineStart = readLine()) != -1) {
+                    int lineEnd = position - 1;
+                    if (lineEnd > lineStart && readBuffer[lineEnd - 1] == '\r') {
+                        lineEnd--;
+                    }
+                    if (lineEnd == lineStart) {
+                        break;
+                    }
+                    if (startsWithIgnoreCase(lineStart, lineEnd, CONTENT_LENGTH)) {
+                        contentLength = parseInt(lineStart + CONTENT_LENGTH.length, lineEnd);
+                    } else if (startsWithIgnoreCase(lineStart, lineEnd, CONTENT_TYPE)) {
+                        charset = parseCharset(lineStart + CONTENT_TYPE.length, lineEnd, charset);
+                    }
+                }
+                if (lineStart == -1) {
+                    // End of the stream
+                    keepRunning = false;
+                } else if (contentLength < 0) {
+                    fireError(new IllegalStateException("Missing header " + CONTENT_LENGTH_HEADER + " in input"));
+                } else if (!handleMessage(callback, contentLength, charset)) {
+                    keepRunning = false;
+                }
+            }
+        } catch (IOException exception) {
+            if (JsonRpcException.indicatesStreamClosed(exception)) {
+                // Only log the error if we had intended to keep running
+                if (keepRunning) {
+                    LOGGER.info("The input stream was closed.", exception);
+                }
+            } else {
+                throw new JsonRpcException(exception);
+            }
+        } finally {
+            keepRunning = false;
+        }
+    }
+
+    private boolean handleMessage(@NotNull MessageConsumer callback, int contentLength, @NotNull Charset charset) throws IOException {
+        int count = Math.min(limit - position, contentLength);
+        boolean complete = content.readFrom(input, readBuffer, position, count, contentLength);
+        position += count;
+        if (!complete) {
+            return false;
+        }
+        try {
+            Message message;
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                message = jsonHandler.parseMessage(content.reader());
+            } else {
+                message = jsonHandler.parseMessage(new String(content.getBytes(), 0, content.size(), charset));
+            }
+            callback.consume(message);
+        } catch (MessageIssueException exception) {
+            // An issue was found while parsing or validating the message
+            if (issueHandler != null) {
+                issueHandler.handle(exception.getRpcMessage(), exception.getIssues());
+            } else {
+                fireError(exception);
+            }
+        } catch (Exception exception) {
+            // JsonParseException can be thrown by jsonHandler
+            // We also catch arbitrary exceptions that are thrown by message consumers in order to keep this thread alive
+            fireError(exception);
+        } finally {
+            content.release();
+        }
+        return true;
+    }
+
+    /**
+     * Read a line in the read buffer.
+     *
+     * @return the start offset of the line in the read buffer (the position is after the '\n')
+     * and -1 if the end of the stream has been reached.
+     * @throws IOException if the input stream cannot be read.
+     */
+    private int readLine() throws IOException {
+        int start = position;
+        int index = position;
+        while (true) {
+            while (index < limit) {
+                if (readBuffer[index++] == '\n') {
+                    position = index;
+                    return start;
+                }
+            }
+            if (start > 0) {
+                // Move the beginning of the line at the start of the buffer
+                System.arraycopy(readBuffer, start, readBuffer, 0, limit - start);
+                index -= start;
+                limit -= start;
+                start = 0;
+            } else if (limit == readBuffer.length) {
+                throw new IOException("Header line too long");
+            }
+            int n = input.read(readBuffer, limit, readBuffer.length - limit);
+            if (n == -1) {
+                return -1;
+            }
+            limit += n;
+        }
+    }
+
+    private boolean startsWithIgnoreCase(int start, int end, byte @NotNull [] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (Character.toLowerCase(readBuffer[start + i]) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt(int start, int end) {
+        int value = -1;
+        for (int i = start; i < end; i++) {
+            byte b = readBuffer[i];
+            if (b >= '0' && b <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (b - '0');
+            } else if (b == ' ') {
+                if (value >= 0) {
+                    break;
+                }
+            } else {
+                fireError(new IllegalStateException("Invalid " + CONTENT_LENGTH_HEADER + " header"));
+                return -1;
+            }
+        }
+        return value;
+    }
+
+    private @NotNull Charset parseCharset(int start, int end, @NotNull Charset defaultCharset) {
+        for (int i = start; i <= end - CHARSET.length; i++) {
+            if (startsWithIgnoreCase(i, end, CHARSET)) {
+                String charsetName = new String(readBuffer, i + CHARSET.length, end - i - CHARSET.length, StandardCharsets.US_ASCII).trim();
+                try {
+                    return Charset.forName(charsetName);
+                } catch (IllegalArgumentException e) {
+                    fireError(e);
+                    return defaultCharset;
+                }
+            }
+        }
+        return defaultCharset;
+    }
+
+    private void fireError(@NotNull Throwable error) {
+        LOGGER.error("Error while reading the JSON-RPC message", error);
+    }
+
+    @Override
+    public void close() throws IOException {
+        keepRunning = false;
+        input.close();
+    }
+}
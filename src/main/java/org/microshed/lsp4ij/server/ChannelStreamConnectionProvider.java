@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream connection provider which connects to a language server with a NIO {@link SocketChannel} (TCP or Unix domain socket).
+ *
+ * <p>
+ * Two modes are supported:
+ * </p>
+ * <ul>
+ *     <li>launch then connect: when commands are given, the language server process is started and the provider connects
+ *     to the socket opened by the process (the connection is retried until the connect timeout).</li>
+ *     <li>connect: when no command is given, the provider connects to an already running language server
+ *     (ex : a language server shared by several projects). Stopping the provider only closes the connection.</li>
+ * </ul>
+ *
+ * <p>
+ * The LSP messages are read / written directly on the channel with large buffers, which avoids the size limit
+ * of the process pipes for large messages.
+ * </p>
+ */
+public abstract class ChannelStreamConnectionProvider extends ProcessStreamConnectionProvider {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_SOCKET_BUFFER_SIZE = 1024 * 1024;
+
+    public static final long DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    private static final long CONNECT_RETRY_DELAY = 100;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+    private @Nullable SocketChannel channel;
+    private @Nullable InputStream inputStream;
+    private @Nullable OutputStream outputStream;
+
+    protected ChannelStreamConnectionProvider() {
+    }
+
+    protected ChannelStreamConnectionProvider(@Nullable List<String> commands, @Nullable String workingDir) {
+        super(commands, workingDir);
+    }
+
+    /**
+     * Returns the address of the socket opened by the language server.
+     *
+     * @return the address of the socket opened by the language server.
+     */
+    protected abstract @NotNull SocketAddress getSocketAddress();
+
+    /**
+     * Open a channel connected to the given address.
+     *
+     * @param address the address of the socket opened by the language server.
+     * @return the connected channel.
+     * @throws IOException if the connection fails.
+     */
+    protected abstract @NotNull SocketChannel openChannel(@NotNull SocketAddress address) throws IOException;
+
+    /**
+     * Returns true if the language server process is started by this provider and false otherwise.
+     *
+     * @return true if the language server process is started by this provider and false otherwise.
+     */
+    public boolean isLaunched() {
+        List<String> commands = getCommands();
+        return commands != null && !commands.isEmpty();
+    }
+
+    @Override
+    public boolean isShutdownRequired() {
+        // In connect mode, the language server is not owned by the provider, only the connection is closed
+        return isLaunched();
+    }
+
+    @Override
+    protected ProcessBuilder createProcessBuilder() {
+        ProcessBuilder builder = super.createProcessBuilder();
+        // The LSP messages are exchanged with the socket, the standard output of the process is not read
+        // and must be discarded to avoid blocking the language server when the pipe is full
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        return builder;
+    }
+
+    @Override
+    public void start() throws CannotStartProcessException {
+        if (isLaunched()) {
+            super.start();
+        }
+        SocketAddress address = getSocketAddress();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+        while (true) {
+            try {
+                SocketChannel channel = openChannel(address);
+                this.channel = channel;
+                this.inputStream = new ChannelInputStream(channel, bufferSize);
+                this.outputStream = new BufferedOutputStream(new ChannelOutputStream(channel), bufferSize);
+                return;
+            } catch (IOException e) {
+                // The language server process can take some time to open the socket
+                if (System.nanoTime() > deadline || (isLaunched() && !super.isAlive())) {
+                    super.stop();
+                    throw new CannotStartProcessException(new IOException("Unable to connect to the language server on '" + address + "'", e));
+                }
+            }
+            try {
+                Thread.sleep(CONNECT_RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                super.stop();
+                throw new CannotStartProcessException("Connection to the language server interrupted: " + this.toString()); //$NON-NLS-1$
+            }
+        }
+    }
+
+    @Override
+    public boolean isAlive() {
+        SocketChannel channel = this.channel;
+        if (channel == null || !channel.isOpen()) {
+            return false;
+        }
+        return !isLaunched() || super.isAlive();
+    }
+
+    @Override
+    public void ensureIsAlive() throws CannotStartProcessException {
+        if (isLaunched()) {
+            super.ensureIsAlive();
+        }
+        if (!isAlive()) {
+            throw new CannotStartProcessException("Unable to connect to the language server: " + this.toString()); //$NON-NLS-1$
+        }
+    }
+
+    @Override
+    public @Nullable InputStream getInputStream() {
+        return inputStream;
+    }
+
+    @Override
+    public @Nullable OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public void stop() {
+        SocketChannel channel = this.channel;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Do nothing
+            }
+            this.channel = null;
+            this.inputStream = null;
+            this.outputStream = null;
+        }
+        super.stop();
+    }
+
+    /**
+     * Returns the size (in bytes) of the buffers used to read / write the LSP messages.
+     *
+     * @return the size (in bytes) of the buffers used to read / write the LSP messages.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) to wait for the socket of the language server.
+     *
+     * @return the maximum time (in milliseconds) to wait for the socket of the language server.
+     */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ChannelStreamConnectionProvider other)) {
+            return false;
+        }
+        return super.equals(obj) && Objects.equals(this.getSocketAddress(), other.getSocketAddress());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), this.getSocketAddress());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [address=" + this.getSocketAddress() + ", commands=" + this.getCommands() //$NON-NLS-1$//$NON-NLS-2$
+                + ", workingDir=" + this.getWorkingDirectory() + "]"; //$NON-NLS-1$//$NON-NLS-2$
+    }
+
+    /**
+     * Input stream which reads the channel in a buffer.
+     *
+     * <p>
+     * {@link java.nio.channels.Channels#newInputStream} is not used because it locks the channel while reading,
+     * which blocks the writes of the output stream.
+     * </p>
+     */
+    private static class ChannelInputStream extends InputStream {
+
+        private final @NotNull SocketChannel channel;
+        private final @NotNull ByteBuffer buffer;
+
+        ChannelInputStream(@NotNull SocketChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+            this.buffer.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte @NotNull [] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        private boolean fill() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            return n > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Output stream which writes in the channel.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final @NotNull SocketChannel channel;
+
+        ChannelOutputStream(@NotNull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.eclipse.lsp4j.jsonrpc.*;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * LSP4J launcher builder which exchanges the JSON-RPC messages as Java objects with a launcher of the same JVM
+ * (without JSON serialization).
+ *
+ * <p>
+ * The messages sent by the remote endpoint are put in the outgoing channel and the messages of the incoming channel
+ * are consumed by the remote endpoint, in the listener thread of the launcher like with streams.
+ * The message wrappers (ex : traces) are applied like with a standard launcher.
+ * </p>
+ *
+ * @param <T> the remote interface.
+ */
+class DirectLauncherBuilder<T> extends Launcher.Builder<T> {
+
+    private final @NotNull MessageChannel incoming;
+    private final @NotNull MessageChannel outgoing;
+
+    DirectLauncherBuilder(@NotNull MessageChannel incoming, @NotNull MessageChannel outgoing) {
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+    }
+
+    @Override
+    public Launcher<T> create() {
+        // Input / output streams are not used
+        if (localServices == null) {
+            throw new IllegalStateException("Local service must be configured.");
+        }
+        if (remoteInterfaces == null) {
+            throw new IllegalStateException("Remote interface must be configured.");
+        }
+        // The JSON handler is only used to display the messages (ex : traces)
+        MessageJsonHandler jsonHandler = createJsonHandler();
+        if (messageTracer != null) {
+            messageTracer.setJsonHandler(jsonHandler);
+        }
+        RemoteEndpoint remoteEndpoint = createRemoteEndpoint(jsonHandler);
+        T remoteProxy = createProxy(remoteEndpoint);
+        MessageConsumer messageConsumer = wrapMessageConsumer(remoteEndpoint);
+        ConcurrentMessageProcessor msgProcessor = createMessageProcessor(incoming, messageConsumer, remoteProxy);
+        ExecutorService execService = executorService != null ? executorService : Executors.newCachedThreadPool();
+        return createLauncher(execService, remoteProxy, remoteEndpoint, msgProcessor);
+    }
+
+    @Override
+    protected RemoteEndpoint createRemoteEndpoint(MessageJsonHandler jsonHandler) {
+        MessageConsumer outgoingMessageStream = wrapMessageConsumer(outgoing);
+        Endpoint localEndpoint = ServiceEndpoints.toEndpoint(localServices);
+        RemoteEndpoint remoteEndpoint;
+        if (exceptionHandler == null) {
+            remoteEndpoint = new RemoteEndpoint(outgoingMessageStream, localEndpoint);
+        } else {
+            remoteEndpoint = new RemoteEndpoint(outgoingMessageStream, localEndpoint, exceptionHandler);
+        }
+        jsonHandler.setMethodProvider(remoteEndpoint);
+        remoteEndpoint.setJsonHandler(jsonHandler);
+        return remoteEndpoint;
+    }
+
+    /**
+     * Queue of JSON-RPC messages sent by a launcher and consumed by the listener thread of the other launcher.
+     */
+    static class MessageChannel implements MessageConsumer, MessageProducer, Closeable {
+
+        // Message put in the queue to stop the listener
+        private static final Message CLOSED = new NotificationMessage();
+
+        private final BlockingQueue<Message> messages = new LinkedBlockingQueue<>();
+        private volatile boolean closed;
+
+        @Override
+        public void consume(Message message) throws JsonRpcException {
+            if (closed) {
+                throw new JsonRpcException(new IOException("Channel closed"));
+            }
+            messages.add(message);
+        }
+
+        @Override
+        public void listen(MessageConsumer messageConsumer) {
+            try {
+                while (!closed) {
+                    Message message = messages.take();
+                    if (message == CLOSED) {
+                        return;
+                    }
+                    messageConsumer.consume(message);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            messages.add(CLOSED);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+
+/**
+ * In-memory pipe backed by a bounded ring buffer: the bytes written in the output stream are read from the input stream.
+ *
+ * <p>
+ * {@link PipedInputStream} is not used because it fails with 'Write end dead' when the thread which has written
+ * in the pipe has been terminated, which is common with the thread pools used by LSP4J.
+ * </p>
+ */
+final class InMemoryPipe implements Closeable {
+
+    private final byte[] buffer;
+    private int readPosition;
+    private int count;
+    private boolean closed;
+
+    private final InputStream inputStream = new InputStream() {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte @NotNull [] b, int off, int len) throws IOException {
+            return InMemoryPipe.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            synchronized (InMemoryPipe.this) {
+                return count;
+            }
+        }
+
+        @Override
+        public void close() {
+            InMemoryPipe.this.close();
+        }
+    };
+
+    private final OutputStream outputStream = new OutputStream() {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            InMemoryPipe.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            InMemoryPipe.this.close();
+        }
+    };
+
+    InMemoryPipe(int bufferSize) {
+        this.buffer = new byte[bufferSize];
+    }
+
+    @NotNull
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    @NotNull
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    private synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (count == 0 && !closed) {
+            waitForPipe();
+        }
+        if (count == 0) {
+            return -1;
+        }
+        int n = Math.min(len, Math.min(count, buffer.length - readPosition));
+        System.arraycopy(buffer, readPosition, b, off, n);
+        readPosition = (readPosition + n) % buffer.length;
+        count -= n;
+        notifyAll();
+        return n;
+    }
+
+    private synchronized void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            while (count == buffer.length && !closed) {
+                // The pipe is full, wait for the reader
+                waitForPipe();
+            }
+            if (closed) {
+                throw new IOException("Pipe closed");
+            }
+            int writePosition = (readPosition + count) % buffer.length;
+            int n = Math.min(len, Math.min(buffer.length - count, buffer.length - writePosition));
+            System.arraycopy(b, off, buffer, writePosition, n);
+            count += n;
+            off += n;
+            len -= n;
+            notifyAll();
+        }
+    }
+
+    private void waitForPipe() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
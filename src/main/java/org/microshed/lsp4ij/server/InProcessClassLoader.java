@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Class loader which isolates an in-process language server from the IDE classes.
+ *
+ * <p>
+ * The classes are loaded from the classpath of the language server, then from the JDK. Only the classes of the shared
+ * packages (ex : LSP4J, Gson) are loaded by the LSP4IJ class loader, to exchange the LSP model with the language server.
+ * </p>
+ */
+final class InProcessClassLoader extends URLClassLoader {
+
+    private final @NotNull ClassLoader sharedClassLoader;
+    private final @NotNull List<String> sharedPackages;
+
+    InProcessClassLoader(@NotNull String name, URL @NotNull [] urls, @NotNull ClassLoader sharedClassLoader, @NotNull List<String> sharedPackages) {
+        super(name, urls, ClassLoader.getPlatformClassLoader());
+        this.sharedClassLoader = sharedClassLoader;
+        this.sharedPackages = sharedPackages;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isShared(name)) {
+            return sharedClassLoader.loadClass(name);
+        }
+        return super.loadClass(name, resolve);
+    }
+
+    @Override
+    public URL getResource(String name) {
+        if (isShared(name.replace('/', '.'))) {
+            return sharedClassLoader.getResource(name);
+        }
+        return super.getResource(name);
+    }
+
+    private boolean isShared(@NotNull String name) {
+        for (String sharedPackage : sharedPackages) {
+            if (name.startsWith(sharedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.eclipse.lsp4j.jsonrpc.Launcher;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.json.JsonRpcMethod;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.lsp4j.services.LanguageClientAware;
+import org.eclipse.lsp4j.services.LanguageServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.lang.reflect.*;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stream connection provider which runs a Java language server inside the IDE JVM, in an isolated class loader,
+ * instead of spawning a new JVM (which costs seconds of startup and hundreds of MB of memory).
+ *
+ * <p>
+ * The language server class must have a public constructor without parameter. It is connected to the client
+ * with {@link LanguageClientAware#connect(LanguageClient)} (see {@link #connectClient(Object, LanguageClient)}).
+ * Two modes are supported:
+ * </p>
+ * <ul>
+ *     <li>{@link Mode#pipe}: the JSON-RPC messages are serialized in in-memory pipes, like with a process.</li>
+ *     <li>{@link Mode#direct}: the JSON-RPC messages are exchanged as Java objects, without JSON serialization.
+ *     The LSP4J model is shared by the client and the language server, so the language server must not update
+ *     the params it receives or the results it has returned, and must not expect
+ *     {@link com.google.gson.JsonElement} for the untyped fields (ex : CompletionItem#data).
+ *     The params and results of the JSON-RPC methods must be loaded by the LSP4IJ class loader (see
+ *     {@link #setSharedPackages(List)}): a class loaded by both class loaders would cause a {@link ClassCastException},
+ *     so the {@link Mode#pipe} mode is used when a JSON-RPC method uses a class which is not shared.</li>
+ * </ul>
+ *
+ * <p>
+ * The 'exit' notification is not sent to the language server, because some language servers call System.exit(),
+ * which would stop the IDE.
+ * </p>
+ */
+public class InProcessStreamConnectionProvider implements StreamConnectionProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InProcessStreamConnectionProvider.class);
+
+    /**
+     * Connection mode between the client and the in-process language server.
+     */
+    public enum Mode {
+        /**
+         * The JSON-RPC messages are serialized in in-memory pipes.
+         */
+        pipe,
+        /**
+         * The JSON-RPC messages are exchanged as Java objects.
+         */
+        direct
+    }
+
+    /**
+     * Packages loaded by the LSP4IJ class loader and shared with the language server.
+     */
+    public static final List<String> DEFAULT_SHARED_PACKAGES = List.of("org.eclipse.lsp4j.", "com.google.gson.");
+
+    private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
+
+    private final @NotNull String serverClassName;
+    private final @NotNull List<Path> classpath;
+    private final @NotNull Class<? extends LanguageClient> clientInterface;
+    private final @NotNull Mode mode;
+    private @NotNull List<String> sharedPackages = DEFAULT_SHARED_PACKAGES;
+
+    private @Nullable InProcessClassLoader classLoader;
+    private @Nullable ExecutorService executor;
+    private @Nullable Future<Void> serverFuture;
+    private @Nullable InMemoryPipe clientToServer;
+    private @Nullable InMemoryPipe serverToClient;
+    private @Nullable DirectLauncherBuilder.MessageChannel toServer;
+    private @Nullable DirectLauncherBuilder.MessageChannel toClient;
+    private volatile boolean exited;
+    private volatile boolean direct;
+
+    /**
+     * Constructor.
+     *
+     * @param serverClassName the class name of the language server.
+     * @param classpath       the jars / directories of the language server.
+     */
+    public InProcessStreamConnectionProvider(@NotNull String serverClassName, @NotNull List<Path> classpath) {
+        this(serverClassName, classpath, LanguageClient.class, Mode.pipe);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param serverClassName the class name of the language server.
+     * @param classpath       the jars / directories of the language server.
+     * @param clientInterface the client interface used by the language server (ex : to support custom notifications).
+     * @param mode            the connection mode.
+     */
+    public InProcessStreamConnectionProvider(@NotNull String serverClassName,
+                                             @NotNull List<Path> classpath,
+                                             @NotNull Class<? extends LanguageClient> clientInterface,
+                                             @NotNull Mode mode) {
+        this.serverClassName = serverClassName;
+        this.classpath = classpath;
+        this.clientInterface = clientInterface;
+        this.mode = mode;
+    }
+
+    @Override
+    public void start() throws CannotStartProcessException {
+        try {
+            InProcessClassLoader classLoader = createClassLoader();
+            this.classLoader = classLoader;
+            Object server = createServer(classLoader);
+
+            AtomicInteger threadCount = new AtomicInteger();
+            String threadName = "LS-in-process-" + serverClassName.substring(serverClassName.lastIndexOf('.') + 1) + "-"; //$NON-NLS-1$ //$NON-NLS-2$
+            ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, threadName + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            });
+            this.executor = executor;
+
+            direct = mode == Mode.direct && checkSharedTypes(server, classLoader);
+            Launcher.Builder<LanguageClient> builder;
+            if (direct) {
+                toServer = new DirectLauncherBuilder.MessageChannel();
+                toClient = new DirectLauncherBuilder.MessageChannel();
+                builder = new DirectLauncherBuilder<>(toServer, toClient);
+            } else {
+                clientToServer = new InMemoryPipe(PIPE_BUFFER_SIZE);
+                serverToClient = new InMemoryPipe(PIPE_BUFFER_SIZE);
+                builder = new Launcher.Builder<LanguageClient>()
+                        .setInput(clientToServer.getInputStream())
+                        .setOutput(serverToClient.getOutputStream());
+            }
+            Launcher<LanguageClient> launcher = builder
+                    .setLocalService(server)
+                    .setRemoteInterface(clientInterface)
+                    .setExecutorService(executor)
+                    .wrapMessages(this::ignoreExit)
+                    .create();
+            connectClient(server, launcher.getRemoteProxy());
+            exited = false;
+            serverFuture = launcher.startListening();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException | MalformedURLException e) {
+            stop();
+            throw new CannotStartProcessException(new IOException("Unable to start the in-process language server '" + serverClassName + "'", e));
+        }
+    }
+
+    private @NotNull InProcessClassLoader createClassLoader() throws MalformedURLException {
+        URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = classpath.get(i).toUri().toURL();
+        }
+        return new InProcessClassLoader(serverClassName, urls, InProcessStreamConnectionProvider.class.getClassLoader(), sharedPackages);
+    }
+
+    private @NotNull Object createServer(@NotNull ClassLoader classLoader) throws ReflectiveOperationException {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader oldClassLoader = currentThread.getContextClassLoader();
+        try {
+            // Some language servers use the context class loader (ex : ServiceLoader) while they are created
+            currentThread.setContextClassLoader(classLoader);
+            return classLoader.loadClass(serverClassName).getConstructor().newInstance();
+        } finally {
+            currentThread.setContextClassLoader(oldClassLoader);
+        }
+    }
+
+    /**
+     * Returns true if the params and results of the JSON-RPC methods of the language server and of the client
+     * are loaded by the LSP4IJ class loader, and false otherwise (the {@link Mode#pipe} mode must be used).
+     *
+     * @param server      the language server.
+     * @param classLoader the class loader of the language server.
+     * @return true if the params and results of the JSON-RPC methods are shared and false otherwise.
+     */
+    private boolean checkSharedTypes(@NotNull Object server, @NotNull ClassLoader classLoader) {
+        for (Class<?> serviceClass : List.of(server.getClass(), clientInterface)) {
+            for (JsonRpcMethod method : ServiceEndpoints.getSupportedMethods(serviceClass).values()) {
+                for (Type type : method.getParameterTypes()) {
+                    if (!isShared(type, classLoader, method)) {
+                        return false;
+                    }
+                }
+                if (method.getReturnType() != null && !isShared(method.getReturnType(), classLoader, method)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isShared(@NotNull Type type, @NotNull ClassLoader classLoader, @NotNull JsonRpcMethod method) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            return isShared(parameterizedType.getRawType(), classLoader, method)
+                    && isShared(List.of(parameterizedType.getActualTypeArguments()), classLoader, method);
+        }
+        if (type instanceof GenericArrayType arrayType) {
+            return isShared(arrayType.getGenericComponentType(), classLoader, method);
+        }
+        if (type instanceof WildcardType wildcardType) {
+            return isShared(List.of(wildcardType.getUpperBounds()), classLoader, method)
+                    && isShared(List.of(wildcardType.getLowerBounds()), classLoader, method);
+        }
+        if (!(type instanceof Class<?> clazz)) {
+            // Type variable
+            return true;
+        }
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        try {
+            if (Class.forName(clazz.getName(), false, classLoader) == Class.forName(clazz.getName(), false, InProcessStreamConnectionProvider.class.getClassLoader())) {
+                return true;
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // The class is not visible from one of the class loaders
+        }
+        LOGGER.warn("The in-process language server '" + serverClassName + "' cannot be started in direct mode, the JSON-RPC method '"
+                + method.getMethodName() + "' uses the class '" + clazz.getName() + "' which is not shared with LSP4IJ, the pipe mode is used.");
+        return false;
+    }
+
+    private boolean isShared(@NotNull Collection<Type> types, @NotNull ClassLoader classLoader, @NotNull JsonRpcMethod method) {
+        for (Type type : types) {
+            if (!isShared(type, classLoader, method)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Connect the language server to the client.
+     *
+     * @param server the language server.
+     * @param client the client proxy used by the language server.
+     */
+    protected void connectClient(@NotNull Object server, @NotNull LanguageClient client) {
+        if (server instanceof LanguageClientAware clientAware) {
+            clientAware.connect(client);
+        }
+    }
+
+    private MessageConsumer ignoreExit(MessageConsumer consumer) {
+        if (!(consumer instanceof RemoteEndpoint)) {
+            return consumer;
+        }
+        return message -> {
+            if (message instanceof NotificationMessage notification && "exit".equals(notification.getMethod())) {
+                exited = true;
+                return;
+            }
+            consumer.consume(message);
+        };
+    }
+
+    /**
+     * Returns true if the JSON-RPC messages are exchanged as Java objects and false otherwise (the {@link Mode#pipe}
+     * mode is used when the {@link Mode#direct} mode cannot be used).
+     *
+     * @return true if the JSON-RPC messages are exchanged as Java objects and false otherwise.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Returns the launcher builder which must be used by the client in {@link Mode#direct} mode.
+     *
+     * @param <S> the language server interface.
+     * @return the launcher builder which must be used by the client in {@link Mode#direct} mode.
+     */
+    public <S extends LanguageServer> @NotNull Launcher.Builder<S> createLauncherBuilder() {
+        if (toServer == null || toClient == null) {
+            throw new IllegalStateException("The in-process language server is not started in direct mode: " + this);
+        }
+        return new DirectLauncherBuilder<>(toClient, toServer);
+    }
+
+    @Override
+    public @Nullable InputStream getInputStream() {
+        InMemoryPipe pipe = serverToClient;
+        return pipe != null ? pipe.getInputStream() : null;
+    }
+
+    @Override
+    public @Nullable OutputStream getOutputStream() {
+        InMemoryPipe pipe = clientToServer;
+        return pipe != null ? pipe.getOutputStream() : null;
+    }
+
+    @Override
+    public @Nullable InputStream getErrorStream() {
+        return null;
+    }
+
+    @Override
+    public boolean isAlive() {
+        Future<Void> future = serverFuture;
+        return future != null && !future.isDone() && !exited;
+    }
+
+    @Override
+    public void stop() {
+        exited = true;
+        direct = false;
+        if (clientToServer != null) {
+            clientToServer.close();
+            clientToServer = null;
+        }
+        if (serverToClient != null) {
+            serverToClient.close();
+            serverToClient = null;
+        }
+        if (toServer != null) {
+            toServer.close();
+            toServer = null;
+        }
+        if (toClient != null) {
+            toClient.close();
+            toClient = null;
+        }
+        if (serverFuture != null) {
+            serverFuture.cancel(true);
+            serverFuture = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (classLoader != null) {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                // Do nothing
+            }
+            classLoader = null;
+        }
+    }
+
+    /**
+     * Set the packages loaded by the LSP4IJ class loader and shared with the language server.
+     *
+     * @param sharedPackages the packages prefixes (ex : 'org.eclipse.lsp4j.').
+     */
+    public void setSharedPackages(@NotNull List<String> sharedPackages) {
+        this.sharedPackages = sharedPackages;
+    }
+
+    @Override
+    public String toString() {
+        return "InProcessStreamConnectionProvider [serverClass=" + serverClassName + ", mode=" + mode + ", classpath=" + classpath + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Growable byte buffer reused for the content of the JSON-RPC messages of a connection, with a UTF-8
+ * {@link Reader} / {@link Writer} which decode / encode the content without creating a String.
+ *
+ * <p>
+ * A connection reads (or writes) one message at a time, so the buffer is reused for all the messages. When a
+ * message is bigger than the retained size, the buffer is released once the message has been consumed.
+ * </p>
+ */
+final class MessageBuffer {
+
+    private static final int INITIAL_SIZE = 8 * 1024;
+
+    private static final int MAX_RETAINED_SIZE = 4 * 1024 * 1024;
+
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    private byte[] bytes = new byte[INITIAL_SIZE];
+    private int size;
+
+    private final Utf8Reader reader = new Utf8Reader();
+    private final Utf8Writer writer = new Utf8Writer();
+
+    byte @NotNull [] getBytes() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Read the given number of bytes from the given input stream in the buffer.
+     *
+     * @param input  the input stream.
+     * @param prefix the bytes already read.
+     * @param offset the offset of the bytes already read.
+     * @param count  the number of bytes already read.
+     * @param length the number of bytes to read (including the bytes already read).
+     * @return false if the end of the stream has been reached and true otherwise.
+     * @throws IOException if the input stream cannot be read.
+     */
+    boolean readFrom(@NotNull InputStream input, byte @NotNull [] prefix, int offset, int count, int length) throws IOException {
+        clear();
+        ensureCapacity(length);
+        System.arraycopy(prefix, offset, bytes, 0, count);
+        size = count;
+        while (size < length) {
+            int n = input.read(bytes, size, length - size);
+            if (n == -1) {
+                return false;
+            }
+            size += n;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the UTF-8 reader of the buffer content.
+     *
+     * @return the UTF-8 reader of the buffer content.
+     */
+    @NotNull
+    Reader reader() {
+        reader.position = 0;
+        reader.pendingLowSurrogate = 0;
+        return reader;
+    }
+
+    /**
+     * Clear the buffer and returns the UTF-8 writer which appends to the buffer.
+     *
+     * @return the UTF-8 writer which appends to the buffer.
+     */
+    @NotNull
+    Writer writer() {
+        clear();
+        writer.pendingHighSurrogate = 0;
+        return writer;
+    }
+
+    /**
+     * Release the buffer memory if it has been grown for a big message.
+     */
+    void release() {
+        size = 0;
+        if (bytes.length > MAX_RETAINED_SIZE) {
+            bytes = new byte[INITIAL_SIZE];
+        }
+    }
+
+    private void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            int newSize = Math.max(capacity, Math.min(bytes.length * 2, Integer.MAX_VALUE - 8));
+            byte[] newBytes = new byte[newSize];
+            System.arraycopy(bytes, 0, newBytes, 0, size);
+            bytes = newBytes;
+        }
+    }
+
+    private void appendByte(int b) {
+        if (size == bytes.length) {
+            ensureCapacity(size + 1);
+        }
+        bytes[size++] = (byte) b;
+    }
+
+    private class Utf8Reader extends Reader {
+
+        private int position;
+        private char pendingLowSurrogate;
+
+        @Override
+        public int read(char @NotNull [] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int start = off;
+            int end = off + len;
+            if (pendingLowSurrogate != 0) {
+                cbuf[off++] = pendingLowSurrogate;
+                pendingLowSurrogate = 0;
+            }
+            byte[] bytes = MessageBuffer.this.bytes;
+            int size = MessageBuffer.this.size;
+            while (off < end && position < size) {
+                int b = bytes[position];
+                if (b >= 0) {
+                    // ASCII (most of the JSON content)
+                    cbuf[off++] = (char) b;
+                    position++;
+                    continue;
+                }
+                int codePoint;
+                int length;
+                if ((b & 0xE0) == 0xC0) {
+                    codePoint = b & 0x1F;
+                    length = 2;
+                } else if ((b & 0xF0) == 0xE0) {
+                    codePoint = b & 0x0F;
+                    length = 3;
+                } else if ((b & 0xF8) == 0xF0) {
+                    codePoint = b & 0x07;
+                    length = 4;
+                } else {
+                    cbuf[off++] = REPLACEMENT_CHAR;
+                    position++;
+                    continue;
+                }
+                if (position + length > size) {
+                    cbuf[off++] = REPLACEMENT_CHAR;
+                    position = size;
+                    continue;
+                }
+                boolean malformed = false;
+                for (int i = 1; i < length; i++) {
+                    int next = bytes[position + i];
+                    if ((next & 0xC0) != 0x80) {
+                        malformed = true;
+                        break;
+                    }
+                    codePoint = (codePoint << 6) | (next & 0x3F);
+                }
+                if (malformed) {
+                    cbuf[off++] = REPLACEMENT_CHAR;
+                    position++;
+                    continue;
+                }
+                position += length;
+                if (Character.isBmpCodePoint(codePoint)) {
+                    cbuf[off++] = (char) codePoint;
+                } else {
+                    cbuf[off++] = Character.highSurrogate(codePoint);
+                    if (off < end) {
+                        cbuf[off++] = Character.lowSurrogate(codePoint);
+                    } else {
+                        pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                    }
+                }
+            }
+            int n = off - start;
+            return n == 0 ? -1 : n;
+        }
+
+        @Override
+        public void close() {
+            // Do nothing
+        }
+    }
+
+    private class Utf8Writer extends Writer {
+
+        private char pendingHighSurrogate;
+
+        @Override
+        public void write(int c) {
+            writeChar((char) c);
+        }
+
+        @Override
+        public void write(char @NotNull [] cbuf, int off, int len) {
+            int end = off + len;
+            int i = off;
+            if (pendingHighSurrogate == 0) {
+                // Fast path for ASCII characters (most of the JSON content)
+                ensureCapacity(size + len);
+                byte[] bytes = MessageBuffer.this.bytes;
+                int size = MessageBuffer.this.size;
+                while (i < end && cbuf[i] < 0x80) {
+                    bytes[size++] = (byte) cbuf[i++];
+                }
+                MessageBuffer.this.size = size;
+            }
+            while (i < end) {
+                writeChar(cbuf[i++]);
+            }
+        }
+
+        @Override
+        public void write(@NotNull String str, int off, int len) {
+            int end = off + len;
+            int i = off;
+            if (pendingHighSurrogate == 0) {
+                // Fast path for ASCII characters (most of the JSON content)
+                ensureCapacity(size + len);
+                byte[] bytes = MessageBuffer.this.bytes;
+                int size = MessageBuffer.this.size;
+                char c;
+                while (i < end && (c = str.charAt(i)) < 0x80) {
+                    bytes[size++] = (byte) c;
+                    i++;
+                }
+                MessageBuffer.this.size = size;
+            }
+            while (i < end) {
+                writeChar(str.charAt(i++));
+            }
+        }
+
+        private void writeChar(char c) {
+            if (c < 0x80 && pendingHighSurrogate == 0) {
+                appendByte(c);
+                return;
+            }
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    appendByte(0xF0 | (codePoint >> 18));
+                    appendByte(0x80 | ((codePoint >> 12) & 0x3F));
+                    appendByte(0x80 | ((codePoint >> 6) & 0x3F));
+                    appendByte(0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                // Unpaired high surrogate
+                appendByte('?');
+            }
+            if (c < 0x80) {
+                appendByte(c);
+            } else if (c < 0x800) {
+                appendByte(0xC0 | (c >> 6));
+                appendByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                // Unpaired low surrogate
+                appendByte('?');
+            } else {
+                appendByte(0xE0 | (c >> 12));
+                appendByte(0x80 | ((c >> 6) & 0x3F));
+                appendByte(0x80 | (c & 0x3F));
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Do nothing
+        }
+
+        @Override
+        public void close() {
+            if (pendingHighSurrogate != 0) {
+                pendingHighSurrogate = 0;
+                appendByte('?');
+            }
+        }
+    }
+}
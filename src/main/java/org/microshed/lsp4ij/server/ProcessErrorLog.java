@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Error output (stderr) of the language server processes.
+ *
+ * <p>
+ * The error stream of a process is drained by a daemon thread, so a language server which writes a lot
+ * in its error output cannot be blocked because the pipe is full. The lines are kept in a ring bounded by
+ * a maximum number of characters (the oldest lines are removed first), and can also be written in rotating
+ * files, to diagnose a crash of the language server after the fact.
+ * </p>
+ *
+ * <p>
+ * The same log is used for all the processes started for a language server, to keep the error output
+ * of a crashed process when the language server is restarted.
+ * </p>
+ */
+public class ProcessErrorLog implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessErrorLog.class);
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    // Longer lines are truncated to avoid filling the memory with a line without end of line
+    private static final int MAX_LINE_LENGTH = 8 * 1024;
+
+    // Maximum size of the text given to the listener in one call
+    private static final int MAX_CHUNK_LENGTH = 16 * 1024;
+
+    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+
+    private static final int MAX_FILES = 3;
+
+    private final long maxLength;
+    private volatile @Nullable Path file;
+
+    private final Deque<String> lines = new ArrayDeque<>();
+    private long length;
+
+    private @Nullable Writer fileWriter;
+    private long fileSize;
+
+    private volatile @Nullable Consumer<String> listener;
+
+    /**
+     * Create an error log.
+     *
+     * @param maxLength the maximum number of characters kept in memory.
+     * @param file      the file where the error output must be written and null otherwise.
+     */
+    public ProcessErrorLog(long maxLength, @Nullable Path file) {
+        this.maxLength = maxLength;
+        this.file = file;
+    }
+
+    /**
+     * Set the listener called with the lines (separated by '\n') read from the error stream.
+     *
+     * @param listener the listener.
+     */
+    public void setListener(@Nullable Consumer<String> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Read the given error stream in a daemon thread until the end of the stream.
+     *
+     * @param errorStream the error stream of the process.
+     * @param threadName  the name of the thread.
+     * @param pid         the process id and null otherwise.
+     */
+    public void drain(@NotNull InputStream errorStream, @NotNull String threadName, @Nullable Long pid) {
+        String header = "--- Process " + (pid != null ? pid + " " : "") + "started ---";
+        addLine(header);
+        notifyListener(header + "\n");
+        Thread thread = new Thread(() -> read(errorStream), threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void read(@NotNull InputStream errorStream) {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        StringBuilder chunk = new StringBuilder();
+        try (Reader reader = new InputStreamReader(errorStream, StandardCharsets.UTF_8)) {
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    char c = buffer[i];
+                    if (c == '\n') {
+                        addLine(line, chunk);
+                    } else if (c != '\r' && line.length() < MAX_LINE_LENGTH) {
+                        line.append(c);
+                    }
+                }
+                if (!reader.ready()) {
+                    // No more available output, the lines read are given to the listener
+                    flush(chunk);
+                }
+            }
+        } catch (IOException e) {
+            // The error stream is closed when the process is destroyed
+        } finally {
+            if (!line.isEmpty()) {
+                addLine(line, chunk);
+            }
+            flush(chunk);
+        }
+    }
+
+    private void addLine(@NotNull StringBuilder line, @NotNull StringBuilder chunk) {
+        String text = line.toString();
+        line.setLength(0);
+        addLine(text);
+        chunk.append(text).append('\n');
+        if (chunk.length() >= MAX_CHUNK_LENGTH) {
+            flush(chunk);
+        }
+    }
+
+    private synchronized void addLine(@NotNull String line) {
+        lines.addLast(line);
+        length += line.length() + 1;
+        while (length > maxLength && lines.size() > 1) {
+            length -= lines.removeFirst().length() + 1;
+        }
+        Path file = this.file;
+        if (file != null) {
+            writeLine(file, line);
+        }
+    }
+
+    private void flush(@NotNull StringBuilder chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String text = chunk.toString();
+        chunk.setLength(0);
+        synchronized (this) {
+            if (fileWriter != null) {
+                try {
+                    fileWriter.flush();
+                } catch (IOException e) {
+                    closeFile(e);
+                }
+            }
+        }
+        notifyListener(text);
+    }
+
+    private void notifyListener(@NotNull String text) {
+        Consumer<String> listener = this.listener;
+        if (listener != null) {
+            try {
+                listener.accept(text);
+            } catch (Exception e) {
+                LOGGER.warn("Error while handling the error output of the language server process", e);
+            }
+        }
+    }
+
+    private void writeLine(@NotNull Path file, @NotNull String line) {
+        try {
+            if (fileWriter == null) {
+                Files.createDirectories(file.getParent());
+                fileSize = Files.exists(file) ? Files.size(file) : 0;
+                fileWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+            }
+            fileWriter.write(line);
+            fileWriter.write('\n');
+            // The size is computed with the number of characters, which is enough to rotate the files
+            fileSize += line.length() + 1;
+            if (fileSize > MAX_FILE_SIZE) {
+                fileWriter.close();
+                fileWriter = null;
+                rotate(file);
+            }
+        } catch (IOException e) {
+            closeFile(e);
+        }
+    }
+
+    private static void rotate(@NotNull Path file) throws IOException {
+        // file.log -> file.log.1 -> file.log.2 -> ...
+        Files.deleteIfExists(getRotatedFile(file, MAX_FILES - 1));
+        for (int i = MAX_FILES - 2; i >= 1; i--) {
+            Path rotatedFile = getRotatedFile(file, i);
+            if (Files.exists(rotatedFile)) {
+                Files.move(rotatedFile, getRotatedFile(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, getRotatedFile(file, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path getRotatedFile(@NotNull Path file, int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile(@NotNull IOException error) {
+        LOGGER.warn("Error while writing the error output of the language server process in '" + file + "'", error);
+        // Stop writing in the file, the lines are still kept in memory
+        close();
+    }
+
+    /**
+     * Returns the lines kept in memory, separated by '\n'.
+     *
+     * @return the lines kept in memory, separated by '\n'.
+     */
+    public synchronized @NotNull String getText() {
+        StringBuilder text = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the file where the error output is written and null otherwise.
+     *
+     * @return the file where the error output is written and null otherwise.
+     */
+    public @Nullable Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() {
+        file = null;
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } catch (IOException e) {
+                // Do nothing
+            }
+            fileWriter = null;
+        }
+    }
+}
@@ -80,7 +80,8 @@ public abstract class ProcessStreamConnectionProvider implements StreamConnectio
         if (getWorkingDirectory() != null) {
             builder.directory(new File(getWorkingDirectory()));
         }
-        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        // The error output is piped (and not inherited) to be drained by the LanguageServerWrapper
+        // and displayed in the LSP console (see ProcessErrorLog)
         return builder;
     }
 
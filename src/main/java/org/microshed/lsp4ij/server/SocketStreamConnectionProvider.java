@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Stream connection provider which connects to a language server with a TCP socket (by default on localhost).
+ *
+ * @see ChannelStreamConnectionProvider
+ */
+public class SocketStreamConnectionProvider extends ChannelStreamConnectionProvider {
+
+    private final @NotNull InetSocketAddress address;
+
+    /**
+     * Connect to an already running language server listening on the given localhost port.
+     *
+     * @param port the port.
+     */
+    public SocketStreamConnectionProvider(int port) {
+        this(null, null, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start the language server with the given commands and connect to the given localhost port.
+     *
+     * @param commands   the commands to start the language server and null to connect to an already running language server.
+     * @param workingDir the working directory.
+     * @param port       the port.
+     */
+    public SocketStreamConnectionProvider(@Nullable List<String> commands, @Nullable String workingDir, int port) {
+        this(commands, workingDir, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start the language server with the given commands and connect to the given address.
+     *
+     * @param commands   the commands to start the language server and null to connect to an already running language server.
+     * @param workingDir the working directory.
+     * @param address    the address.
+     */
+    public SocketStreamConnectionProvider(@Nullable List<String> commands, @Nullable String workingDir, @NotNull InetSocketAddress address) {
+        super(commands, workingDir);
+        this.address = address;
+    }
+
+    @Override
+    protected @NotNull SocketAddress getSocketAddress() {
+        return address;
+    }
+
+    @Override
+    protected @NotNull SocketChannel openChannel(@NotNull SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, DEFAULT_SOCKET_BUFFER_SIZE);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, DEFAULT_SOCKET_BUFFER_SIZE);
+            channel.connect(address);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -99,6 +99,18 @@ public interface StreamConnectionProvider {
         return true;
     }
 
+    /**
+     * Returns true if the language server must receive the 'shutdown' request and the 'exit' notification
+     * when it is stopped and false otherwise (ex : the provider is connected to a language server which
+     * has not been launched by the provider, and which can be shared by other clients).
+     *
+     * @return true if the language server must receive the 'shutdown' request and the 'exit' notification
+     * when it is stopped and false otherwise.
+     */
+    default boolean isShutdownRequired() {
+        return true;
+    }
+
     /**
      * Ensure that process is alive.
      *
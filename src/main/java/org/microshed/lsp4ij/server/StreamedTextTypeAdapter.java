@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Gson type adapter which streams the big strings (ex : the text of 'textDocument/didOpen') of the messages
+ * written by a {@link BufferedMessageConsumer}, instead of copying them in the message buffer.
+ *
+ * <p>
+ * An empty string is serialized in the message buffer, and the text is escaped and encoded in UTF-8 on the fly
+ * between the quotes when the message is written. The 'Content-Length' is computed with the byte length
+ * of the escaped text.
+ * </p>
+ *
+ * <p>
+ * An adapter is created for each launcher (see {@link BufferedLauncherBuilder}) and is used by its consumer only:
+ * the strings serialized by another thread (ex : the message tracer) are serialized as usual.
+ * </p>
+ */
+final class StreamedTextTypeAdapter extends TypeAdapter<String> {
+
+    /**
+     * Texts smaller than this size are copied in the message buffer (the streaming would not save memory).
+     */
+    private static final int MIN_STREAMED_LENGTH = 64 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private volatile @Nullable Thread streamingThread;
+    private @Nullable BufferedMessageConsumer consumer;
+
+    /**
+     * Stream the big strings in the given consumer while it serializes a message in the current thread.
+     *
+     * @param consumer the consumer which serializes a message.
+     */
+    void startStreaming(@NotNull BufferedMessageConsumer consumer) {
+        this.consumer = consumer;
+        this.streamingThread = Thread.currentThread();
+    }
+
+    /**
+     * Stop streaming the big strings when the message has been serialized.
+     */
+    void stopStreaming() {
+        this.streamingThread = null;
+        this.consumer = null;
+    }
+
+    @Override
+    public void write(JsonWriter out, String value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        BufferedMessageConsumer consumer = streamingThread == Thread.currentThread() ? this.consumer : null;
+        if (consumer == null || value.length() < MIN_STREAMED_LENGTH) {
+            out.value(value);
+            return;
+        }
+        // The text is written between the quotes when the message is written in the output stream
+        out.value("");
+        consumer.streamText(value);
+    }
+
+    @Override
+    public String read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Returns the number of bytes of the given text escaped as a JSON string content and encoded in UTF-8.
+     *
+     * @param text the text.
+     * @return the number of bytes of the escaped text.
+     */
+    static long getEscapedLength(@NotNull CharSequence text) {
+        long length = 0;
+        int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += getEscapedAsciiLength(c);
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (c == '\u2028' || c == '\u2029') {
+                length += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < textLength && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, written as '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int getEscapedAsciiLength(char c) {
+        return switch (c) {
+            case '"', '\\', '\n', '\r', '\t', '\b', '\f' -> 2;
+            default -> c < 0x20 ? 6 : 1;
+        };
+    }
+
+    /**
+     * Write the given text escaped as a JSON string content and encoded in UTF-8.
+     *
+     * @param text   the text.
+     * @param output the output stream.
+     * @param buffer the buffer used to write in the output stream.
+     * @throws IOException if the output stream cannot be written.
+     */
+    static void writeEscaped(@NotNull CharSequence text, @NotNull OutputStream output, byte @NotNull [] buffer) throws IOException {
+        // The buffer must be able to contain the longest escaped character
+        int limit = buffer.length - 6;
+        int position = 0;
+        int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            if (position > limit) {
+                output.write(buffer, 0, position);
+                position = 0;
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"', '\\' -> position = writeEscape(buffer, position, c);
+                    case '\n' -> position = writeEscape(buffer, position, 'n');
+                    case '\r' -> position = writeEscape(buffer, position, 'r');
+                    case '\t' -> position = writeEscape(buffer, position, 't');
+                    case '\b' -> position = writeEscape(buffer, position, 'b');
+                    case '\f' -> position = writeEscape(buffer, position, 'f');
+                    default -> {
+                        if (c < 0x20) {
+                            position = writeUnicodeEscape(buffer, position, c);
+                        } else {
+                            buffer[position++] = (byte) c;
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c == '\u2028' || c == '\u2029') {
+                position = writeUnicodeEscape(buffer, position, c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < textLength && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        output.write(buffer, 0, position);
+    }
+
+    private static int writeEscape(byte[] buffer, int position, char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) c;
+        return position;
+    }
+
+    private static int writeUnicodeEscape(byte[] buffer, int position, char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = (byte) HEX[(c >> 12) & 0xF];
+        buffer[position++] = (byte) HEX[(c >> 8) & 0xF];
+        buffer[position++] = (byte) HEX[(c >> 4) & 0xF];
+        buffer[position++] = (byte) HEX[c & 0xF];
+        return position;
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.microshed.lsp4ij.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Stream connection provider which connects to a language server with a Unix domain socket
+ * (supported on Linux, macOS and Windows 10+).
+ *
+ * @see ChannelStreamConnectionProvider
+ */
+public class UnixDomainSocketStreamConnectionProvider extends ChannelStreamConnectionProvider {
+
+    private final @NotNull UnixDomainSocketAddress address;
+
+    /**
+     * Connect to an already running language server listening on the given socket file.
+     *
+     * @param socketPath the path of the socket file.
+     */
+    public UnixDomainSocketStreamConnectionProvider(@NotNull Path socketPath) {
+        this(null, null, socketPath);
+    }
+
+    /**
+     * Start the language server with the given commands and connect to the given socket file.
+     *
+     * @param commands   the commands to start the language server and null to connect to an already running language server.
+     * @param workingDir the working directory.
+     * @param socketPath the path of the socket file.
+     */
+    public UnixDomainSocketStreamConnectionProvider(@Nullable List<String> commands, @Nullable String workingDir, @NotNull Path socketPath) {
+        super(commands, workingDir);
+        this.address = UnixDomainSocketAddress.of(socketPath);
+    }
+
+    @Override
+    protected @NotNull SocketAddress getSocketAddress() {
+        return address;
+    }
+
+    @Override
+    protected @NotNull SocketChannel openChannel(@NotNull SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, DEFAULT_SOCKET_BUFFER_SIZE);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, DEFAULT_SOCKET_BUFFER_SIZE);
+            channel.connect(address);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import org.microshed.lsp4ij.LanguageServerFactory;
 import org.microshed.lsp4ij.client.LanguageClientImpl;
+import org.microshed.lsp4ij.server.BufferedLauncherBuilder;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.services.LanguageServer;
 import org.jetbrains.annotations.NotNull;
@@ -40,6 +41,24 @@ public abstract class LanguageServerDefinition implements LanguageServerFactory
 
     private static final int DEFAULT_LAST_DOCUMENTED_DISCONNECTED_TIMEOUT = 5;
 
+    private static final int DEFAULT_DID_CHANGE_DEBOUNCE_DELAY = 50;
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 0;
+
+    private static final int DEFAULT_RESPONSE_CACHE_SIZE = 4096;
+
+    private static final int DEFAULT_RESTART_INITIAL_DELAY = 1000;
+
+    private static final int DEFAULT_RESTART_MAX_DELAY = 60000;
+
+    private static final int DEFAULT_CRASH_LOOP_THRESHOLD = 5;
+
+    private static final int DEFAULT_CRASH_LOOP_WINDOW = 180;
+
+    private static final int DEFAULT_STALL_TIMEOUT = 0;
+
+    private static final int DEFAULT_ERROR_LOG_SIZE = 1024;
+
     private final @NotNull
     String id;
     private final @NotNull
@@ -55,6 +74,20 @@ public abstract class LanguageServerDefinition implements LanguageServerFactory
     @NotNull
     private final List<Pair<List<FileNameMatcher>, String>> languageIdFileNameMatcherMappings;
     private boolean enabled;
+    private int didChangeDebounceDelay;
+    private int maxConcurrentRequests;
+    private int responseCacheSize;
+    private int restartInitialDelay;
+    private int restartMaxDelay;
+    private int crashLoopThreshold;
+    private int crashLoopWindow;
+    private int stallTimeout;
+    private @NotNull LSPRequestWatchdog.StallAction stallAction;
+    private boolean prewarm;
+    private boolean hotStandby;
+    private boolean pooledMessageBuffers;
+    private int errorLogSize;
+    private boolean errorLogFile;
 
     public LanguageServerDefinition(@NotNull String id, @NotNull String name, String description, boolean isSingleton, Integer lastDocumentDisconnectedTimeout, boolean supportsLightEdit) {
         this.id = id;
@@ -66,6 +99,16 @@ public abstract class LanguageServerDefinition implements LanguageServerFactory
         this.languageIdFileTypeMappings = new ConcurrentHashMap<>();
         this.languageIdFileNameMatcherMappings = new CopyOnWriteArrayList<>();
         this.supportsLightEdit = supportsLightEdit;
+        this.didChangeDebounceDelay = DEFAULT_DID_CHANGE_DEBOUNCE_DELAY;
+        this.maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        this.responseCacheSize = DEFAULT_RESPONSE_CACHE_SIZE;
+        this.restartInitialDelay = DEFAULT_RESTART_INITIAL_DELAY;
+        this.restartMaxDelay = DEFAULT_RESTART_MAX_DELAY;
+        this.crashLoopThreshold = DEFAULT_CRASH_LOOP_THRESHOLD;
+        this.crashLoopWindow = DEFAULT_CRASH_LOOP_WINDOW;
+        this.stallTimeout = DEFAULT_STALL_TIMEOUT;
+        this.stallAction = LSPRequestWatchdog.StallAction.notify;
+        this.errorLogSize = DEFAULT_ERROR_LOG_SIZE;
         setEnabled(true);
     }
 
@@ -111,6 +154,274 @@ public abstract class LanguageServerDefinition implements LanguageServerFactory
         return lastDocumentDisconnectedTimeout;
     }
 
+    /**
+     * Returns the delay (in milliseconds) used to coalesce document changes before sending a 'textDocument/didChange'.
+     *
+     * @return the delay (in milliseconds) used to coalesce document changes before sending a 'textDocument/didChange'.
+     */
+    public int getDidChangeDebounceDelay() {
+        return didChangeDebounceDelay;
+    }
+
+    /**
+     * Set the delay (in milliseconds) used to coalesce document changes before sending a 'textDocument/didChange'.
+     * A delay lower or equal to 0 sends the 'textDocument/didChange' as soon as the document is committed.
+     *
+     * @param didChangeDebounceDelay the delay in milliseconds and null to use the default delay.
+     */
+    public void setDidChangeDebounceDelay(@Nullable Integer didChangeDebounceDelay) {
+        this.didChangeDebounceDelay = didChangeDebounceDelay != null ? didChangeDebounceDelay : DEFAULT_DID_CHANGE_DEBOUNCE_DELAY;
+    }
+
+    /**
+     * Returns the maximum number of LSP requests sent at the same time to the language server (0 if the number
+     * of requests is not limited).
+     *
+     * @return the maximum number of LSP requests sent at the same time to the language server (0 if the number
+     * of requests is not limited).
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Set the maximum number of LSP requests sent at the same time to the language server.
+     *
+     * @param maxConcurrentRequests the maximum number of LSP requests, 0 to not limit the number of requests
+     *                              and null to use the default value (not limited).
+     */
+    public void setMaxConcurrentRequests(@Nullable Integer maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests != null ? maxConcurrentRequests : DEFAULT_MAX_CONCURRENT_REQUESTS;
+    }
+
+    /**
+     * Returns the maximum size (in KB) of the cached responses of the read-only LSP requests (0 if the cache is disabled).
+     *
+     * @return the maximum size (in KB) of the cached responses of the read-only LSP requests.
+     */
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * Set the maximum size (in KB) of the cached responses of the read-only LSP requests.
+     *
+     * @param responseCacheSize the maximum size (in KB), 0 to disable the cache and null to use the default value.
+     */
+    public void setResponseCacheSize(@Nullable Integer responseCacheSize) {
+        this.responseCacheSize = responseCacheSize != null ? responseCacheSize : DEFAULT_RESPONSE_CACHE_SIZE;
+    }
+
+    /**
+     * Returns the delay (in milliseconds) before restarting the language server after a first crash.
+     * The delay is doubled for each new crash in the crash loop window.
+     *
+     * @return the delay (in milliseconds) before restarting the language server after a first crash.
+     */
+    public int getRestartInitialDelay() {
+        return restartInitialDelay;
+    }
+
+    /**
+     * Set the delay (in milliseconds) before restarting the language server after a first crash.
+     *
+     * @param restartInitialDelay the delay in milliseconds and null to use the default delay.
+     */
+    public void setRestartInitialDelay(@Nullable Integer restartInitialDelay) {
+        this.restartInitialDelay = restartInitialDelay != null ? restartInitialDelay : DEFAULT_RESTART_INITIAL_DELAY;
+    }
+
+    /**
+     * Returns the maximum delay (in milliseconds) before restarting a crashed language server.
+     *
+     * @return the maximum delay (in milliseconds) before restarting a crashed language server.
+     */
+    public int getRestartMaxDelay() {
+        return restartMaxDelay;
+    }
+
+    /**
+     * Set the maximum delay (in milliseconds) before restarting a crashed language server.
+     *
+     * @param restartMaxDelay the maximum delay in milliseconds and null to use the default delay.
+     */
+    public void setRestartMaxDelay(@Nullable Integer restartMaxDelay) {
+        this.restartMaxDelay = restartMaxDelay != null ? restartMaxDelay : DEFAULT_RESTART_MAX_DELAY;
+    }
+
+    /**
+     * Returns the number of crashes in the crash loop window which disables the language server.
+     *
+     * @return the number of crashes in the crash loop window which disables the language server.
+     */
+    public int getCrashLoopThreshold() {
+        return crashLoopThreshold;
+    }
+
+    /**
+     * Set the number of crashes in the crash loop window which disables the language server.
+     *
+     * @param crashLoopThreshold the number of crashes and null to use the default value.
+     */
+    public void setCrashLoopThreshold(@Nullable Integer crashLoopThreshold) {
+        this.crashLoopThreshold = crashLoopThreshold != null ? crashLoopThreshold : DEFAULT_CRASH_LOOP_THRESHOLD;
+    }
+
+    /**
+     * Returns the sliding time window (in seconds) used to count the crashes of the language server.
+     *
+     * @return the sliding time window (in seconds) used to count the crashes of the language server.
+     */
+    public int getCrashLoopWindow() {
+        return crashLoopWindow;
+    }
+
+    /**
+     * Set the sliding time window (in seconds) used to count the crashes of the language server.
+     *
+     * @param crashLoopWindow the time window in seconds and null to use the default value.
+     */
+    public void setCrashLoopWindow(@Nullable Integer crashLoopWindow) {
+        this.crashLoopWindow = crashLoopWindow != null ? crashLoopWindow : DEFAULT_CRASH_LOOP_WINDOW;
+    }
+
+    /**
+     * Returns the time (in seconds) without message from the language server while requests have exceeded their deadline
+     * after which the language server is considered as stalled (0 if the stall detection is disabled, which is the default).
+     *
+     * @return the time (in seconds) after which the language server is considered as stalled.
+     */
+    public int getStallTimeout() {
+        return stallTimeout;
+    }
+
+    /**
+     * Set the time (in seconds) without message from the language server while requests have exceeded their deadline
+     * after which the language server is considered as stalled.
+     *
+     * @param stallTimeout the time in seconds, 0 or null to disable the stall detection (default).
+     */
+    public void setStallTimeout(@Nullable Integer stallTimeout) {
+        this.stallTimeout = stallTimeout != null ? stallTimeout : DEFAULT_STALL_TIMEOUT;
+    }
+
+    /**
+     * Returns the action executed when the language server is stalled.
+     *
+     * @return the action executed when the language server is stalled.
+     */
+    public @NotNull LSPRequestWatchdog.StallAction getStallAction() {
+        return stallAction;
+    }
+
+    /**
+     * Set the action executed when the language server is stalled.
+     *
+     * @param stallAction the action (cancel, notify or restart) and null to use the default action (notify).
+     */
+    public void setStallAction(@Nullable String stallAction) {
+        this.stallAction = LSPRequestWatchdog.StallAction.get(stallAction);
+    }
+
+    /**
+     * Returns true if the language server must be started in background when a project which contains
+     * files associated to the language server is opened and false otherwise.
+     *
+     * @return true if the language server must be started in background when a project is opened and false otherwise.
+     */
+    public boolean isPrewarm() {
+        return prewarm;
+    }
+
+    /**
+     * Set true if the language server must be started in background when a project which contains
+     * files associated to the language server is opened.
+     *
+     * @param prewarm true to pre-warm the language server and null to use the default value (false).
+     */
+    public void setPrewarm(@Nullable Boolean prewarm) {
+        this.prewarm = prewarm != null && prewarm;
+    }
+
+    /**
+     * Returns true if a restart of the language server must start and initialize a new language server process
+     * before stopping the current process and false otherwise.
+     *
+     * @return true if the restart of the language server uses a hot standby process and false otherwise.
+     */
+    public boolean isHotStandby() {
+        return hotStandby;
+    }
+
+    /**
+     * Set true if a restart of the language server must start and initialize a new language server process
+     * before stopping the current process.
+     *
+     * @param hotStandby true to use a hot standby process and null to use the default value (false).
+     */
+    public void setHotStandby(@Nullable Boolean hotStandby) {
+        this.hotStandby = hotStandby != null && hotStandby;
+    }
+
+    /**
+     * Returns true if the JSON-RPC messages must be read / written with buffers reused for all the messages
+     * and false otherwise.
+     *
+     * @return true if the JSON-RPC messages must be read / written with reused buffers and false otherwise.
+     */
+    public boolean isPooledMessageBuffers() {
+        return pooledMessageBuffers;
+    }
+
+    /**
+     * Set true if the JSON-RPC messages must be read / written with buffers reused for all the messages
+     * (see {@link BufferedLauncherBuilder}).
+     *
+     * @param pooledMessageBuffers true to use reused buffers and null to use the default value (false).
+     */
+    public void setPooledMessageBuffers(@Nullable Boolean pooledMessageBuffers) {
+        this.pooledMessageBuffers = pooledMessageBuffers != null && pooledMessageBuffers;
+    }
+
+    /**
+     * Returns the maximum size (in KB) of the error output of the language server process kept in memory.
+     *
+     * @return the maximum size (in KB) of the error output of the language server process kept in memory.
+     */
+    public int getErrorLogSize() {
+        return errorLogSize;
+    }
+
+    /**
+     * Set the maximum size (in KB) of the error output of the language server process kept in memory
+     * (see {@link org.microshed.lsp4ij.server.ProcessErrorLog}).
+     *
+     * @param errorLogSize the maximum size (in KB) and null to use the default value.
+     */
+    public void setErrorLogSize(@Nullable Integer errorLogSize) {
+        this.errorLogSize = errorLogSize != null && errorLogSize > 0 ? errorLogSize : DEFAULT_ERROR_LOG_SIZE;
+    }
+
+    /**
+     * Returns true if the error output of the language server process must be written in rotating files
+     * of the IDE log directory and false otherwise.
+     *
+     * @return true if the error output of the language server process must be written in rotating files and false otherwise.
+     */
+    public boolean isErrorLogFile() {
+        return errorLogFile;
+    }
+
+    /**
+     * Set true if the error output of the language server process must be written in rotating files
+     * of the IDE log directory.
+     *
+     * @param errorLogFile true to write the error output in files and null to use the default value (false).
+     */
+    public void setErrorLogFile(@Nullable Boolean errorLogFile) {
+        this.errorLogFile = errorLogFile != null && errorLogFile;
+    }
+
     /**
      * Returns true if the language server definition is enabled and false otherwise.
      *
@@ -171,6 +482,9 @@ public abstract class LanguageServerDefinition implements LanguageServerFactory
     }
 
     public <S extends LanguageServer> Launcher.Builder<S> createLauncherBuilder() {
+        if (pooledMessageBuffers) {
+            return new BufferedLauncherBuilder<>();
+        }
         return new Launcher.Builder<>();
     }
 
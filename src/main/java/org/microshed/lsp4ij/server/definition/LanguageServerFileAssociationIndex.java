@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.microshed.lsp4ij.server.definition;
+
+import com.intellij.lang.Language;
+import com.intellij.openapi.fileTypes.ExactFileNameMatcher;
+import com.intellij.openapi.fileTypes.ExtensionFileNameMatcher;
+import com.intellij.openapi.fileTypes.FileNameMatcher;
+import com.intellij.openapi.fileTypes.FileType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Immutable index of {@link LanguageServerFileAssociation} used to find quickly the associations
+ * which match a given language, file type and file name.
+ *
+ * <p>
+ * The associations are indexed by {@link FileType}, {@link Language}, file extension and exact file name.
+ * Only the associations which use complex file name patterns (ex : wildcards) are matched one by one.
+ * The index only narrows the candidates: each candidate is checked with
+ * {@link LanguageServerFileAssociation#match(Language, FileType, String)}, so the result is the same than
+ * matching all associations, in the same order.
+ * </p>
+ */
+public final class LanguageServerFileAssociationIndex {
+
+    public static final LanguageServerFileAssociationIndex EMPTY = new LanguageServerFileAssociationIndex(Collections.emptyList());
+
+    private final LanguageServerFileAssociation[] associations;
+
+    private final Map<FileType, int[]> byFileType;
+
+    private final Map<Language, int[]> byLanguage;
+
+    private final Map<String /* lower case extension */, int[]> byExtension;
+
+    private final Map<String /* lower case file name */, int[]> byFileName;
+
+    private final int[] fallback;
+
+    public LanguageServerFileAssociationIndex(@NotNull List<LanguageServerFileAssociation> associations) {
+        this.associations = associations.toArray(new LanguageServerFileAssociation[0]);
+        Map<FileType, List<Integer>> byFileType = new HashMap<>();
+        Map<Language, List<Integer>> byLanguage = new HashMap<>();
+        Map<String, List<Integer>> byExtension = new HashMap<>();
+        Map<String, List<Integer>> byFileName = new HashMap<>();
+        List<Integer> fallback = new ArrayList<>();
+        for (int i = 0; i < this.associations.length; i++) {
+            LanguageServerFileAssociation association = this.associations[i];
+            if (association.getFileType() != null) {
+                byFileType.computeIfAbsent(association.getFileType(), k -> new ArrayList<>()).add(i);
+            } else if (association.getLanguage() != null) {
+                byLanguage.computeIfAbsent(association.getLanguage(), k -> new ArrayList<>()).add(i);
+            } else if (association.getFileNameMatchers() != null) {
+                for (FileNameMatcher matcher : association.getFileNameMatchers()) {
+                    if (matcher instanceof ExtensionFileNameMatcher extensionMatcher) {
+                        byExtension.computeIfAbsent(toLowerCase(extensionMatcher.getExtension()), k -> new ArrayList<>()).add(i);
+                    } else if (matcher instanceof ExactFileNameMatcher exactMatcher) {
+                        byFileName.computeIfAbsent(toLowerCase(exactMatcher.getFileName()), k -> new ArrayList<>()).add(i);
+                    } else if (fallback.isEmpty() || fallback.get(fallback.size() - 1) != i) {
+                        fallback.add(i);
+                    }
+                }
+            }
+        }
+        this.byFileType = toIndex(byFileType);
+        this.byLanguage = toIndex(byLanguage);
+        this.byExtension = toIndex(byExtension);
+        this.byFileName = toIndex(byFileName);
+        this.fallback = toArray(fallback);
+    }
+
+    /**
+     * Returns the file associations which match the given language, file type and file name.
+     *
+     * @param language the language of the file.
+     * @param fileType the file type of the file.
+     * @param filename the file name.
+     * @return the file associations which match the given language, file type and file name.
+     */
+    public @NotNull List<LanguageServerFileAssociation> findMatches(@Nullable Language language, @Nullable FileType fileType, @NotNull String filename) {
+        BitSet candidates = collectCandidates(language, fileType, filename);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LanguageServerFileAssociation> result = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            LanguageServerFileAssociation association = associations[i];
+            if (association.match(language, fileType, filename)) {
+                result.add(association);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if at least one file association matches the given language, file type and file name and false otherwise.
+     *
+     * @param language the language of the file.
+     * @param fileType the file type of the file.
+     * @param filename the file name.
+     * @return true if at least one file association matches the given language, file type and file name and false otherwise.
+     */
+    public boolean hasMatch(@Nullable Language language, @Nullable FileType fileType, @NotNull String filename) {
+        BitSet candidates = collectCandidates(language, fileType, filename);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (associations[i].match(language, fileType, filename)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private @NotNull BitSet collectCandidates(@Nullable Language language, @Nullable FileType fileType, @NotNull String filename) {
+        BitSet candidates = new BitSet(associations.length);
+        if (fileType != null) {
+            addAll(candidates, byFileType.get(fileType));
+        }
+        // Language#isKindOf walks the base languages
+        for (Language current = language; current != null; current = current.getBaseLanguage()) {
+            addAll(candidates, byLanguage.get(current));
+        }
+        if (!byFileName.isEmpty()) {
+            addAll(candidates, byFileName.get(toLowerCase(filename)));
+        }
+        if (!byExtension.isEmpty()) {
+            // An extension can contain a dot (ex : 'd.ts'), try each suffix which follows a dot.
+            for (int dot = filename.indexOf('.'); dot >= 0; dot = filename.indexOf('.', dot + 1)) {
+                addAll(candidates, byExtension.get(toLowerCase(filename.substring(dot + 1))));
+            }
+        }
+        addAll(candidates, fallback);
+        return candidates;
+    }
+
+    private static void addAll(@NotNull BitSet candidates, int @Nullable [] indexes) {
+        if (indexes != null) {
+            for (int index : indexes) {
+                candidates.set(index);
+            }
+        }
+    }
+
+    private static <K> Map<K, int[]> toIndex(@NotNull Map<K, List<Integer>> map) {
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<K, int[]> index = new HashMap<>(map.size() * 2);
+        for (Map.Entry<K, List<Integer>> entry : map.entrySet()) {
+            index.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return index;
+    }
+
+    private static int[] toArray(@NotNull List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String toLowerCase(@NotNull String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -41,6 +41,20 @@ public class ExtensionLanguageServerDefinition extends LanguageServerDefinition
     public ExtensionLanguageServerDefinition(ServerExtensionPointBean element) {
         super(element.id, element.getName(), element.getDescription(), element.singleton, element.lastDocumentDisconnectedTimeout, element.supportsLightEdit);
         this.extension = element;
+        setDidChangeDebounceDelay(element.didChangeDebounceDelay);
+        setMaxConcurrentRequests(element.maxConcurrentRequests);
+        setResponseCacheSize(element.responseCacheSize);
+        setRestartInitialDelay(element.restartInitialDelay);
+        setRestartMaxDelay(element.restartMaxDelay);
+        setCrashLoopThreshold(element.crashLoopThreshold);
+        setCrashLoopWindow(element.crashLoopWindow);
+        setStallTimeout(element.stallTimeout);
+        setStallAction(element.stallAction);
+        setPrewarm(element.prewarm);
+        setHotStandby(element.hotStandby);
+        setPooledMessageBuffers(element.pooledMessageBuffers);
+        setErrorLogSize(element.errorLogSize);
+        setErrorLogFile(element.errorLogFile);
     }
 
     @Override
@@ -128,6 +128,99 @@ public class ServerExtensionPointBean extends BaseKeyedLazyInstance<LanguageServ
     @Attribute("lastDocumentDisconnectedTimeout")
     public Integer lastDocumentDisconnectedTimeout;
 
+    /**
+     * Delay (in milliseconds) used to coalesce document changes before sending a 'textDocument/didChange'.
+     */
+    @Attribute("didChangeDebounceDelay")
+    public Integer didChangeDebounceDelay;
+
+    /**
+     * Maximum number of LSP requests sent at the same time to the language server: the other requests wait
+     * in a queue consumed by priority (interactive requests first). 0 (default) doesn't limit the number of
+     * requests, like when the requests are not scheduled.
+     */
+    @Attribute("maxConcurrentRequests")
+    public Integer maxConcurrentRequests;
+
+    /**
+     * Maximum size (in KB) of the cached responses of the read-only LSP requests (0 to disable the cache).
+     */
+    @Attribute("responseCacheSize")
+    public Integer responseCacheSize;
+
+    /**
+     * Delay (in milliseconds) before restarting the language server after a first crash, doubled for each new crash.
+     */
+    @Attribute("restartInitialDelay")
+    public Integer restartInitialDelay;
+
+    /**
+     * Maximum delay (in milliseconds) before restarting a crashed language server.
+     */
+    @Attribute("restartMaxDelay")
+    public Integer restartMaxDelay;
+
+    /**
+     * Number of crashes in the crash loop window which disables the language server.
+     */
+    @Attribute("crashLoopThreshold")
+    public Integer crashLoopThreshold;
+
+    /**
+     * Sliding time window (in seconds) used to count the crashes of the language server.
+     */
+    @Attribute("crashLoopWindow")
+    public Integer crashLoopWindow;
+
+    /**
+     * Time (in seconds) without message from the language server while requests have exceeded their deadline
+     * after which the language server is considered as stalled (the stall detection is disabled by default).
+     */
+    @Attribute("stallTimeout")
+    public Integer stallTimeout;
+
+    /**
+     * Action executed when the language server is stalled: 'cancel' the pending requests,
+     * 'notify' (default) the user or 'restart' the language server.
+     */
+    @Attribute("stallAction")
+    public String stallAction;
+
+    /**
+     * true if the language server must be started in background when a project which contains files
+     * associated to the language server is opened (false by default).
+     */
+    @Attribute("prewarm")
+    public Boolean prewarm;
+
+    /**
+     * true if a restart of the language server must start and initialize a new language server process before
+     * stopping the current process (false by default).
+     */
+    @Attribute("hotStandby")
+    public Boolean hotStandby;
+
+    /**
+     * true if the JSON-RPC messages must be read / written with buffers reused for all the messages, to reduce
+     * the garbage created by big messages (false by default).
+     */
+    @Attribute("pooledMessageBuffers")
+    public Boolean pooledMessageBuffers;
+
+    /**
+     * Maximum size (in KB) of the error output of the language server process kept in memory to be displayed
+     * in the LSP console (1024 by default).
+     */
+    @Attribute("errorLogSize")
+    public Integer errorLogSize;
+
+    /**
+     * true if the error output of the language server process must also be written in rotating files
+     * of the IDE log directory (false by default).
+     */
+    @Attribute("errorLogFile")
+    public Boolean errorLogFile;
+
     @Override
     protected @Nullable String getImplementationClassName() {
         return factoryClass;
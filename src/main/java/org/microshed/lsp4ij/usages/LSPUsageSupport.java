@@ -18,6 +18,7 @@ import org.microshed.lsp4ij.LSPIJUtils;
 import org.microshed.lsp4ij.LanguageServerItem;
 import org.microshed.lsp4ij.LanguageServiceAccessor;
 import org.microshed.lsp4ij.internal.CancellationSupport;
+import org.microshed.lsp4ij.internal.LSP4IJExecutors;
 import org.microshed.lsp4ij.features.AbstractLSPFeatureSupport;
 import org.microshed.lsp4ij.features.LSPRequestConstants;
 import org.eclipse.lsp4j.*;
@@ -62,6 +63,7 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                                                                                       @NotNull LSPUsageSupportParams params,
                                                                                       @NotNull CancellationSupport cancellationSupport) {
         var textDocumentIdentifier = LSPIJUtils.toTextDocumentIdentifier(file);
+        var document = LSPIJUtils.getDocument(file);
         return LanguageServiceAccessor.getInstance(project)
                 .getLanguageServers(file, LSPUsageSupport::isUsageSupported)
                 .thenComposeAsync(languageServers -> {
@@ -71,22 +73,19 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                         return CompletableFuture.completedFuture(null);
                     }
 
-                    DeclarationParams declarationParams = new DeclarationParams(textDocumentIdentifier, params.position());
-                    DefinitionParams definitionParams = new DefinitionParams(textDocumentIdentifier, params.position());
-                    TypeDefinitionParams typeDefinitionParams = new TypeDefinitionParams(textDocumentIdentifier, params.position());
-                    ReferenceParams referenceParams = createReferenceParams(textDocumentIdentifier, params.position(), project);
-                    ImplementationParams implementationParams = new ImplementationParams(textDocumentIdentifier, params.position());
-
                     List<CompletableFuture<List<LSPUsagePsiElement>>> allFutures = new ArrayList<>();
                     for (var ls : languageServers) {
+                        // The usage position is expressed in UTF-16, convert it to the position encoding of the language server
+                        String positionEncoding = ls.getPositionEncoding();
+                        Position position = document != null ? LSPIJUtils.toPosition(params.position(), document, positionEncoding) : params.position();
 
                         // Collect declarations
                         if (ls.isDeclarationSupported()) {
                             allFutures.add(
                                     cancellationSupport.execute(ls
                                                     .getTextDocumentService()
-                                                    .declaration(declarationParams), ls, LSPRequestConstants.TEXT_DOCUMENT_DECLARATION)
-                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.declarations))
+                                                    .declaration(new DeclarationParams(textDocumentIdentifier, position)), ls, LSPRequestConstants.TEXT_DOCUMENT_DECLARATION)
+                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.declarations, positionEncoding))
                             );
                         }
 
@@ -95,8 +94,8 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                             allFutures.add(
                                     cancellationSupport.execute(ls
                                                     .getTextDocumentService()
-                                                    .definition(definitionParams), ls, LSPRequestConstants.TEXT_DOCUMENT_DEFINITION)
-                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.definitions))
+                                                    .definition(new DefinitionParams(textDocumentIdentifier, position)), ls, LSPRequestConstants.TEXT_DOCUMENT_DEFINITION)
+                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.definitions, positionEncoding))
                             );
                         }
 
@@ -105,8 +104,8 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                             allFutures.add(
                                     cancellationSupport.execute(ls
                                                     .getTextDocumentService()
-                                                    .typeDefinition(typeDefinitionParams), ls, LSPRequestConstants.TEXT_DOCUMENT_TYPE_DEFINITION)
-                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.typeDefinitions))
+                                                    .typeDefinition(new TypeDefinitionParams(textDocumentIdentifier, position)), ls, LSPRequestConstants.TEXT_DOCUMENT_TYPE_DEFINITION)
+                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.typeDefinitions, positionEncoding))
                             );
                         }
 
@@ -115,8 +114,8 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                             allFutures.add(
                                     cancellationSupport.execute(ls
                                                     .getTextDocumentService()
-                                                    .references(referenceParams), ls, LSPRequestConstants.TEXT_DOCUMENT_REFERENCES)
-                                            .handle(reportUsages2(project, LSPUsagePsiElement.UsageKind.references))
+                                                    .references(createReferenceParams(textDocumentIdentifier, position, project)), ls, LSPRequestConstants.TEXT_DOCUMENT_REFERENCES)
+                                            .handle(reportUsages2(project, LSPUsagePsiElement.UsageKind.references, positionEncoding))
                             );
                         }
 
@@ -125,8 +124,8 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                             allFutures.add(
                                     cancellationSupport.execute(ls
                                                     .getTextDocumentService()
-                                                    .implementation(implementationParams), ls, LSPRequestConstants.TEXT_DOCUMENT_IMPLEMENTATION)
-                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.implementations))
+                                                    .implementation(new ImplementationParams(textDocumentIdentifier, position)), ls, LSPRequestConstants.TEXT_DOCUMENT_IMPLEMENTATION)
+                                            .handle(reportUsages(project, LSPUsagePsiElement.UsageKind.implementations, positionEncoding))
                             );
                         }
 
@@ -134,24 +133,26 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
 
                     // Merge list of textDocument/references future in one future which return the list of location information
                     return CompletableFutures.mergeInOneFuture(allFutures, cancellationSupport);
-                });
+                }, LSP4IJExecutors.getFeatureExecutor());
     }
 
     private static BiFunction<? super List<? extends Location>, Throwable, ? extends List<LSPUsagePsiElement>> reportUsages2(
             Project project,
-            LSPUsagePsiElement.UsageKind usageKind) {
+            LSPUsagePsiElement.UsageKind usageKind,
+            String positionEncoding) {
         return (locations, error) -> {
             if (error != null) {
                 return Collections.emptyList();
             }
-            return createUsages(locations, usageKind, project);
+            return createUsages(locations, usageKind, positionEncoding, project);
         };
     }
 
     @NotNull
     private static BiFunction<Either<List<? extends Location>, List<? extends LocationLink>>, Throwable, List<LSPUsagePsiElement>> reportUsages(
             @NotNull Project project,
-            @NotNull LSPUsagePsiElement.UsageKind usageKind) {
+            @NotNull LSPUsagePsiElement.UsageKind usageKind,
+            @Nullable String positionEncoding) {
         return (locations, error) -> {
             if (error != null) {
                 // How to report error ?
@@ -159,44 +160,47 @@ public class LSPUsageSupport extends AbstractLSPFeatureSupport<LSPUsageSupport.L
                 // - in the Find usages tree, it should be a good idea, bit how to manage that?
                 return Collections.emptyList();
             }
-            return createUsages(locations, usageKind, project);
+            return createUsages(locations, usageKind, positionEncoding, project);
         };
     }
 
     private static List<LSPUsagePsiElement> createUsages(@Nullable List<? extends Location> locations,
                                                          @NotNull LSPUsagePsiElement.UsageKind usageKind,
+                                                         @Nullable String positionEncoding,
                                                          @NotNull Project project) {
         if (locations == null || locations.isEmpty()) {
             return Collections.emptyList();
         }
         return locations
                 .stream()
-                .map(location -> LSPUsagesManager.toPsiElement(location, usageKind, project))
+                .map(location -> LSPUsagesManager.toPsiElement(location, usageKind, positionEncoding, project))
                 .filter(Objects::nonNull)
                 .toList();
     }
 
     private static List<LSPUsagePsiElement> createUsages(@Nullable Either<List<? extends Location>, List<? extends LocationLink>> locations,
                                                          @Nullable LSPUsagePsiElement.UsageKind usageKind,
+                                                         @Nullable String positionEncoding,
                                                          @Nullable Project project) {
         if (locations == null) {
             return Collections.emptyList();
         }
         if (locations.isLeft()) {
-            return createUsages(locations.getLeft(), usageKind, project);
+            return createUsages(locations.getLeft(), usageKind, positionEncoding, project);
         }
-        return createUsagesFromLocationLinks(locations.getRight(), usageKind, project);
+        return createUsagesFromLocationLinks(locations.getRight(), usageKind, positionEncoding, project);
     }
 
     private static List<LSPUsagePsiElement> createUsagesFromLocationLinks(@Nullable List<? extends LocationLink> locations,
                                                                           @NotNull LSPUsagePsiElement.UsageKind usageKind,
+                                                                          @Nullable String positionEncoding,
                                                                           @NotNull Project project) {
         if (locations == null || locations.isEmpty()) {
             return Collections.emptyList();
         }
         return locations
                 .stream()
-                .map(location -> LSPUsagesManager.toPsiElement(location, usageKind, project))
+                .map(location -> LSPUsagesManager.toPsiElement(location, usageKind, positionEncoding, project))
                 .filter(Objects::nonNull)
                 .toList();
     }
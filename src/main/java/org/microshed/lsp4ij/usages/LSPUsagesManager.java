@@ -84,7 +84,15 @@ public class LSPUsagesManager {
     public static LSPUsagePsiElement toPsiElement(@NotNull Location location,
                                                   @NotNull LSPUsagePsiElement.UsageKind kind,
                                                   @NotNull Project project) {
-        LSPUsagePsiElement element = LSPPsiElementFactory.toPsiElement(location, project, USAGE_ELEMENT_FACTORY);
+        return toPsiElement(location, kind, null, project);
+    }
+
+    @Nullable
+    public static LSPUsagePsiElement toPsiElement(@NotNull Location location,
+                                                  @NotNull LSPUsagePsiElement.UsageKind kind,
+                                                  @Nullable String positionEncoding,
+                                                  @NotNull Project project) {
+        LSPUsagePsiElement element = LSPPsiElementFactory.toPsiElement(location, positionEncoding, project, USAGE_ELEMENT_FACTORY);
         if (element != null) {
             element.setKind(kind);
         }
@@ -95,7 +103,15 @@ public class LSPUsagesManager {
     public static LSPUsagePsiElement toPsiElement(@NotNull LocationLink location,
                                                   @NotNull LSPUsagePsiElement.UsageKind kind,
                                                   @NotNull Project project) {
-        LSPUsagePsiElement element = LSPPsiElementFactory.toPsiElement(location, project, USAGE_ELEMENT_FACTORY);
+        return toPsiElement(location, kind, null, project);
+    }
+
+    @Nullable
+    public static LSPUsagePsiElement toPsiElement(@NotNull LocationLink location,
+                                                  @NotNull LSPUsagePsiElement.UsageKind kind,
+                                                  @Nullable String positionEncoding,
+                                                  @NotNull Project project) {
+        LSPUsagePsiElement element = LSPPsiElementFactory.toPsiElement(location, positionEncoding, project, USAGE_ELEMENT_FACTORY);
         if (element != null) {
             element.setKind(kind);
         }